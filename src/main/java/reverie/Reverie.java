@@ -3,9 +3,24 @@ package reverie;
 import reverie.command.Command;
 import reverie.exception.ReverieException;
 import reverie.parser.Parser;
+import reverie.server.Server;
 import reverie.storage.Storage;
+import reverie.storage.StorageFormat;
 import reverie.ui.TaskList;
 import reverie.ui.Ui;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Represents the main Reverie chatbot application.
@@ -13,6 +28,10 @@ import reverie.ui.Ui;
  * and command execution loop.
  */
 public class Reverie {
+    private static final String DEFAULT_FILE_PATH = "./data/reverie.txt";
+    private static final long DEFAULT_WRITE_DELAY_MILLIS = 200;
+    private static final long DEFAULT_PARALLEL_THRESHOLD = 100_000;
+    private static final String COMMENT_PREFIX = "#";
     private final Storage storage;
     private TaskList tasks;
     private final Ui ui;
@@ -24,14 +43,35 @@ public class Reverie {
      * @param filePath The file path where tasks are stored.
      */
     public Reverie(String filePath) {
+        this(new Storage(filePath));
+    }
+
+    /**
+     * Constructs a Reverie chatbot backed by the specified storage.
+     * Initializes the UI and attempts to load existing tasks from the storage.
+     *
+     * @param storage The storage where tasks are kept.
+     */
+    public Reverie(Storage storage) {
+        this(storage, false);
+    }
+
+    /**
+     * Constructs a Reverie chatbot backed by the specified storage, keeping tasks either as objects or as columns.
+     *
+     * @param storage The storage where tasks are kept.
+     * @param isColumnar True to keep tasks in the compact columnar layout, false to keep task objects.
+     */
+    public Reverie(Storage storage, boolean isColumnar) {
         ui = new Ui();
-        storage = new Storage(filePath);
+        this.storage = storage;
+        storage.setWarningOutput(ui::showWarning);
         try {
-            tasks = new TaskList(storage.load());
+            tasks = storage.loadTaskList(isColumnar);
             ui.showLoadedTasks(tasks.size());
         } catch (ReverieException e) {
             ui.showLoadingError();
-            tasks = new TaskList();
+            tasks = new TaskList(List.of(), isColumnar);
         }
     }
 
@@ -48,11 +88,15 @@ public class Reverie {
             try {
                 String fullCommand = ui.readCommand();
                 ui.showLine();
+                showWriteFailure();
                 Command c = Parser.parse(fullCommand);
                 c.execute(tasks, ui, storage);
                 isExit = c.isExit();
             } catch (ReverieException e) {
                 ui.showError(e.getMessage());
+            } catch (UncheckedIOException e) {
+                // A lazily loaded data file could not be read
+                ui.showError("Error reading file: " + e.getCause().getMessage());
             } finally {
                 if (!isExit) {
                     ui.showLine();
@@ -63,13 +107,207 @@ public class Reverie {
         ui.close();
     }
 
+    /**
+     * Runs commands from a reader, one per line, without the interactive decorations.
+     * The output of successful commands is suppressed; failures are shown with their line numbers,
+     * followed by a summary of how many commands ran and how fast.
+     * Changes are saved as a single snapshot at the end, even if a command fails unexpectedly,
+     * and also after every <code>saveInterval</code> commands if it is positive.
+     * Blank lines and lines starting with <code>#</code> are skipped, and <code>bye</code> stops the batch early.
+     *
+     * @param commands The reader to read commands from.
+     * @param saveInterval The number of commands between saves, or 0 to save only at the end.
+     * @return The number of commands that failed.
+     */
+    public long runBatch(BufferedReader commands, long saveInterval) {
+        Ui quietUi = new Ui(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+        storage.deferSaves();
+        long commandCount = 0;
+        long failureCount = 0;
+        long lineNumber = 0;
+        long startTime = System.nanoTime();
+
+        try {
+            String line;
+            boolean isExit = false;
+            while (!isExit && (line = commands.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.trim().startsWith(COMMENT_PREFIX)) {
+                    continue;
+                }
+                commandCount++;
+                try {
+                    Command c = Parser.parse(line);
+                    c.execute(tasks, quietUi, storage);
+                    isExit = c.isExit();
+                } catch (ReverieException e) {
+                    failureCount++;
+                    ui.showBatchError(lineNumber, e.getMessage());
+                } catch (UncheckedIOException e) {
+                    failureCount++;
+                    ui.showBatchError(lineNumber, "Error reading file: " + e.getCause().getMessage());
+                }
+                if (saveInterval > 0 && commandCount % saveInterval == 0) {
+                    storage.flush();
+                }
+            }
+        } catch (IOException e) {
+            ui.showError("Error reading commands: " + e.getMessage());
+        } catch (ReverieException e) {
+            ui.showError(e.getMessage());
+        } finally {
+            // Also reached when a command fails unexpectedly, so the changes held back so far are not lost
+            try {
+                storage.flush();
+            } catch (ReverieException e) {
+                ui.showError(e.getMessage());
+            }
+        }
+
+        ui.showBatchSummary(commandCount, failureCount, System.nanoTime() - startTime);
+        ui.close();
+        return failureCount;
+    }
+
+    /**
+     * Serves the task list to clients connecting over local TCP, until the process is stopped.
+     * Each client gets the same prompts and replies as the interactive chatbot.
+     *
+     * @param port The port to listen on, or 0 to pick any free port.
+     * @param maxConnections The largest number of clients served at once.
+     */
+    public void runServer(int port, int maxConnections) {
+        Server server = new Server(tasks, storage, maxConnections);
+        InetAddress address = InetAddress.getLoopbackAddress();
+        // A backlog as long as the limit lets a burst of clients wait to be accepted instead of being refused
+        try (ServerSocket serverSocket = new ServerSocket(port, server.getMaxConnections(), address)) {
+            ui.showServerStarted(address.getHostAddress() + ":" + serverSocket.getLocalPort(),
+                    server.getMaxConnections(), server.getThreadKind());
+            server.serve(serverSocket);
+        } catch (IOException | IllegalArgumentException e) {
+            ui.showError("Could not serve on port " + port + ": " + e.getMessage());
+        }
+        ui.close();
+    }
+
+    /**
+     * Displays an error if a background save has failed since the last command.
+     */
+    private void showWriteFailure() {
+        String failure = storage.takeWriteFailure();
+        if (failure != null) {
+            ui.showError(failure);
+        }
+    }
+
     /**
      * Main entry point of the Reverie application.
      * Creates a new Reverie instance with default data file path and starts the program.
      *
-     * @param args Command line arguments (not used).
+     * Pass <code>--journal</code> to append changes to a journal instead of rewriting the data file,
+     * <code>--write-behind</code> to save in the background after a short delay
+     * (<code>--write-delay MILLIS</code>, default 200), <code>--binary</code> to save in the
+     * compact binary format, <code>--columnar</code> to keep tasks in memory as compact columns,
+     * <code>--lazy</code> to keep a binary data file open and decode descriptions only when needed,
+     * <code>--parallel</code> to spread searches that check every task across all cores
+     * (<code>--parallel-threshold TASKS</code>, default 100000),
+     * <code>--batch [FILE]</code> to run the commands in a file, or on standard input if no file is given,
+     * without the interactive output and save once at the end (or every <code>--save-every N</code> commands),
+     * <code>--server</code> to serve the task list to many clients over local TCP
+     * (<code>--port N</code>, default 4545, and <code>--max-connections N</code>, default 1024),
+     * or <code>--convert text|binary</code> to convert the data file and exit.
+     * A batch that has failed commands exits with status 1.
+     *
+     * @param args Command line arguments.
      */
     public static void main(String[] args) {
-        new Reverie("./data/reverie.txt").run();
+        List<String> options = Arrays.asList(args);
+        Storage storage = new Storage(DEFAULT_FILE_PATH, options.contains("--journal"));
+
+        int convertIndex = options.indexOf("--convert");
+        if (convertIndex >= 0) {
+            convert(storage, convertIndex + 1 < args.length ? args[convertIndex + 1] : "");
+            return;
+        }
+
+        if (options.contains("--binary")) {
+            storage.setFormat(StorageFormat.BINARY);
+        }
+        if (options.contains("--lazy")) {
+            storage.enableLazyLoading();
+        }
+        if (options.contains("--write-behind")) {
+            storage.enableWriteBehind(parseLongOption(args, "--write-delay", DEFAULT_WRITE_DELAY_MILLIS));
+        }
+        Reverie reverie = new Reverie(storage, options.contains("--columnar"));
+        if (options.contains("--parallel")) {
+            long threshold = parseLongOption(args, "--parallel-threshold", DEFAULT_PARALLEL_THRESHOLD);
+            reverie.tasks.enableParallelScan((int) Math.min(Integer.MAX_VALUE, threshold));
+        }
+
+        if (options.contains("--server")) {
+            long port = parseLongOption(args, "--port", Server.DEFAULT_PORT);
+            long maxConnections = parseLongOption(args, "--max-connections", Server.DEFAULT_MAX_CONNECTIONS);
+            reverie.runServer((int) port, (int) Math.min(Integer.MAX_VALUE, maxConnections));
+            return;
+        }
+
+        int batchIndex = options.indexOf("--batch");
+        if (batchIndex < 0) {
+            reverie.run();
+            return;
+        }
+        String batchFile = batchIndex + 1 < args.length && !args[batchIndex + 1].startsWith("--")
+                ? args[batchIndex + 1] : "-";
+        long saveInterval = parseLongOption(args, "--save-every", 0);
+        try (BufferedReader commands = batchFile.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(batchFile), StandardCharsets.UTF_8)) {
+            if (reverie.runBatch(commands, saveInterval) > 0) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.out.println(" Error: Could not read commands from " + batchFile + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the numeric value following the specified option, or a default if it is absent or invalid.
+     *
+     * @param args Command line arguments.
+     * @param option The option name.
+     * @param defaultValue The value to use if the option is absent or invalid.
+     * @return The value of the option.
+     */
+    private static long parseLongOption(String[] args, String option, long defaultValue) {
+        int index = Arrays.asList(args).indexOf(option);
+        if (index < 0 || index + 1 >= args.length) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(args[index + 1]);
+        } catch (NumberFormatException e) {
+            System.out.println(" Warning: Invalid value for " + option + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Converts the data file to the specified format and reports the result.
+     *
+     * @param storage The storage holding the data file.
+     * @param formatName The name of the format to convert to.
+     */
+    private static void convert(Storage storage, String formatName) {
+        try {
+            StorageFormat format = StorageFormat.valueOf(formatName.toUpperCase());
+            int count = storage.convertTo(format);
+            System.out.println(" Converted " + count + " task(s) to the " + formatName.toLowerCase() + " format.");
+        } catch (IllegalArgumentException e) {
+            System.out.println(" Error: Unknown format '" + formatName + "'. Use text or binary.");
+        } catch (ReverieException e) {
+            System.out.println(" Error: " + e.getMessage());
+        }
     }
 }
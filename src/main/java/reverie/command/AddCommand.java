@@ -8,7 +8,7 @@ import reverie.ui.Ui;
 
 /**
  * Represents a command to add a task to the task list.
- * An <code>AddCommand</code> adds a new task and saves it to storage.
+ * An <code>AddCommand</code> adds a new task and records it in storage.
  */
 public class AddCommand extends Command {
     private final Task task;
@@ -34,6 +34,6 @@ public class AddCommand extends Command {
     public void execute(TaskList tasks, Ui ui, Storage storage) throws ReverieException {
         tasks.add(task);
         ui.showTaskAdded(task, tasks.size());
-        storage.save(tasks.getAllTasks());
+        storage.recordAdd(tasks, task);
     }
 }
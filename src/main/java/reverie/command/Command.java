@@ -29,4 +29,15 @@ public abstract class Command {
     public boolean isExit() {
         return false;
     }
+
+    /**
+     * Indicates whether this command only reads the task list, so that it can run alongside other such commands.
+     * In server mode, commands that change the tasks or the storage run one at a time with no other command
+     * running, so that no read sees a change half made and changes are recorded in the order they were made.
+     *
+     * @return True if the command only reads tasks, false otherwise.
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
 }
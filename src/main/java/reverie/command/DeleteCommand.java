@@ -5,32 +5,40 @@ import reverie.storage.Storage;
 import reverie.task.Task;
 import reverie.ui.TaskList;
 import reverie.ui.Ui;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Represents a command to delete a task from the task list.
- * A <code>DeleteCommand</code> removes a task at the specified index
- * and saves the updated task list to storage.
+ * Represents a command to delete tasks from the task list.
+ * A <code>DeleteCommand</code> removes a task at the specified index, a list of tasks and ranges
+ * such as <code>3,7,10-500</code>, or the tasks matching filters or a query,
+ * and saves the updated task list to storage once.
  */
 public class DeleteCommand extends Command {
+    private static final String FORMAT = "Format: delete TASK_NUMBERS (e.g., 3,7,10-15), "
+            + "delete /type TYPES /done true|false or delete /query CONDITIONS";
+
     private final String arguments;
 
     /**
      * Constructs a DeleteCommand with the specified arguments.
      *
-     * @param arguments The task number to delete.
+     * @param arguments The task numbers, filters or query selecting the tasks to delete.
      */
     public DeleteCommand(String arguments) {
         this.arguments = arguments;
     }
 
     /**
-     * Executes the delete command to remove a task from the list.
-     * The task list is saved to storage after deletion.
+     * Executes the delete command to remove the selected tasks from the list.
+     * Every task number refers to the list as it was before the command, and the task list is saved
+     * to storage once after all the deletions.
      *
      * @param tasks The task list to delete from.
      * @param ui The UI to display deletion confirmation.
      * @param storage The storage to save the updated task list.
-     * @throws ReverieException If the task list is empty, task number is invalid, or storage fails.
+     * @throws ReverieException If the task list is empty, the selection is invalid or matches no tasks,
+     *     or storage fails.
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws ReverieException {
@@ -42,13 +50,21 @@ public class DeleteCommand extends Command {
             throw new ReverieException("Please specify a task number to delete");
         }
 
-        try {
-            int taskNumber = Integer.parseInt(arguments.trim()) - 1;
+        ArrayList<Integer> indices = TaskSelector.select(tasks, arguments, FORMAT);
+        if (indices.isEmpty()) {
+            throw new ReverieException("No matching tasks to delete!");
+        }
+
+        if (indices.size() == 1) {
+            int taskNumber = indices.get(0);
             Task removedTask = tasks.delete(taskNumber);
             ui.showTaskDeleted(removedTask, tasks.size());
-            storage.save(tasks.getAllTasks());
-        } catch (NumberFormatException e) {
-            throw new ReverieException("Please enter a valid number after 'delete'");
+            storage.recordDelete(tasks, taskNumber);
+            return;
         }
+
+        List<Task> removedTasks = tasks.deleteAll(indices);
+        ui.showTasksDeleted(removedTasks, tasks.size());
+        storage.recordDeletes(tasks, indices);
     }
 }
@@ -1,24 +1,27 @@
 package reverie.command;
 
+import reverie.exception.ReverieException;
 import reverie.storage.Storage;
 import reverie.ui.TaskList;
 import reverie.ui.Ui;
 
 /**
  * Represents a command to exit the Reverie chatbot.
- * An <code>ExitCommand</code> displays a goodbye message and signals
- * the application to terminate.
+ * An <code>ExitCommand</code> writes out any pending changes, displays a goodbye message
+ * and signals the application to terminate.
  */
 public class ExitCommand extends Command {
     /**
-     * Executes the exit command to display a goodbye message.
+     * Executes the exit command to flush pending changes and display a goodbye message.
      *
      * @param tasks The task list (not used in this command).
      * @param ui The UI to display the goodbye message.
-     * @param storage The storage (not used in this command).
+     * @param storage The storage to flush before exiting.
+     * @throws ReverieException If pending changes cannot be written.
      */
     @Override
-    public void execute(TaskList tasks, Ui ui, Storage storage) {
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws ReverieException {
+        storage.flush();
         ui.showGoodbye();
     }
 
@@ -2,16 +2,28 @@ package reverie.command;
 
 import reverie.exception.ReverieException;
 import reverie.storage.Storage;
+import reverie.ui.Page;
 import reverie.ui.TaskList;
 import reverie.ui.Ui;
 import java.util.ArrayList;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Represents a command to find tasks matching a keyword.
  * A <code>FindCommand</code> searches for tasks containing the specified keyword
  * and displays the matching results.
+ * With <code>/word</code> or <code>/prefix</code>, it matches whole words or word starts
+ * using the keyword index instead of scanning every task.
+ * With <code>/regex</code>, it matches a regular expression against each task's status line.
+ * With <code>/page</code> and <code>/size</code> at the end, it displays only one page of the matches.
  */
 public class FindCommand extends Command {
+    private static final String WORD_OPTION = "/word";
+    private static final String PREFIX_OPTION = "/prefix";
+    private static final String REGEX_OPTION = "/regex";
+    private static final String FORMAT = "Format: find [/word|/prefix|/regex] KEYWORD [/page N] [/size M]";
+
     private final String keyword;
 
     /**
@@ -26,19 +38,86 @@ public class FindCommand extends Command {
     /**
      * Executes the find command to search for matching tasks.
      * The search is case-insensitive and matches against the full task representation.
+     * Whole-word and prefix searches must match every word given.
+     * Only the matches on the page given by <code>/page</code> and <code>/size</code>, if any, are displayed.
      *
      * @param tasks The task list to search.
      * @param ui The UI to display search results.
      * @param storage The storage (not used in this command).
-     * @throws ReverieException If the keyword is empty.
+     * @throws ReverieException If the keyword or the words after an option are empty,
+     *     the regular expression is invalid, or the page is past the end.
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws ReverieException {
-        if (keyword.trim().isEmpty()) {
-            throw new ReverieException("Please specify a keyword to search for");
+        Page page = Page.parse(keyword, FORMAT);
+        String search = Page.removeOptions(keyword);
+        if (search.trim().isEmpty()) {
+            throw new ReverieException("Please specify a keyword to search for\n" + FORMAT);
+        }
+
+        String trimmed = search.trim();
+        ArrayList<Integer> matchingIndices;
+        if (hasOption(trimmed, WORD_OPTION)) {
+            matchingIndices = tasks.findKeywordIndices(getOptionValue(trimmed, WORD_OPTION), false);
+        } else if (hasOption(trimmed, PREFIX_OPTION)) {
+            matchingIndices = tasks.findKeywordIndices(getOptionValue(trimmed, PREFIX_OPTION), true);
+        } else if (hasOption(trimmed, REGEX_OPTION)) {
+            matchingIndices = tasks.findRegexIndices(compile(getOptionValue(trimmed, REGEX_OPTION)));
+        } else {
+            matchingIndices = tasks.findTaskIndices(search);
         }
+        ui.showFoundTasks(tasks, matchingIndices, page);
+    }
 
-        ArrayList<Integer> matchingIndices = tasks.findTaskIndices(keyword);
-        ui.showFoundTasks(tasks, matchingIndices);
+    /**
+     * Checks if the keyword starts with the specified option.
+     *
+     * @param keyword The trimmed keyword.
+     * @param option The option, such as /word.
+     * @return True if the keyword starts with the option, false otherwise.
+     */
+    private static boolean hasOption(String keyword, String option) {
+        return keyword.equalsIgnoreCase(option) || keyword.toLowerCase().startsWith(option + " ");
+    }
+
+    /**
+     * Returns the words that follow an option.
+     *
+     * @param keyword The trimmed keyword starting with the option.
+     * @param option The option, such as /word.
+     * @return The words after the option.
+     * @throws ReverieException If no words follow the option.
+     */
+    private static String getOptionValue(String keyword, String option) throws ReverieException {
+        String value = keyword.substring(option.length()).trim();
+        if (value.isEmpty()) {
+            throw new ReverieException("Please specify a word to search for after " + option);
+        }
+        return value;
+    }
+
+    /**
+     * Compiles a regular expression given to the /regex option.
+     *
+     * @param regex The regular expression.
+     * @return The compiled pattern.
+     * @throws ReverieException If the regular expression is invalid.
+     */
+    private static Pattern compile(String regex) throws ReverieException {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new ReverieException("Invalid regular expression: " + e.getDescription());
+        }
+    }
+
+    /**
+     * Indicates that this command only reads the task list.
+     *
+     * @return Always returns true.
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
     }
 }
@@ -2,24 +2,70 @@ package reverie.command;
 
 import reverie.exception.ReverieException;
 import reverie.storage.Storage;
+import reverie.ui.Page;
 import reverie.ui.TaskList;
 import reverie.ui.Ui;
 
 /**
  * Represents a command to list all tasks.
  * A <code>ListCommand</code> displays all tasks in the task list.
+ * With <code>/type</code> or <code>/done</code>, it displays only the tasks of the given types
+ * or done state, found from the status bitmaps instead of by reading every task.
+ * With <code>/page</code> and <code>/size</code> at the end, it displays only one page of the tasks.
  */
 public class ListCommand extends Command {
+    private static final String FORMAT =
+            "Format: list [/type todo|deadline|event[,...]] [/done true|false] [/page N] [/size M]";
+
+    private final String filters;
+
+    /**
+     * Constructs a ListCommand that lists every task.
+     */
+    public ListCommand() {
+        this("");
+    }
+
+    /**
+     * Constructs a ListCommand with the specified filters.
+     *
+     * @param filters The filter and page options, such as <code>/type deadline /done false /page 2</code>,
+     *     or empty for none.
+     */
+    public ListCommand(String filters) {
+        this.filters = filters;
+    }
+
     /**
-     * Executes the list command to display all tasks.
+     * Executes the list command to display all tasks, or the tasks that pass every filter.
+     * Types given to <code>/type</code>, separated by commas or by repeating the option, are alternatives;
+     * different options must all hold. Only the tasks on the page given by <code>/page</code>
+     * and <code>/size</code>, if any, are read and displayed.
      *
      * @param tasks The task list to display.
      * @param ui The UI to display the task list.
      * @param storage The storage (not used in this command).
-     * @throws ReverieException If there is an error accessing the tasks.
+     * @throws ReverieException If a filter is unknown or has an invalid value, or the page is past the end.
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws ReverieException {
-        ui.showTaskList(tasks);
+        Page page = Page.parse(filters, FORMAT);
+        String trimmed = Page.removeOptions(filters).trim();
+        if (trimmed.isEmpty()) {
+            ui.showTaskList(tasks, page);
+            return;
+        }
+
+        ui.showFoundTasks(tasks, TaskSelector.filter(tasks, trimmed, FORMAT), page);
+    }
+
+    /**
+     * Indicates that this command only reads the task list.
+     *
+     * @return Always returns true.
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
     }
 }
@@ -5,20 +5,26 @@ import reverie.storage.Storage;
 import reverie.task.Task;
 import reverie.ui.TaskList;
 import reverie.ui.Ui;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Represents a command to mark or unmark a task as done.
- * A <code>MarkCommand</code> changes the completion status of a task
- * and saves the updated task list.
+ * Represents a command to mark or unmark tasks as done.
+ * A <code>MarkCommand</code> changes the completion status of a task, of a list of tasks and ranges
+ * such as <code>3,7,10-500</code>, or of the tasks matching filters or a query,
+ * and saves the updated task list once.
  */
 public class MarkCommand extends Command {
+    private static final String SELECTION_FORMAT =
+            "TASK_NUMBERS (e.g., 3,7,10-15), /type TYPES /done true|false or /query CONDITIONS";
+
     private final String arguments;
     private final boolean isMark;
 
     /**
      * Constructs a MarkCommand with the specified arguments and mark flag.
      *
-     * @param arguments The task number to mark/unmark.
+     * @param arguments The task numbers, filters or query selecting the tasks to mark/unmark.
      * @param isMark True to mark as done, false to unmark.
      */
     public MarkCommand(String arguments, boolean isMark) {
@@ -28,12 +34,13 @@ public class MarkCommand extends Command {
 
     /**
      * Executes the mark/unmark command.
-     * Changes the task's completion status and saves to storage.
+     * Changes the completion status of every selected task in one pass and saves to storage once.
      *
-     * @param tasks The task list containing the task to mark/unmark.
+     * @param tasks The task list containing the tasks to mark/unmark.
      * @param ui The UI to display confirmation.
      * @param storage The storage to save the updated task list.
-     * @throws ReverieException If the task list is empty, task number is invalid, or storage fails.
+     * @throws ReverieException If the task list is empty, the selection is invalid or matches no tasks,
+     *     or storage fails.
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws ReverieException {
@@ -41,25 +48,37 @@ public class MarkCommand extends Command {
             throw new ReverieException("No tasks available to mark!");
         }
 
+        String commandWord = isMark ? "mark" : "unmark";
         if (arguments.trim().isEmpty()) {
-            throw new ReverieException("Please specify a task number to " + (isMark ? "mark" : "unmark"));
+            throw new ReverieException("Please specify a task number to " + commandWord);
+        }
+
+        ArrayList<Integer> indices = TaskSelector.select(tasks, arguments,
+                "Format: " + commandWord + " " + SELECTION_FORMAT);
+        if (indices.isEmpty()) {
+            throw new ReverieException("No matching tasks to " + commandWord + "!");
         }
 
-        try {
-            int taskNumber = Integer.parseInt(arguments.trim()) - 1;
-            Task task = tasks.get(taskNumber);
+        if (indices.size() == 1) {
+            int taskNumber = indices.get(0);
+            Task task = tasks.mark(taskNumber, isMark);
 
             if (isMark) {
-                task.markAsDone();
                 ui.showTaskMarked(task);
             } else {
-                task.markAsUndone();
                 ui.showTaskUnmarked(task);
             }
 
-            storage.save(tasks.getAllTasks());
-        } catch (NumberFormatException e) {
-            throw new ReverieException("Please enter a valid number after '" + (isMark ? "mark" : "unmark") + "'");
+            storage.recordMark(tasks, taskNumber, isMark);
+            return;
+        }
+
+        List<Task> changedTasks = tasks.markAll(indices, isMark);
+        if (isMark) {
+            ui.showTasksMarked(changedTasks);
+        } else {
+            ui.showTasksUnmarked(changedTasks);
         }
+        storage.recordMarks(tasks, indices, isMark);
     }
 }
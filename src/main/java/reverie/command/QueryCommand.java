@@ -0,0 +1,70 @@
+package reverie.command;
+
+import reverie.exception.ReverieException;
+import reverie.query.QueryParser;
+import reverie.query.QueryPlan;
+import reverie.storage.Storage;
+import reverie.ui.Page;
+import reverie.ui.TaskList;
+import reverie.ui.Ui;
+
+/**
+ * Represents a command to find the tasks matching a query such as
+ * <code>type:deadline and not done:true and before:2019-12-31</code>.
+ * A <code>QueryCommand</code> plans the query over the task indexes and displays the matching tasks,
+ * or, with <code>/explain</code>, displays the plan and its estimates without running it.
+ * With <code>/page</code> and <code>/size</code> at the end, it displays only one page of the matches.
+ */
+public class QueryCommand extends Command {
+    private static final String EXPLAIN_OPTION = "/explain";
+    private static final String FORMAT = "Format: query [/explain] CONDITIONS [/page N] [/size M]";
+
+    private final String query;
+
+    /**
+     * Constructs a QueryCommand with the specified query.
+     *
+     * @param query The query, optionally starting with /explain.
+     */
+    public QueryCommand(String query) {
+        this.query = query;
+    }
+
+    /**
+     * Executes the query command to display the matching tasks or the query plan.
+     * The matches are displayed as the plan produces them, and only those on the page given by
+     * <code>/page</code> and <code>/size</code>, if any, are read from the task list.
+     *
+     * @param tasks The task list to search.
+     * @param ui The UI to display the results or plan.
+     * @param storage The storage (not used in this command).
+     * @throws ReverieException If the query is empty or not well formed, or the page is past the end.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) throws ReverieException {
+        Page page = Page.parse(query, FORMAT);
+        String trimmed = Page.removeOptions(query).trim();
+        boolean isExplain = trimmed.equalsIgnoreCase(EXPLAIN_OPTION)
+                || trimmed.toLowerCase().startsWith(EXPLAIN_OPTION + " ");
+        if (isExplain) {
+            trimmed = trimmed.substring(EXPLAIN_OPTION.length());
+        }
+
+        QueryPlan plan = QueryPlan.of(QueryParser.parse(trimmed), tasks);
+        if (isExplain) {
+            ui.showQueryPlan(plan.explain());
+            return;
+        }
+        ui.showFoundTasks(tasks, action -> plan.execute(tasks, action), page);
+    }
+
+    /**
+     * Indicates that this command only reads the task list.
+     *
+     * @return Always returns true.
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
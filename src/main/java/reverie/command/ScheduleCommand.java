@@ -1,31 +1,31 @@
 package reverie.command;
 
 import reverie.exception.ReverieException;
+import reverie.parser.DateTimeParser;
 import reverie.storage.Storage;
-import reverie.task.Deadline;
-import reverie.task.Event;
-import reverie.task.Task;
+import reverie.ui.Page;
 import reverie.ui.TaskList;
 import reverie.ui.Ui;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 
 /**
- * Represents a command to display tasks scheduled for a specific date.
+ * Represents a command to display tasks scheduled for a specific date or range of dates.
  * A <code>ScheduleCommand</code> filters and displays deadlines and events
- * that occur on the specified date.
+ * that occur on the specified date, or on each day of a range written as <code>from..to</code>,
+ * using the date index of the task list.
+ * With <code>/page</code> and <code>/size</code> at the end, it displays only one page of the tasks.
  */
 public class ScheduleCommand extends Command {
+    private static final String RANGE_SEPARATOR = "..";
+    private static final String FORMAT = "Format: schedule DATE[..DATE] [/page N] [/size M]";
+
     private final String dateString;
-    private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     /**
      * Constructs a ScheduleCommand with the specified date string.
      *
-     * @param dateString The date string in yyyy-MM-dd format.
+     * @param dateString The date or range of dates, in any date format accepted for deadlines and events.
      */
     public ScheduleCommand(String dateString) {
         this.dateString = dateString;
@@ -33,64 +33,110 @@ public class ScheduleCommand extends Command {
 
     /**
      * Executes the schedule command to display tasks for the specified date.
-     * Parses the date, finds matching tasks, and displays them through the UI.
+     * Parses the date or range, finds matching tasks, and displays them through the UI.
+     * The date may be in any date format accepted for deadlines and events.
+     * Only the tasks on the page given by <code>/page</code> and <code>/size</code>, if any, are displayed.
      *
      * @param tasks The task list to search.
      * @param ui The UI to display results.
      * @param storage The storage (not used in this command).
-     * @throws ReverieException If the date string is empty or invalid.
+     * @throws ReverieException If the date string is empty or invalid, the range is reversed,
+     *     or the page is past the end.
      */
     @Override
     public void execute(TaskList tasks, Ui ui, Storage storage) throws ReverieException {
-        if (dateString.trim().isEmpty()) {
+        Page page = Page.parse(dateString, FORMAT);
+        String trimmed = Page.removeOptions(dateString).trim();
+        if (trimmed.isEmpty()) {
             throw new ReverieException("Please specify a date to check the schedule\n" +
-                    "Format: schedule yyyy-MM-dd (e.g., schedule 2019-12-02)");
+                    "Format: schedule DATE (e.g., schedule 2019-12-02 or schedule Dec 02 2019)");
         }
 
-        LocalDate targetDate;
-        try {
-            targetDate = LocalDate.parse(dateString.trim(), INPUT_FORMAT);
-        } catch (DateTimeParseException e) {
-            throw new ReverieException("Invalid date format! Please use yyyy-MM-dd (e.g., 2019-12-02)");
+        int separator = trimmed.indexOf(RANGE_SEPARATOR);
+        if (separator >= 0) {
+            LocalDate from = parseDate(trimmed.substring(0, separator));
+            LocalDate to = parseDate(trimmed.substring(separator + RANGE_SEPARATOR.length()));
+            if (from.isAfter(to)) {
+                throw new ReverieException("The start of the range must not be after its end!");
+            }
+            showRange(tasks, ui, from, to, page);
+            return;
         }
 
-        ArrayList<Integer> matchingIndices = getIndicesFromDate(tasks, targetDate);
+        LocalDate targetDate = parseDate(trimmed);
+        ArrayList<Integer> matchingIndices = tasks.findScheduledIndices(targetDate);
 
-        ui.showSchedule(tasks, matchingIndices, targetDate);
+        ui.showSchedule(tasks, matchingIndices, targetDate, page);
     }
 
     /**
-     * Finds all tasks that occur on the specified date.
-     * For deadlines, checks if the due date matches.
-     * For events, checks if the date falls within the event's date range.
+     * Displays the tasks in a range of dates day by day, skipping days without tasks.
+     * Days are looked up one at a time and displayed as soon as they are found, so only one day's tasks
+     * are held at once. With a page, every day is still looked up to count the tasks, but only the days
+     * and tasks on the page are read and displayed.
      *
      * @param tasks The task list to search.
-     * @param targetDate The date to search for.
-     * @return A list of indices of matching tasks.
+     * @param ui The UI to display results.
+     * @param from The first date of the range.
+     * @param to The last date of the range.
+     * @param page The page to display, or null for every task in the range.
+     * @throws ReverieException If the page is past the end or there is an error accessing tasks.
      */
-    private static ArrayList<Integer> getIndicesFromDate(TaskList tasks, LocalDate targetDate) {
-        ArrayList<Integer> matchingIndices = new ArrayList<>();
-        ArrayList<Task> allTasks = tasks.getAllTasks();
-
-        for (int i = 0; i < allTasks.size(); i++) {
-            Task task = allTasks.get(i);
-            if (task instanceof Deadline deadline) {
-                LocalDateTime byDateTime = deadline.getByDateTime();
-                if (byDateTime != null && byDateTime.toLocalDate().equals(targetDate)) {
-                    matchingIndices.add(i);
-                }
-            } else if (task instanceof Event event) {
-                LocalDateTime fromDateTime = event.getFromDateTime();
-                LocalDateTime toDateTime = event.getToDateTime();
-                if (fromDateTime != null && toDateTime != null) {
-                    LocalDate fromDate = fromDateTime.toLocalDate();
-                    LocalDate toDate = toDateTime.toLocalDate();
-                    if (!targetDate.isBefore(fromDate) && !targetDate.isAfter(toDate)) {
-                        matchingIndices.add(i);
-                    }
+    private static void showRange(TaskList tasks, Ui ui, LocalDate from, LocalDate to, Page page)
+            throws ReverieException {
+        int start = page == null ? 0 : page.getStart();
+        int end = page == null ? Integer.MAX_VALUE : page.getEnd(Integer.MAX_VALUE);
+        int total = 0;
+        boolean isHeadingShown = false;
+        LocalDate date = tasks.findNextScheduledDate(from);
+        while (date != null && !date.isAfter(to)) {
+            ArrayList<Integer> indices = tasks.findScheduledIndices(date);
+            int dayStart = total;
+            total += indices.size();
+            if (total > start && dayStart < end) {
+                if (!isHeadingShown) {
+                    ui.showScheduleRangeHeading(from, to);
+                    isHeadingShown = true;
                 }
+                ui.showScheduleDay(tasks, indices.subList(Math.max(0, start - dayStart),
+                        Math.min(indices.size(), end - dayStart)), date);
             }
+            date = date.equals(LocalDate.MAX) ? null : tasks.findNextScheduledDate(date.plusDays(1));
         }
-        return matchingIndices;
+        if (total == 0) {
+            ui.showScheduleRangeEmpty(from, to);
+            return;
+        }
+        if (page != null) {
+            page.checkInRange(total);
+        }
+        ui.showPageSummary(page, total);
+    }
+
+    /**
+     * Parses a date given to the schedule command.
+     * Any format accepted for the dates of deadlines and events is allowed, and a time in the input is ignored.
+     *
+     * @param input The date string.
+     * @return The parsed date.
+     * @throws ReverieException If the input is not a valid date.
+     */
+    private static LocalDate parseDate(String input) throws ReverieException {
+        LocalDate date = DateTimeParser.parseDate(input);
+        if (date == null) {
+            throw new ReverieException("Invalid date format! Please use a date such as 2019-12-02 or Dec 02 2019\n"
+                    + FORMAT);
+        }
+        return date;
+    }
+
+    /**
+     * Indicates that this command only reads the task list.
+     *
+     * @return Always returns true.
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
     }
 }
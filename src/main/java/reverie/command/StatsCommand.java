@@ -0,0 +1,40 @@
+package reverie.command;
+
+import reverie.parser.DateTimeParser;
+import reverie.storage.Storage;
+import reverie.ui.TaskList;
+import reverie.ui.Ui;
+import java.util.List;
+
+/**
+ * Represents a command to display performance statistics.
+ * A <code>StatsCommand</code> shows figures such as the throughput of the last load,
+ * the hit rate of the date parse cache and the memory used by the tasks and the search indexes.
+ */
+public class StatsCommand extends Command {
+    /**
+     * Executes the stats command to display statistics.
+     *
+     * @param tasks The task list to collect memory and search index statistics from.
+     * @param ui The UI to display the statistics.
+     * @param storage The storage to collect statistics from.
+     */
+    @Override
+    public void execute(TaskList tasks, Ui ui, Storage storage) {
+        List<String> lines = storage.getStatistics();
+        lines.add(DateTimeParser.getCacheStatistics());
+        lines.add(tasks.getStoreStatistics());
+        lines.addAll(tasks.getIndexStatistics());
+        ui.showStats(lines);
+    }
+
+    /**
+     * Indicates that this command only reads the task list.
+     *
+     * @return Always returns true.
+     */
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
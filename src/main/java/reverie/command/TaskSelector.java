@@ -0,0 +1,166 @@
+package reverie.command;
+
+import reverie.exception.ReverieException;
+import reverie.index.StatusIndex;
+import reverie.query.QueryParser;
+import reverie.query.QueryPlan;
+import reverie.ui.TaskList;
+import java.util.ArrayList;
+import java.util.BitSet;
+
+/**
+ * Represents the ways commands pick out tasks: by number, such as <code>3,7,10-500</code>,
+ * by the <code>/type</code> and <code>/done</code> filters of <code>list</code>,
+ * or by a query written after <code>/query</code>.
+ * A <code>TaskSelector</code> turns a selection into the distinct indices of the tasks, in ascending order.
+ */
+class TaskSelector {
+    private static final String TYPE_OPTION = "/type";
+    private static final String DONE_OPTION = "/done";
+    private static final String QUERY_OPTION = "/query";
+
+    /**
+     * Finds the tasks picked out by a selection of task numbers and ranges, filters, or a query.
+     *
+     * @param tasks The task list.
+     * @param selection The selection, such as <code>3,7,10-500</code>, <code>/done true</code>
+     *     or <code>/query type:deadline before:2019-12-31</code>.
+     * @param format The format of the command, to show if the selection is invalid.
+     * @return The distinct indices of the selected tasks (0-based), in ascending order.
+     * @throws ReverieException If the selection is not well formed or a task number is out of range.
+     */
+    static ArrayList<Integer> select(TaskList tasks, String selection, String format) throws ReverieException {
+        String trimmed = selection.trim();
+        String lower = trimmed.toLowerCase();
+        if (lower.equals(QUERY_OPTION) || lower.startsWith(QUERY_OPTION + " ")) {
+            ArrayList<Integer> indices = new ArrayList<>();
+            QueryPlan.of(QueryParser.parse(trimmed.substring(QUERY_OPTION.length())), tasks)
+                    .execute(tasks, indices::add);
+            return indices;
+        } else if (trimmed.startsWith("/")) {
+            return filter(tasks, trimmed, format);
+        }
+        return parseNumbers(trimmed, tasks.size(), format);
+    }
+
+    /**
+     * Finds the tasks that pass every <code>/type</code> and <code>/done</code> filter.
+     * Types given to <code>/type</code>, separated by commas or by repeating the option, are alternatives;
+     * different options must all hold.
+     *
+     * @param tasks The task list.
+     * @param filters The filter options, such as <code>/type deadline /done false</code>.
+     * @param format The format of the command, to show if a filter is invalid.
+     * @return The indices of the tasks that pass (0-based), in ascending order.
+     * @throws ReverieException If a filter is unknown or has an invalid value.
+     */
+    static ArrayList<Integer> filter(TaskList tasks, String filters, String format) throws ReverieException {
+        StringBuilder types = new StringBuilder();
+        Boolean isDone = null;
+        String[] words = filters.trim().split("\\s+");
+        for (int i = 0; i < words.length; i += 2) {
+            String option = words[i].toLowerCase();
+            if (i + 1 == words.length) {
+                throw new ReverieException("Please specify a value after " + option + "\n" + format);
+            }
+            String value = words[i + 1].toLowerCase();
+            if (option.equals(TYPE_OPTION)) {
+                for (String type : value.split(",")) {
+                    char letter = parseType(type, format);
+                    if (types.indexOf(String.valueOf(letter)) < 0) {
+                        types.append(letter);
+                    }
+                }
+            } else if (option.equals(DONE_OPTION)) {
+                isDone = parseDone(value, format);
+            } else {
+                throw new ReverieException("Unknown filter: " + words[i] + "\n" + format);
+            }
+        }
+        return tasks.filterIndices(types.toString(), isDone);
+    }
+
+    /**
+     * Parses task numbers and ranges of task numbers, separated by commas or spaces.
+     *
+     * @param numbers The task numbers, such as <code>3,7,10-500</code>.
+     * @param taskCount The number of tasks in the list.
+     * @param format The format of the command, to show if a number is invalid.
+     * @return The distinct indices of the tasks (0-based), in ascending order.
+     * @throws ReverieException If a number or range is not well formed or out of range.
+     */
+    private static ArrayList<Integer> parseNumbers(String numbers, int taskCount, String format)
+            throws ReverieException {
+        BitSet selected = new BitSet();
+        for (String part : numbers.split("[,\\s]+")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            int separator = part.indexOf('-', 1);
+            int first = parseNumber(separator < 0 ? part : part.substring(0, separator), format);
+            int last = separator < 0 ? first : parseNumber(part.substring(separator + 1), format);
+            if (first > last) {
+                throw new ReverieException("The range " + part + " must not end before it starts!\n" + format);
+            }
+            if (first < 1 || last > taskCount) {
+                throw new ReverieException("Invalid task number! Please select between 1 and " + taskCount);
+            }
+            selected.set(first - 1, last);
+        }
+
+        ArrayList<Integer> indices = new ArrayList<>(selected.cardinality());
+        for (int index = selected.nextSetBit(0); index >= 0; index = selected.nextSetBit(index + 1)) {
+            indices.add(index);
+        }
+        return indices;
+    }
+
+    /**
+     * Parses a single task number.
+     *
+     * @param number The task number.
+     * @param format The format of the command, to show if the number is invalid.
+     * @return The task number (1-based).
+     * @throws ReverieException If the text is not a number.
+     */
+    private static int parseNumber(String number, String format) throws ReverieException {
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            throw new ReverieException("Invalid task number: " + number + "\n" + format);
+        }
+    }
+
+    /**
+     * Returns the type letter of a task type name.
+     *
+     * @param type The lower-case type name, in singular or plural.
+     * @param format The format of the command, to show if the name is unknown.
+     * @return The type letter.
+     * @throws ReverieException If the name is not a task type.
+     */
+    private static char parseType(String type, String format) throws ReverieException {
+        return switch (type) {
+            case "todo", "todos" -> StatusIndex.TODO;
+            case "deadline", "deadlines" -> StatusIndex.DEADLINE;
+            case "event", "events" -> StatusIndex.EVENT;
+            default -> throw new ReverieException("Unknown task type: " + type + "\n" + format);
+        };
+    }
+
+    /**
+     * Returns the done state given to the /done option.
+     *
+     * @param value The lower-case value.
+     * @param format The format of the command, to show if the value is invalid.
+     * @return True for done tasks, false for tasks that are not done.
+     * @throws ReverieException If the value is not true or false.
+     */
+    private static boolean parseDone(String value, String format) throws ReverieException {
+        return switch (value) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new ReverieException("The value of /done must be true or false\n" + format);
+        };
+    }
+}
@@ -0,0 +1,381 @@
+package reverie.index;
+
+import reverie.task.Deadline;
+import reverie.task.Event;
+import reverie.task.Task;
+import reverie.task.Todo;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Represents a task store that keeps tasks as columns of primitive arrays instead of objects.
+ * A <code>ColumnarTaskStore</code> holds a tag byte with the type, done state and date flags of each task,
+ * its dates as epoch minutes in two <code>long</code> columns, and its description in a shared arena
+ * of UTF-8 bytes. A <code>Task</code> object is only created when a slot is read, and is not kept.
+ *
+ * <p>The layout matches the binary storage format: a resolved date is kept as its epoch minute only,
+ * and the original text is kept, in the arena, just for dates that were never resolved.</p>
+ *
+ * <p>A store can also be filled lazily from a binary data file left open on disk. Its slots then
+ * keep the file offsets of their strings instead of copies, so a description is only read and decoded
+ * when its task is read.</p>
+ *
+ * <p>A task can be marked while other threads read the store, so the tag byte is written with release
+ * and read with acquire semantics; everything else only changes while no one is reading.</p>
+ */
+class ColumnarTaskStore extends TaskStore {
+    private static final int TYPE_MASK = 0x03;
+    private static final int TYPE_TODO = 0;
+    private static final int TYPE_DEADLINE = 1;
+    private static final int TYPE_EVENT = 2;
+    private static final int DONE_BIT = 0x04;
+    private static final int HAS_TIME_BIT = 0x08;
+    private static final int FIRST_TEXT_BIT = 0x10;
+    private static final int SECOND_TEXT_BIT = 0x20;
+    private static final int FILE_BIT = 0x40;
+    private static final int MAX_ARENA_SIZE = Integer.MAX_VALUE - 8;
+    private static final VarHandle TAGS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final byte[] tags;
+    private final long[] firstDates;
+    private final long[] secondDates;
+    private final int[] descriptionOffsets;
+    private final byte[] arena;
+    private final FileArena file;
+    private final long[] fileOffsets;
+    private int arenaSize;
+
+    /**
+     * Constructs an empty ColumnarTaskStore with the specified capacity.
+     *
+     * @param capacity The number of slots.
+     */
+    ColumnarTaskStore(int capacity) {
+        this(capacity, capacity * 16, null);
+    }
+
+    /**
+     * Constructs an empty ColumnarTaskStore that can hold tasks whose strings stay in a data file.
+     * Tasks added later are kept in the arena as usual.
+     *
+     * @param capacity The number of slots.
+     * @param file The open data file.
+     */
+    ColumnarTaskStore(int capacity, FileArena file) {
+        this(capacity, 1024, file);
+    }
+
+    /**
+     * Constructs an empty ColumnarTaskStore with the specified capacities.
+     *
+     * @param capacity The number of slots.
+     * @param arenaCapacity The number of bytes in the arena.
+     * @param file The open data file, or null if there is none.
+     */
+    private ColumnarTaskStore(int capacity, int arenaCapacity, FileArena file) {
+        this.tags = new byte[capacity];
+        this.firstDates = new long[capacity];
+        this.secondDates = new long[capacity];
+        this.descriptionOffsets = new int[capacity];
+        this.arena = new byte[arenaCapacity];
+        this.file = file;
+        this.fileOffsets = file == null ? null : new long[capacity];
+    }
+
+    /**
+     * Constructs a ColumnarTaskStore holding a copy of another store, with larger capacities.
+     *
+     * @param other The store to copy.
+     * @param capacity The number of slots.
+     * @param arenaCapacity The number of bytes in the arena.
+     */
+    private ColumnarTaskStore(ColumnarTaskStore other, int capacity, int arenaCapacity) {
+        this.tags = Arrays.copyOf(other.tags, capacity);
+        this.firstDates = Arrays.copyOf(other.firstDates, capacity);
+        this.secondDates = Arrays.copyOf(other.secondDates, capacity);
+        this.descriptionOffsets = Arrays.copyOf(other.descriptionOffsets, capacity);
+        this.arena = Arrays.copyOf(other.arena, arenaCapacity);
+        this.file = other.file;
+        this.fileOffsets = other.fileOffsets == null ? null : Arrays.copyOf(other.fileOffsets, capacity);
+        this.arenaSize = other.arenaSize;
+    }
+
+    /**
+     * Writes a task read from the data file into a slot, growing the store if needed.
+     * Strings stay in the file: the slot keeps the offset of the description, and the offset
+     * of each date that is kept as text.
+     *
+     * @param ordinal The slot to write.
+     * @param tag The tag byte of the task's record in the binary data file.
+     * @param descriptionOffset The file offset of the description.
+     * @param first The first date as an epoch minute, or the file offset of its text.
+     * @param second The second date as an epoch minute, or the file offset of its text.
+     * @return The store to use from now on, which is this store unless it had to grow.
+     */
+    ColumnarTaskStore setFromFile(int ordinal, int tag, long descriptionOffset, long first, long second) {
+        if (ordinal >= tags.length) {
+            return grow(ordinal + 1, arenaSize).setFromFile(ordinal, tag, descriptionOffset, first, second);
+        }
+        tags[ordinal] = (byte) (tag | FILE_BIT);
+        fileOffsets[ordinal] = descriptionOffset;
+        firstDates[ordinal] = first;
+        secondDates[ordinal] = second;
+        return this;
+    }
+
+    @Override
+    TaskStore set(int ordinal, Task task) {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        byte[] firstText = null;
+        byte[] secondText = null;
+        int tag = task.isDone() ? DONE_BIT : 0;
+        long first = 0;
+        long second = 0;
+
+        if (task instanceof Deadline deadline) {
+            tag |= TYPE_DEADLINE | (deadline.hasTime() ? HAS_TIME_BIT : 0);
+            if (deadline.getByDateTime() == null) {
+                tag |= FIRST_TEXT_BIT;
+                firstText = deadline.getByString().getBytes(StandardCharsets.UTF_8);
+            } else {
+                first = toEpochMinute(deadline.getByDateTime());
+            }
+        } else if (task instanceof Event event) {
+            tag |= TYPE_EVENT | (event.hasTime() ? HAS_TIME_BIT : 0);
+            if (event.getFromDateTime() == null) {
+                tag |= FIRST_TEXT_BIT;
+                firstText = event.getFromString().getBytes(StandardCharsets.UTF_8);
+            } else {
+                first = toEpochMinute(event.getFromDateTime());
+            }
+            if (event.getToDateTime() == null) {
+                tag |= SECOND_TEXT_BIT;
+                secondText = event.getToString().getBytes(StandardCharsets.UTF_8);
+            } else {
+                second = toEpochMinute(event.getToDateTime());
+            }
+        }
+
+        long needed = (long) arenaSize + encodedLength(description) + encodedLength(firstText)
+                + encodedLength(secondText);
+        if (ordinal >= tags.length || needed > arena.length) {
+            return grow(ordinal + 1, needed).set(ordinal, task);
+        }
+
+        tags[ordinal] = (byte) tag;
+        descriptionOffsets[ordinal] = append(description);
+        firstDates[ordinal] = firstText != null ? append(firstText) : first;
+        secondDates[ordinal] = secondText != null ? append(secondText) : second;
+        return this;
+    }
+
+    @Override
+    Task get(int ordinal) {
+        int tag = (byte) TAGS.getAcquire(tags, ordinal);
+        boolean hasTime = (tag & HAS_TIME_BIT) != 0;
+        boolean isInFile = (tag & FILE_BIT) != 0;
+        String description = isInFile ? file.readString(fileOffsets[ordinal]) : readString(descriptionOffsets[ordinal]);
+
+        Task task = switch (tag & TYPE_MASK) {
+        case TYPE_DEADLINE -> (tag & FIRST_TEXT_BIT) != 0
+                ? new Deadline(description, readString(firstDates[ordinal], isInFile), null, hasTime)
+                : new Deadline(description, null, toDateTime(firstDates[ordinal]), hasTime);
+        case TYPE_EVENT -> {
+            boolean isFromText = (tag & FIRST_TEXT_BIT) != 0;
+            boolean isToText = (tag & SECOND_TEXT_BIT) != 0;
+            yield new Event(description,
+                    isFromText ? readString(firstDates[ordinal], isInFile) : null,
+                    isToText ? readString(secondDates[ordinal], isInFile) : null,
+                    isFromText ? null : toDateTime(firstDates[ordinal]),
+                    isToText ? null : toDateTime(secondDates[ordinal]),
+                    hasTime);
+        }
+        default -> new Todo(description);
+        };
+
+        if ((tag & DONE_BIT) != 0) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    @Override
+    void setDone(int ordinal, boolean isDone) {
+        int tag = tags[ordinal];
+        TAGS.setRelease(tags, ordinal, (byte) (isDone ? tag | DONE_BIT : tag & ~DONE_BIT));
+    }
+
+    @Override
+    TaskStore compact(int[] mapping, int liveCount) {
+        int capacity = Math.max(16, liveCount * 2);
+        int arenaCapacity = file == null ? Math.max(capacity * 16, arenaSize) : Math.max(1024, arenaSize);
+        ColumnarTaskStore compacted = new ColumnarTaskStore(capacity, arenaCapacity, file);
+        for (int ordinal = 0; ordinal < mapping.length; ordinal++) {
+            int target = mapping[ordinal];
+            if (target < 0) {
+                continue;
+            }
+            int tag = tags[ordinal];
+            compacted.tags[target] = (byte) tag;
+            if ((tag & FILE_BIT) != 0) {
+                // Strings in the file stay where they are
+                compacted.fileOffsets[target] = fileOffsets[ordinal];
+                compacted.firstDates[target] = firstDates[ordinal];
+                compacted.secondDates[target] = secondDates[ordinal];
+                continue;
+            }
+            compacted.descriptionOffsets[target] = compacted.copyString(arena, descriptionOffsets[ordinal]);
+            compacted.firstDates[target] = (tag & FIRST_TEXT_BIT) != 0
+                    ? compacted.copyString(arena, (int) firstDates[ordinal]) : firstDates[ordinal];
+            compacted.secondDates[target] = (tag & SECOND_TEXT_BIT) != 0
+                    ? compacted.copyString(arena, (int) secondDates[ordinal]) : secondDates[ordinal];
+        }
+        return compacted;
+    }
+
+    @Override
+    long memoryBytes(int ordinalCount) {
+        return 48 + tags.length + 8L * firstDates.length + 8L * secondDates.length
+                + 4L * descriptionOffsets.length + arena.length + (fileOffsets == null ? 0 : 8L * fileOffsets.length);
+    }
+
+    @Override
+    String getName() {
+        return file == null ? "columnar" : String.format("columnar, descriptions in %.1f MB read from the data file",
+                file.size() / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Returns a copy of this store with room for at least the specified number of slots and arena bytes.
+     * Only the part that ran out of room is enlarged.
+     *
+     * @param capacity The number of slots needed.
+     * @param arenaCapacity The number of arena bytes needed.
+     * @return The larger store.
+     * @throws IllegalStateException If the arena would exceed the largest possible array.
+     */
+    private ColumnarTaskStore grow(int capacity, long arenaCapacity) {
+        if (arenaCapacity > MAX_ARENA_SIZE) {
+            throw new IllegalStateException("The task store is full");
+        }
+        int newCapacity = capacity <= tags.length ? tags.length : Math.max(capacity, tags.length * 2);
+        // The arena grows by half rather than doubling, since it is the largest column
+        int newArenaCapacity = arenaCapacity <= arena.length ? arena.length
+                : (int) Math.min(MAX_ARENA_SIZE, Math.max(arenaCapacity, arena.length * 3L / 2));
+        return new ColumnarTaskStore(this, newCapacity, newArenaCapacity);
+    }
+
+    /**
+     * Appends a varint length and the bytes of a string to the arena, which must have room for them.
+     *
+     * @param bytes The UTF-8 bytes of the string.
+     * @return The arena offset of the string.
+     */
+    private int append(byte[] bytes) {
+        int offset = arenaSize;
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            arena[arenaSize++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        arena[arenaSize++] = (byte) length;
+        System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+        arenaSize += bytes.length;
+        return offset;
+    }
+
+    /**
+     * Copies a string from another arena into this one.
+     *
+     * @param source The arena to copy from.
+     * @param offset The offset of the string in the source arena.
+     * @return The offset of the string in this arena.
+     */
+    private int copyString(byte[] source, int offset) {
+        int end = offset;
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = source[end++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        end += length;
+
+        int newOffset = arenaSize;
+        System.arraycopy(source, offset, arena, newOffset, end - offset);
+        arenaSize += end - offset;
+        return newOffset;
+    }
+
+    /**
+     * Reads a string stored in the arena.
+     *
+     * @param offset The arena offset of the string.
+     * @return The string.
+     */
+    private String readString(int offset) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = arena[offset++];
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return new String(arena, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a date kept as text, from the data file or the arena.
+     *
+     * @param offset The offset of the text in the file or the arena.
+     * @param isInFile True if the text is in the data file, false if it is in the arena.
+     * @return The text.
+     */
+    private String readString(long offset, boolean isInFile) {
+        return isInFile ? file.readString(offset) : readString((int) offset);
+    }
+
+    /**
+     * Returns the number of arena bytes a string takes, including its varint length.
+     *
+     * @param bytes The UTF-8 bytes of the string, or null for no string.
+     * @return The encoded length.
+     */
+    private static int encodedLength(byte[] bytes) {
+        if (bytes == null) {
+            return 0;
+        }
+        int lengthBytes = 1;
+        for (int length = bytes.length; (length & ~0x7F) != 0; length >>>= 7) {
+            lengthBytes++;
+        }
+        return lengthBytes + bytes.length;
+    }
+
+    /**
+     * Converts a date-time to minutes since the epoch.
+     *
+     * @param dateTime The date-time.
+     * @return The epoch minute.
+     */
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Converts minutes since the epoch to a date-time.
+     *
+     * @param epochMinute The epoch minute.
+     * @return The date-time.
+     */
+    private static LocalDateTime toDateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,378 @@
+package reverie.index;
+
+import reverie.task.Deadline;
+import reverie.task.Event;
+import reverie.task.Task;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Represents an index of the dates that deadlines and events fall on.
+ * A <code>DateIndex</code> keeps deadlines in a sorted map from due date to tasks, and events in an
+ * interval tree of their [from, to] date spans, so that the tasks on a date, or in a range of days,
+ * are found in O(log n + k) time.
+ *
+ * <p>The interval tree is a treap ordered by start date, where each node also records the latest end date
+ * in its subtree so that whole subtrees ending before the date are skipped, and the size of its subtree
+ * so that the events starting before a date are counted without visiting them. Like the other indexes,
+ * it refers to tasks by ordinal and is compacted once removed tasks make up half of it.</p>
+ */
+public class DateIndex {
+    private static final int MIN_COMPACTION_ORDINALS = 1024;
+
+    private final OrdinalTree ordinals = new OrdinalTree();
+    private final TreeMap<Long, IntList> deadlines = new TreeMap<>();
+    private final Random random = new Random();
+    private Node eventRoot;
+
+    /**
+     * Represents an event span in the interval tree.
+     */
+    private static class Node {
+        private final long start;
+        private final long end;
+        private int ordinal;
+        private final int priority;
+        private long maxEnd;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        Node(long start, long end, int ordinal, int priority) {
+            this.start = start;
+            this.end = end;
+            this.ordinal = ordinal;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        void update() {
+            maxEnd = end;
+            size = 1;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+                size += left.size;
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+                size += right.size;
+            }
+        }
+    }
+
+    /**
+     * Constructs a DateIndex over the specified tasks, in list order.
+     *
+     * @param tasks The tasks to index.
+     */
+    public DateIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Indexes a task appended to the end of the list.
+     * Todos and tasks whose dates are plain text take an ordinal but are not placed on any date.
+     *
+     * @param task The task that was added.
+     */
+    public void add(Task task) {
+        int ordinal = ordinals.append();
+        if (task instanceof Deadline deadline && deadline.getByDateTime() != null) {
+            long day = deadline.getByDateTime().toLocalDate().toEpochDay();
+            deadlines.computeIfAbsent(day, key -> new IntList()).add(ordinal);
+        } else if (task instanceof Event event && event.getFromDateTime() != null && event.getToDateTime() != null) {
+            long start = event.getFromDateTime().toLocalDate().toEpochDay();
+            long end = event.getToDateTime().toLocalDate().toEpochDay();
+            if (start <= end) {
+                eventRoot = insert(eventRoot, new Node(start, end, ordinal, random.nextInt()));
+            }
+        }
+    }
+
+    /**
+     * Removes the task at the specified position from the index.
+     * Later tasks move up one position without any change to the map or tree.
+     *
+     * @param position The position of the deleted task (0-based).
+     */
+    public void delete(int position) {
+        ordinals.remove(ordinals.ordinalAt(position));
+        int removed = ordinals.size() - ordinals.liveCount();
+        if (removed >= MIN_COMPACTION_ORDINALS && removed > ordinals.liveCount()) {
+            compact();
+        }
+    }
+
+    /**
+     * Finds the deadlines due on a date and the events that span it.
+     *
+     * @param date The date to look up.
+     * @return The positions of the tasks on the date (0-based), in list order.
+     */
+    public ArrayList<Integer> findOn(LocalDate date) {
+        return findBetween(date.toEpochDay(), date.toEpochDay());
+    }
+
+    /**
+     * Finds the deadlines due in a range of days and the events whose span overlaps it.
+     *
+     * @param fromDay The first day of the range, as an epoch day.
+     * @param toDay The last day of the range, as an epoch day.
+     * @return The positions of the tasks in the range (0-based), in list order.
+     */
+    public ArrayList<Integer> findBetween(long fromDay, long toDay) {
+        IntList found = new IntList();
+        for (IntList due : deadlines.subMap(fromDay, true, toDay, true).values()) {
+            for (int i = 0; i < due.size(); i++) {
+                found.add(due.get(i));
+            }
+        }
+        collectOverlapping(eventRoot, fromDay, toDay, found);
+
+        int[] foundOrdinals = found.toArray();
+        Arrays.sort(foundOrdinals);
+        ArrayList<Integer> positions = new ArrayList<>();
+        for (int ordinal : foundOrdinals) {
+            if (ordinals.isAlive(ordinal)) {
+                positions.add(ordinals.positionOf(ordinal));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Estimates the number of tasks in a range of days, without finding them.
+     * Deadlines are counted from the map, and events by how many start no later than the end of the range,
+     * so the estimate may include removed tasks and events that ended before the range.
+     *
+     * @param fromDay The first day of the range, as an epoch day.
+     * @param toDay The last day of the range, as an epoch day.
+     * @return An upper bound on the number of tasks in the range.
+     */
+    public long estimateBetween(long fromDay, long toDay) {
+        long estimate = 0;
+        for (IntList due : deadlines.subMap(fromDay, true, toDay, true).values()) {
+            estimate += due.size();
+        }
+        for (Node node = eventRoot; node != null; ) {
+            if (node.start <= toDay) {
+                estimate += 1 + (node.left == null ? 0 : node.left.size);
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return Math.min(estimate, ordinals.liveCount());
+    }
+
+    /**
+     * Returns the first date on or after the specified date that has a deadline or event on it.
+     *
+     * @param date The date to start from.
+     * @return The next date with tasks, or null if there is none.
+     */
+    public LocalDate nextDateWithTasks(LocalDate date) {
+        long day = date.toEpochDay();
+        if (hasAliveSpanning(eventRoot, day)) {
+            return date;
+        }
+
+        Long nextDeadline = null;
+        Iterator<Map.Entry<Long, IntList>> entries = deadlines.tailMap(day, true).entrySet().iterator();
+        while (nextDeadline == null && entries.hasNext()) {
+            Map.Entry<Long, IntList> entry = entries.next();
+            if (hasAlive(entry.getValue())) {
+                nextDeadline = entry.getKey();
+            }
+        }
+        Long nextEvent = firstAliveStartAfter(eventRoot, day);
+
+        if (nextDeadline == null && nextEvent == null) {
+            return null;
+        }
+        long next = Math.min(nextDeadline == null ? Long.MAX_VALUE : nextDeadline,
+                nextEvent == null ? Long.MAX_VALUE : nextEvent);
+        return LocalDate.ofEpochDay(next);
+    }
+
+    /**
+     * Inserts a node into a treap, keeping it ordered by start date and heap-ordered by priority.
+     *
+     * @param root The root of the treap.
+     * @param node The node to insert.
+     * @return The new root of the treap.
+     */
+    private static Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        if (node.start < root.start || (node.start == root.start && node.ordinal < root.ordinal)) {
+            root.left = insert(root.left, node);
+            if (root.left.priority > root.priority) {
+                root = rotateRight(root);
+            }
+        } else {
+            root.right = insert(root.right, node);
+            if (root.right.priority > root.priority) {
+                root = rotateLeft(root);
+            }
+        }
+        root.update();
+        return root;
+    }
+
+    /**
+     * Rotates a subtree to the right.
+     *
+     * @param node The root of the subtree.
+     * @return The new root of the subtree.
+     */
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Rotates a subtree to the left.
+     *
+     * @param node The root of the subtree.
+     * @return The new root of the subtree.
+     */
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        pivot.update();
+        return pivot;
+    }
+
+    /**
+     * Collects the ordinals of the events whose span overlaps a range of days.
+     *
+     * @param node The root of the subtree to search.
+     * @param fromDay The first day of the range, as an epoch day.
+     * @param toDay The last day of the range, as an epoch day.
+     * @param found The list to add the ordinals to.
+     */
+    private static void collectOverlapping(Node node, long fromDay, long toDay, IntList found) {
+        if (node == null || node.maxEnd < fromDay) {
+            return;
+        }
+        collectOverlapping(node.left, fromDay, toDay, found);
+        if (node.start <= toDay) {
+            if (node.end >= fromDay) {
+                found.add(node.ordinal);
+            }
+            collectOverlapping(node.right, fromDay, toDay, found);
+        }
+    }
+
+    /**
+     * Checks if any event that has not been removed spans a day.
+     *
+     * @param node The root of the subtree to search.
+     * @param day The day, as an epoch day.
+     * @return True if such an event exists, false otherwise.
+     */
+    private boolean hasAliveSpanning(Node node, long day) {
+        if (node == null || node.maxEnd < day) {
+            return false;
+        }
+        if (node.start <= day && node.end >= day && ordinals.isAlive(node.ordinal)) {
+            return true;
+        }
+        return hasAliveSpanning(node.left, day) || (node.start <= day && hasAliveSpanning(node.right, day));
+    }
+
+    /**
+     * Returns the earliest start date after a day among the events that have not been removed.
+     *
+     * @param node The root of the subtree to search.
+     * @param day The day, as an epoch day.
+     * @return The start date as an epoch day, or null if there is none.
+     */
+    private Long firstAliveStartAfter(Node node, long day) {
+        if (node == null) {
+            return null;
+        }
+        if (node.start <= day) {
+            return firstAliveStartAfter(node.right, day);
+        }
+        Long fromLeft = firstAliveStartAfter(node.left, day);
+        if (fromLeft != null) {
+            return fromLeft;
+        }
+        if (ordinals.isAlive(node.ordinal)) {
+            return node.start;
+        }
+        return firstAliveStartAfter(node.right, day);
+    }
+
+    /**
+     * Checks if a list contains an ordinal that has not been removed.
+     *
+     * @param list The list of ordinals.
+     * @return True if an alive ordinal is in the list, false otherwise.
+     */
+    private boolean hasAlive(IntList list) {
+        for (int i = 0; i < list.size(); i++) {
+            if (ordinals.isAlive(list.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Purges removed ordinals from the map and tree and renumbers the remaining ones.
+     */
+    private void compact() {
+        int[] mapping = ordinals.compact();
+        deadlines.values().removeIf(list -> {
+            list.remap(mapping);
+            return list.size() == 0;
+        });
+
+        List<Node> alive = new ArrayList<>();
+        collectAlive(eventRoot, mapping, alive);
+        eventRoot = null;
+        for (Node node : alive) {
+            node.left = null;
+            node.right = null;
+            node.update();
+            eventRoot = insert(eventRoot, node);
+        }
+    }
+
+    /**
+     * Collects the nodes of events that have not been removed, renumbering their ordinals.
+     *
+     * @param node The root of the subtree.
+     * @param mapping The new ordinal of each old ordinal, or -1 for removed ordinals.
+     * @param alive The list to add the nodes to.
+     */
+    private static void collectAlive(Node node, int[] mapping, List<Node> alive) {
+        if (node == null) {
+            return;
+        }
+        collectAlive(node.left, mapping, alive);
+        if (mapping[node.ordinal] >= 0) {
+            node.ordinal = mapping[node.ordinal];
+            alive.add(node);
+        }
+        collectAlive(node.right, mapping, alive);
+    }
+}
@@ -0,0 +1,227 @@
+package reverie.index;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents a read-only file kept open on disk, used as an arena of strings.
+ * A <code>FileArena</code> reads strings with positional reads only when asked for, so they take no memory
+ * until then.
+ *
+ * <p>Strings are stored as a varint length followed by their UTF-8 bytes, as in the binary data file.</p>
+ *
+ * <p>The file is read through an open channel rather than mapped into memory. A save replaces the file
+ * by moving a new one over it, which the platform allows while a channel is open but not, on Windows,
+ * while a mapping is. The channel keeps reading the replaced file's data, so the offsets stay valid.
+ * If another program cuts the file short instead, a read fails with an exception rather than crashing
+ * the process as a mapping would.</p>
+ */
+public class FileArena {
+    private static final int WINDOW_SIZE = 1 << 16;
+    private static final int STRING_READ_SIZE = 128;
+
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE);
+    private long windowStart;
+
+    /**
+     * Constructs a FileArena over the specified open channel.
+     *
+     * @param channel The channel of the file, open for reading.
+     * @param size The size of the file.
+     */
+    private FileArena(FileChannel channel, long size) {
+        this.channel = channel;
+        this.size = size;
+        this.window.limit(0);
+    }
+
+    /**
+     * Opens a file for reading. The file stays open for as long as the program runs.
+     *
+     * @param path The file to open.
+     * @return The arena.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static FileArena open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new FileArena(channel, channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the file, for an arena that turned out not to be needed.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns the number of bytes in the file when it was opened.
+     *
+     * @return The size of the file.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the byte at an offset.
+     * Bytes are read through a window of the file, so reading them in order, as a load does, is quick.
+     *
+     * @param offset The offset in the file.
+     * @return The byte.
+     * @throws IndexOutOfBoundsException If the offset is past the end of the file.
+     * @throws UncheckedIOException If the file cannot be read.
+     */
+    public synchronized byte get(long offset) {
+        if (offset < windowStart || offset >= windowStart + window.limit()) {
+            if (offset < 0 || offset >= size) {
+                throw new IndexOutOfBoundsException("Offset past the end of the file");
+            }
+            window.clear();
+            fill(window, offset);
+            window.flip();
+            windowStart = offset;
+            if (window.limit() == 0) {
+                throw new UncheckedIOException(new IOException("The data file was cut short by another program"));
+            }
+        }
+        return window.get((int) (offset - windowStart));
+    }
+
+    /**
+     * Returns the big-endian long at an offset.
+     *
+     * @param offset The offset of the first byte in the file.
+     * @return The long.
+     */
+    public long getLong(long offset) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (get(offset + i) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the big-endian int at an offset.
+     *
+     * @param offset The offset of the first byte in the file.
+     * @return The int.
+     */
+    public int getInt(long offset) {
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            value = (value << 8) | (get(offset + i) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the offset just after the string stored at an offset, without decoding it.
+     *
+     * @param offset The offset of the string's length in the file.
+     * @return The offset after the string.
+     * @throws IllegalArgumentException If the string does not fit in the file.
+     */
+    public long skipString(long offset) {
+        long end = offset;
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            checkOffset(end);
+            b = get(end++);
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+
+        if (length < 0 || end + length > size) {
+            throw new IllegalArgumentException("Invalid string length");
+        }
+        return end + length;
+    }
+
+    /**
+     * Reads and decodes the string stored at an offset.
+     * It can be called from any thread, since it reads with its own buffer rather than the window.
+     *
+     * @param offset The offset of the string's length in the file.
+     * @return The string.
+     * @throws UncheckedIOException If the file cannot be read or has been cut short.
+     */
+    public String readString(long offset) {
+        // Most descriptions fit in one small read together with their length
+        ByteBuffer buffer = ByteBuffer.allocate(STRING_READ_SIZE);
+        fill(buffer, offset);
+        buffer.flip();
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (!buffer.hasRemaining()) {
+                throw new UncheckedIOException(new IOException("The data file was cut short by another program"));
+            }
+            b = buffer.get();
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        if (buffer.remaining() >= length) {
+            return new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        fill(bytes, offset + buffer.position());
+        if (bytes.hasRemaining()) {
+            throw new UncheckedIOException(new IOException("The data file was cut short by another program"));
+        }
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads from the file into a buffer until the buffer is full or the end of the file is reached.
+     *
+     * @param buffer The buffer to fill.
+     * @param offset The offset in the file to read from.
+     * @throws UncheckedIOException If the file cannot be read.
+     */
+    private void fill(ByteBuffer buffer, long offset) {
+        try {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks that an offset is inside the file.
+     *
+     * @param offset The offset to check.
+     * @throws IllegalArgumentException If the offset is past the end of the file.
+     */
+    private void checkOffset(long offset) {
+        if (offset >= size) {
+            throw new IllegalArgumentException("Offset past the end of the file");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package reverie.index;
+
+import java.util.Arrays;
+
+/**
+ * Represents a growable list of primitive ints, such as the posting list of an index.
+ * An <code>IntList</code> avoids boxing every entry, which matters for lists with millions of entries.
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructs an empty IntList.
+     */
+    public IntList() {
+        this.values = new int[4];
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value The value to append.
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Returns the value at the specified index.
+     *
+     * @param index The index of the value (0-based).
+     * @return The value at the index.
+     */
+    public int get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the last value of the list.
+     *
+     * @return The last value, or -1 if the list is empty.
+     */
+    public int last() {
+        return size == 0 ? -1 : values[size - 1];
+    }
+
+    /**
+     * Checks if the list contains a value, assuming the list is in increasing order.
+     *
+     * @param value The value to look for.
+     * @return True if the value is in the list, false otherwise.
+     */
+    public boolean containsSorted(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /**
+     * Returns the number of values in the list.
+     *
+     * @return The size of the list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes the list occupies, for memory reporting.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long memoryBytes() {
+        return 32L + 4L * values.length;
+    }
+
+    /**
+     * Replaces every value with its mapping and drops values that map to a negative number.
+     * The order of the remaining values is kept.
+     *
+     * @param mapping The new value for each old value, or a negative number to drop it.
+     */
+    public void remap(int[] mapping) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int mapped = mapping[values[i]];
+            if (mapped >= 0) {
+                values[kept++] = mapped;
+            }
+        }
+        size = kept;
+        if (values.length > 4 && size < values.length / 4) {
+            values = Arrays.copyOf(values, Math.max(4, size * 2));
+        }
+    }
+
+    /**
+     * Returns a copy of the values as an array.
+     *
+     * @return The values.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
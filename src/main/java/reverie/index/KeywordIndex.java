@@ -0,0 +1,308 @@
+package reverie.index;
+
+import reverie.task.Task;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Represents an inverted index from the words of each task's status line to the tasks containing them.
+ * A <code>KeywordIndex</code> is updated as tasks are added, deleted, marked and unmarked,
+ * and answers whole-word and prefix queries from its posting lists instead of scanning every task.
+ *
+ * <p>Postings hold stable ordinals rather than positions, so deleting a task only marks its ordinal
+ * as removed in an {@link OrdinalTree}; positions are worked out from the tree when results are returned.
+ * Removed ordinals are purged from the postings once they make up half of the index.</p>
+ *
+ * <p>The words of a status line such as <code>[D][X] return book (by: Dec 02 2019)</code> are its runs
+ * of letters and digits, lower-cased. The type letter and the done marker are kept per task instead of
+ * in postings, so that marking a task does not have to rewrite the posting list of <code>x</code>.</p>
+ */
+public class KeywordIndex {
+    private static final int STATUS_PREFIX_LENGTH = "[T][X] ".length();
+    private static final String DONE_WORD = "x";
+    private static final String TYPE_LETTERS = "tde";
+    private static final int MIN_COMPACTION_ORDINALS = 1024;
+
+    private final TreeMap<String, IntList> postings = new TreeMap<>();
+    private final OrdinalTree ordinals = new OrdinalTree();
+    private final BitSet done = new BitSet();
+    private char[] typeLetters = new char[16];
+
+    /**
+     * Constructs a KeywordIndex over the specified tasks, in list order.
+     *
+     * @param tasks The tasks to index.
+     */
+    public KeywordIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Indexes a task appended to the end of the list.
+     *
+     * @param task The task that was added.
+     */
+    public void add(Task task) {
+        int ordinal = ordinals.append();
+        String line = task.getLowerCaseFullStatus();
+        if (ordinal == typeLetters.length) {
+            typeLetters = Arrays.copyOf(typeLetters, ordinal * 2);
+        }
+        typeLetters[ordinal] = line.charAt(1);
+        done.set(ordinal, task.isDone());
+
+        int i = STATUS_PREFIX_LENGTH;
+        while (i < line.length()) {
+            if (!Character.isLetterOrDigit(line.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < line.length() && Character.isLetterOrDigit(line.charAt(i))) {
+                i++;
+            }
+            IntList list = postings.computeIfAbsent(line.substring(start, i), word -> new IntList());
+            if (list.last() != ordinal) {
+                list.add(ordinal);
+            }
+        }
+    }
+
+    /**
+     * Removes the task at the specified position from the index.
+     * Later tasks move up one position without any change to the postings.
+     *
+     * @param position The position of the deleted task (0-based).
+     */
+    public void delete(int position) {
+        int ordinal = ordinals.ordinalAt(position);
+        ordinals.remove(ordinal);
+        done.clear(ordinal);
+        int removed = ordinals.size() - ordinals.liveCount();
+        if (removed >= MIN_COMPACTION_ORDINALS && removed > ordinals.liveCount()) {
+            compact();
+        }
+    }
+
+    /**
+     * Records that the task at the specified position was marked or unmarked.
+     *
+     * @param position The position of the task (0-based).
+     * @param isDone True if the task is now done, false otherwise.
+     */
+    public void setDone(int position, boolean isDone) {
+        done.set(ordinals.ordinalAt(position), isDone);
+    }
+
+    /**
+     * Finds the tasks that contain every word of the query.
+     * In prefix mode, each query word only has to be the start of a word in the task.
+     *
+     * @param query The words to look for, separated by spaces or punctuation.
+     * @param isPrefix True to match word prefixes, false to match whole words.
+     * @return The positions of the matching tasks (0-based), in list order.
+     */
+    public ArrayList<Integer> find(String query, boolean isPrefix) {
+        ArrayList<Integer> positions = new ArrayList<>();
+        List<String> words = splitWords(query.toLowerCase());
+        if (words.isEmpty()) {
+            return positions;
+        }
+
+        // Walk the smallest match list and look its ordinals up in the others
+        List<IntList> matchLists = new ArrayList<>();
+        for (String word : words) {
+            matchLists.add(findWord(word, isPrefix));
+        }
+        matchLists.sort(Comparator.comparingInt(IntList::size));
+        IntList smallest = matchLists.get(0);
+        for (int i = 0; i < smallest.size(); i++) {
+            int ordinal = smallest.get(i);
+            if (ordinals.isAlive(ordinal) && isInAll(ordinal, matchLists)) {
+                positions.add(ordinals.positionOf(ordinal));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Estimates the number of tasks that contain every word of the query, without finding them.
+     * The estimate is the size of the smallest match list, which may include removed tasks.
+     *
+     * @param query The words to look for, separated by spaces or punctuation.
+     * @param isPrefix True to match word prefixes, false to match whole words.
+     * @return An upper bound on the number of matching tasks.
+     */
+    public int estimate(String query, boolean isPrefix) {
+        int estimate = ordinals.liveCount();
+        for (String word : splitWords(query.toLowerCase())) {
+            // The type letter and done marker match too many tasks to be worth counting
+            if (word.length() == 1 && (DONE_WORD.equals(word) || TYPE_LETTERS.contains(word))) {
+                continue;
+            }
+            long count = 0;
+            if (isPrefix) {
+                for (IntList list : postings.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                    count += list.size();
+                }
+            } else {
+                IntList list = postings.get(word);
+                count = list == null ? 0 : list.size();
+            }
+            estimate = (int) Math.min(estimate, count);
+        }
+        return estimate;
+    }
+
+    /**
+     * Checks if an ordinal is in every match list after the first.
+     *
+     * @param ordinal The ordinal to look up.
+     * @param matchLists The match lists, each in increasing order.
+     * @return True if every list contains the ordinal, false otherwise.
+     */
+    private static boolean isInAll(int ordinal, List<IntList> matchLists) {
+        for (int i = 1; i < matchLists.size(); i++) {
+            if (!matchLists.get(i).containsSorted(ordinal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of distinct words in the index.
+     *
+     * @return The number of words.
+     */
+    public int wordCount() {
+        return postings.size();
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the index, for memory reporting.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long memoryBytes() {
+        long bytes = ordinals.memoryBytes() + done.size() / 8 + 2L * typeLetters.length;
+        for (Map.Entry<String, IntList> entry : postings.entrySet()) {
+            bytes += 40 + 2L * entry.getKey().length() + entry.getValue().memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Finds the ordinals of the tasks that contain a single word.
+     * A whole word that is not also the type letter or done marker is answered by its posting list as is.
+     *
+     * @param word The lower-cased query word.
+     * @param isPrefix True to match word prefixes, false to match whole words.
+     * @return The matching ordinals in increasing order, possibly including removed ones.
+     *     The list must not be modified.
+     */
+    private IntList findWord(String word, boolean isPrefix) {
+        boolean isStatusWord = isPrefix ? DONE_WORD.startsWith(word) : DONE_WORD.equals(word);
+        List<Character> types = new ArrayList<>();
+        for (char type : TYPE_LETTERS.toCharArray()) {
+            String typeWord = String.valueOf(type);
+            if (isPrefix ? typeWord.startsWith(word) : typeWord.equals(word)) {
+                types.add(type);
+            }
+        }
+
+        Collection<IntList> lists;
+        if (isPrefix) {
+            lists = postings.subMap(word, true, word + Character.MAX_VALUE, false).values();
+        } else {
+            IntList list = postings.get(word);
+            lists = list == null ? List.of() : List.of(list);
+        }
+        if (lists.size() == 1 && !isStatusWord && types.isEmpty()) {
+            return lists.iterator().next();
+        }
+
+        IntList matches = new IntList();
+        for (IntList list : lists) {
+            for (int i = 0; i < list.size(); i++) {
+                matches.add(list.get(i));
+            }
+        }
+        // The type letter and done marker are words of the status line too
+        if (isStatusWord) {
+            for (int ordinal = done.nextSetBit(0); ordinal >= 0; ordinal = done.nextSetBit(ordinal + 1)) {
+                matches.add(ordinal);
+            }
+        }
+        for (int ordinal = 0; !types.isEmpty() && ordinal < ordinals.size(); ordinal++) {
+            if (types.contains(typeLetters[ordinal])) {
+                matches.add(ordinal);
+            }
+        }
+
+        // Merge the sources into one increasing list without duplicates
+        int[] merged = matches.toArray();
+        Arrays.sort(merged);
+        IntList result = new IntList();
+        for (int ordinal : merged) {
+            if (result.last() != ordinal) {
+                result.add(ordinal);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Splits text into its runs of letters and digits.
+     *
+     * @param text The text to split.
+     * @return The words of the text.
+     */
+    private static List<String> splitWords(String text) {
+        List<String> words = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            words.add(text.substring(start, i));
+        }
+        return words;
+    }
+
+    /**
+     * Purges removed ordinals from the postings and renumbers the remaining ones.
+     */
+    private void compact() {
+        int[] mapping = ordinals.compact();
+        char[] newTypeLetters = new char[Math.max(16, ordinals.size())];
+        BitSet newDone = new BitSet(ordinals.size());
+        for (int ordinal = 0; ordinal < mapping.length; ordinal++) {
+            if (mapping[ordinal] >= 0) {
+                newTypeLetters[mapping[ordinal]] = typeLetters[ordinal];
+                newDone.set(mapping[ordinal], done.get(ordinal));
+            }
+        }
+        typeLetters = newTypeLetters;
+        done.clear();
+        done.or(newDone);
+
+        postings.values().removeIf(list -> {
+            list.remap(mapping);
+            return list.size() == 0;
+        });
+    }
+}
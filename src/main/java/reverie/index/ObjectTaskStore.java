@@ -0,0 +1,121 @@
+package reverie.index;
+
+import reverie.task.Deadline;
+import reverie.task.Event;
+import reverie.task.Task;
+import java.util.Arrays;
+
+/**
+ * Represents a task store that keeps each task as the object it was added as.
+ * An <code>ObjectTaskStore</code> is the default store: tasks are returned as is,
+ * so the status lines they cache stay cached between commands.
+ */
+class ObjectTaskStore extends TaskStore {
+    private final Task[] slots;
+
+    /**
+     * Constructs an ObjectTaskStore with the specified capacity.
+     *
+     * @param capacity The number of slots.
+     */
+    ObjectTaskStore(int capacity) {
+        this.slots = new Task[capacity];
+    }
+
+    /**
+     * Constructs an ObjectTaskStore over the specified slots.
+     *
+     * @param slots The slots, which the store takes over.
+     */
+    private ObjectTaskStore(Task[] slots) {
+        this.slots = slots;
+    }
+
+    @Override
+    TaskStore set(int ordinal, Task task) {
+        if (ordinal >= slots.length) {
+            Task[] grown = Arrays.copyOf(slots, Math.max(ordinal + 1, slots.length * 2));
+            return new ObjectTaskStore(grown).set(ordinal, task);
+        }
+        slots[ordinal] = task;
+        return this;
+    }
+
+    @Override
+    Task get(int ordinal) {
+        return slots[ordinal];
+    }
+
+    @Override
+    void setDone(int ordinal, boolean isDone) {
+        if (isDone) {
+            slots[ordinal].markAsDone();
+        } else {
+            slots[ordinal].markAsUndone();
+        }
+    }
+
+    @Override
+    TaskStore compact(int[] mapping, int liveCount) {
+        Task[] newSlots = new Task[Math.max(16, liveCount * 2)];
+        for (int ordinal = 0; ordinal < mapping.length; ordinal++) {
+            if (mapping[ordinal] >= 0) {
+                newSlots[mapping[ordinal]] = slots[ordinal];
+            }
+        }
+        return new ObjectTaskStore(newSlots);
+    }
+
+    @Override
+    long memoryBytes(int ordinalCount) {
+        long bytes = 16 + 4L * slots.length;
+        for (int ordinal = 0; ordinal < ordinalCount; ordinal++) {
+            bytes += estimateBytes(slots[ordinal]);
+        }
+        return bytes;
+    }
+
+    @Override
+    String getName() {
+        return "object";
+    }
+
+    /**
+     * Estimates the heap size of a task and the objects it holds, assuming compressed references.
+     * Status lines the task may have cached are not counted.
+     *
+     * @param task The task.
+     * @return The approximate size in bytes.
+     */
+    private static long estimateBytes(Task task) {
+        // Header and the fields every task has
+        long bytes = 40 + stringBytes(task.getDescription());
+        if (task instanceof Deadline deadline) {
+            bytes += 16 + stringBytes(deadline.getByString()) + dateTimeBytes(deadline.getByDateTime() != null);
+        } else if (task instanceof Event event) {
+            bytes += 24 + stringBytes(event.getFromString()) + stringBytes(event.getToString())
+                    + dateTimeBytes(event.getFromDateTime() != null) + dateTimeBytes(event.getToDateTime() != null);
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the heap size of a string of Latin-1 characters.
+     *
+     * @param value The string, or null.
+     * @return The approximate size in bytes.
+     */
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + ((16 + value.length() + 7) & ~7);
+    }
+
+    /**
+     * Estimates the heap size of a LocalDateTime with its LocalDate and LocalTime.
+     *
+     * @param isPresent Whether the date-time exists.
+     * @return The approximate size in bytes.
+     */
+    private static long dateTimeBytes(boolean isPresent) {
+        return isPresent ? 72 : 0;
+    }
+}
@@ -0,0 +1,188 @@
+package reverie.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Represents the mapping between the stable ordinals of tasks and their current positions in the list.
+ * An <code>OrdinalTree</code> hands out increasing ordinals as tasks are appended and keeps a Fenwick tree
+ * of which ordinals are still alive, so that the position of an ordinal and the ordinal at a position
+ * are both found in O(log n) time, and a deletion renumbers every later task without touching them.
+ */
+public class OrdinalTree {
+    private int[] tree;
+    private final BitSet alive = new BitSet();
+    private int size;
+    private int liveCount;
+
+    /**
+     * Constructs an empty OrdinalTree.
+     */
+    public OrdinalTree() {
+        this.tree = new int[16];
+    }
+
+    /**
+     * Appends a new alive ordinal at the end of the list.
+     *
+     * @return The new ordinal.
+     */
+    public int append() {
+        int ordinal = size++;
+        if (size >= tree.length) {
+            grow();
+        }
+        alive.set(ordinal);
+        liveCount++;
+        update(ordinal, 1);
+        return ordinal;
+    }
+
+    /**
+     * Removes an ordinal, moving every later ordinal up by one position.
+     *
+     * @param ordinal The ordinal to remove.
+     */
+    public void remove(int ordinal) {
+        if (alive.get(ordinal)) {
+            alive.clear(ordinal);
+            liveCount--;
+            update(ordinal, -1);
+        }
+    }
+
+    /**
+     * Checks if an ordinal has not been removed.
+     *
+     * @param ordinal The ordinal to check.
+     * @return True if the ordinal is alive, false otherwise.
+     */
+    public boolean isAlive(int ordinal) {
+        return alive.get(ordinal);
+    }
+
+    /**
+     * Returns the current position of an alive ordinal.
+     *
+     * @param ordinal The ordinal.
+     * @return The position (0-based), which is the number of alive ordinals before it.
+     */
+    public int positionOf(int ordinal) {
+        int count = 0;
+        for (int i = ordinal; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the ordinal at a position.
+     *
+     * @param position The position (0-based), which must be less than the number of alive ordinals.
+     * @return The ordinal at the position.
+     */
+    public int ordinalAt(int position) {
+        int index = 0;
+        int remaining = position + 1;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next < tree.length && tree[next] < remaining) {
+                index = next;
+                remaining -= tree[next];
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of ordinals handed out so far, including removed ones.
+     *
+     * @return The number of ordinals.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of alive ordinals.
+     *
+     * @return The number of alive ordinals.
+     */
+    public int liveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Returns the set of alive ordinals. The set must not be modified.
+     *
+     * @return The alive ordinals.
+     */
+    public BitSet aliveOrdinals() {
+        return alive;
+    }
+
+    /**
+     * Renumbers the alive ordinals to 0, 1, 2, ... in order, forgetting removed ones.
+     *
+     * @return The new ordinal of each old ordinal, or -1 for removed ordinals.
+     */
+    public int[] compact() {
+        int[] mapping = new int[size];
+        int next = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            mapping[ordinal] = alive.get(ordinal) ? next++ : -1;
+        }
+        alive.clear();
+        alive.set(0, next);
+        size = next;
+        liveCount = next;
+        tree = new int[Math.max(16, Integer.highestOneBit(Math.max(1, size)) << 1)];
+        rebuild();
+        return mapping;
+    }
+
+    /**
+     * Returns the number of bytes the tree occupies, for memory reporting.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long memoryBytes() {
+        return 4L * tree.length + alive.size() / 8;
+    }
+
+    /**
+     * Adds a delta to the count of an ordinal.
+     *
+     * @param ordinal The ordinal.
+     * @param delta The change in count.
+     */
+    private void update(int ordinal, int delta) {
+        for (int i = ordinal + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Doubles the capacity of the tree.
+     */
+    private void grow() {
+        tree = new int[tree.length * 2];
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the tree from the alive ordinals in linear time.
+     */
+    private void rebuild() {
+        Arrays.fill(tree, 0);
+        for (int ordinal = alive.nextSetBit(0); ordinal >= 0; ordinal = alive.nextSetBit(ordinal + 1)) {
+            tree[ordinal + 1]++;
+        }
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
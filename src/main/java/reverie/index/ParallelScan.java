@@ -0,0 +1,112 @@
+package reverie.index;
+
+import reverie.task.Task;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Represents a scan of every task in a {@link TaskSequence} for the tasks matching a condition,
+ * for searches that no index can answer.
+ * A <code>ParallelScan</code> splits lists at or above a size threshold into ranges of positions
+ * that are checked on the common {@link ForkJoinPool}, and joins the matches of each range in order,
+ * so the result is in ascending order just as a sequential scan's would be.
+ *
+ * <p>No task may be added or deleted while the sequence is being scanned; {@link reverie.ui.TaskList} holds
+ * its read lock for the whole scan. Tasks may still be marked, and reading a task from any of the stores
+ * does not change the store.</p>
+ */
+// Fork/join tasks are only ever run in memory, never serialized
+@SuppressWarnings("serial")
+public class ParallelScan extends RecursiveTask<IntList> {
+    /** The threshold that turns parallel scanning off. */
+    public static final int SEQUENTIAL = Integer.MAX_VALUE;
+
+    private static final int MIN_RANGE_SIZE = 16_384;
+
+    private final TaskSequence tasks;
+    private final Matcher matcher;
+    private final int from;
+    private final int to;
+    private final int rangeSize;
+
+    /**
+     * Represents a condition on a task, which may also depend on the task's position.
+     * The condition is checked from several threads at once, so it must not change any shared state.
+     */
+    @FunctionalInterface
+    public interface Matcher {
+        /**
+         * Checks if a task matches the condition.
+         *
+         * @param task The task.
+         * @param position The position of the task (0-based).
+         * @return True if the task matches, false otherwise.
+         */
+        boolean matches(Task task, int position);
+    }
+
+    /**
+     * Constructs a ParallelScan of a range of positions.
+     *
+     * @param tasks The tasks to scan.
+     * @param matcher The condition to check.
+     * @param from The first position of the range.
+     * @param to The position after the last position of the range.
+     * @param rangeSize The largest range to scan without splitting it further.
+     */
+    private ParallelScan(TaskSequence tasks, Matcher matcher, int from, int to, int rangeSize) {
+        this.tasks = tasks;
+        this.matcher = matcher;
+        this.from = from;
+        this.to = to;
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Finds the positions of the tasks matching a condition, scanning in parallel if the list is large enough.
+     *
+     * @param tasks The tasks to scan.
+     * @param matcher The condition to check.
+     * @param threshold The smallest number of tasks to scan in parallel, or {@link #SEQUENTIAL}.
+     * @return The positions of the matching tasks (0-based), in ascending order.
+     */
+    public static ArrayList<Integer> find(TaskSequence tasks, Matcher matcher, int threshold) {
+        int size = tasks.size();
+        IntList matches;
+        if (size < threshold || Runtime.getRuntime().availableProcessors() < 2) {
+            matches = tasks.scan(0, size, matcher);
+        } else {
+            // A few ranges per thread, so threads that finish early can steal the rest
+            int rangeSize = Math.max(MIN_RANGE_SIZE, size / (ForkJoinPool.getCommonPoolParallelism() * 4));
+            matches = ForkJoinPool.commonPool().invoke(new ParallelScan(tasks, matcher, 0, size, rangeSize));
+        }
+
+        ArrayList<Integer> positions = new ArrayList<>(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            positions.add(matches.get(i));
+        }
+        return positions;
+    }
+
+    /**
+     * Scans the range, splitting it in two and scanning the halves in parallel if it is too large.
+     *
+     * @return The matching positions of the range, in ascending order.
+     */
+    @Override
+    protected IntList compute() {
+        if (to - from <= rangeSize) {
+            return tasks.scan(from, to, matcher);
+        }
+        int middle = (from + to) >>> 1;
+        ParallelScan right = new ParallelScan(tasks, matcher, middle, to, rangeSize);
+        right.fork();
+        IntList matches = new ParallelScan(tasks, matcher, from, middle, rangeSize).compute();
+        IntList rightMatches = right.join();
+        for (int i = 0; i < rightMatches.size(); i++) {
+            matches.add(rightMatches.get(i));
+        }
+        return matches;
+    }
+}
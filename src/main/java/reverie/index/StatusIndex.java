@@ -0,0 +1,208 @@
+package reverie.index;
+
+import reverie.task.Deadline;
+import reverie.task.Event;
+import reverie.task.Task;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents an index of the type and done state of every task, kept as compressed bitmaps of ordinals.
+ * A <code>StatusIndex</code> holds one {@link RoaringBitmap} per task type and one each for done and
+ * not-done tasks, so a filter such as "deadlines that are not done" is answered by combining bitmaps
+ * without reading any task.
+ *
+ * <p>Unlike the other indexes, a deleted task is also taken out of the bitmaps straight away, so the
+ * bitmaps only ever hold live ordinals. The {@link OrdinalTree} is still compacted once removed tasks
+ * make up half of it, to keep the ordinals small.</p>
+ */
+public class StatusIndex {
+    /** The type letter of todos, as shown in status lines. */
+    public static final char TODO = 'T';
+    /** The type letter of deadlines, as shown in status lines. */
+    public static final char DEADLINE = 'D';
+    /** The type letter of events, as shown in status lines. */
+    public static final char EVENT = 'E';
+
+    private static final int MIN_COMPACTION_ORDINALS = 1024;
+
+    private final OrdinalTree ordinals = new OrdinalTree();
+    private RoaringBitmap todos = new RoaringBitmap();
+    private RoaringBitmap deadlines = new RoaringBitmap();
+    private RoaringBitmap events = new RoaringBitmap();
+    private RoaringBitmap done = new RoaringBitmap();
+    private RoaringBitmap notDone = new RoaringBitmap();
+
+    /**
+     * Constructs a StatusIndex over the specified tasks, in list order.
+     *
+     * @param tasks The tasks to index.
+     */
+    public StatusIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Indexes a task appended to the end of the list.
+     *
+     * @param task The task that was added.
+     */
+    public void add(Task task) {
+        int ordinal = ordinals.append();
+        typeBitmap(task).add(ordinal);
+        (task.isDone() ? done : notDone).add(ordinal);
+    }
+
+    /**
+     * Removes the task at the specified position from the index.
+     *
+     * @param position The position of the deleted task (0-based).
+     */
+    public void delete(int position) {
+        int ordinal = ordinals.ordinalAt(position);
+        ordinals.remove(ordinal);
+        todos.remove(ordinal);
+        deadlines.remove(ordinal);
+        events.remove(ordinal);
+        done.remove(ordinal);
+        notDone.remove(ordinal);
+
+        int removed = ordinals.size() - ordinals.liveCount();
+        if (removed >= MIN_COMPACTION_ORDINALS && removed > ordinals.liveCount()) {
+            compact();
+        }
+    }
+
+    /**
+     * Records that the task at the specified position was marked or unmarked.
+     *
+     * @param position The position of the task (0-based).
+     * @param isDone True if the task is now done, false otherwise.
+     */
+    public void setDone(int position, boolean isDone) {
+        int ordinal = ordinals.ordinalAt(position);
+        (isDone ? done : notDone).add(ordinal);
+        (isDone ? notDone : done).remove(ordinal);
+    }
+
+    /**
+     * Finds the tasks of any of the specified types that have the specified done state.
+     * The type bitmaps are combined with OR and the result with the done bitmap with AND.
+     *
+     * @param types The type letters to match, such as <code>DE</code>, or an empty string to match any type.
+     * @param isDone True to match done tasks, false to match tasks that are not done, or null to match both.
+     * @return The positions of the matching tasks (0-based), in list order.
+     */
+    public ArrayList<Integer> filter(String types, Boolean isDone) {
+        RoaringBitmap matches = match(types, isDone);
+        ArrayList<Integer> positions = new ArrayList<>();
+        if (matches == null) {
+            for (int i = 0; i < ordinals.liveCount(); i++) {
+                positions.add(i);
+            }
+            return positions;
+        }
+        matches.forEach(ordinal -> positions.add(ordinals.positionOf(ordinal)));
+        return positions;
+    }
+
+    /**
+     * Counts the tasks of any of the specified types that have the specified done state, without finding them.
+     *
+     * @param types The type letters to match, or an empty string to match any type.
+     * @param isDone True to count done tasks, false to count tasks that are not done, or null to count both.
+     * @return The number of matching tasks.
+     */
+    public long count(String types, Boolean isDone) {
+        RoaringBitmap matches = match(types, isDone);
+        return matches == null ? ordinals.liveCount() : matches.cardinality();
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the index, for memory reporting.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long memoryBytes() {
+        return ordinals.memoryBytes() + todos.memoryBytes() + deadlines.memoryBytes() + events.memoryBytes()
+                + done.memoryBytes() + notDone.memoryBytes();
+    }
+
+    /**
+     * Combines the bitmaps of the specified types and done state.
+     *
+     * @param types The type letters to match, or an empty string to match any type.
+     * @param isDone The done state to match, or null to match both.
+     * @return The bitmap of matching ordinals, which must not be modified, or null if nothing is filtered.
+     */
+    private RoaringBitmap match(String types, Boolean isDone) {
+        RoaringBitmap matches = null;
+        for (char type : types.toCharArray()) {
+            RoaringBitmap bitmap = typeBitmap(type);
+            matches = matches == null ? bitmap : matches.or(bitmap);
+        }
+        if (isDone != null) {
+            RoaringBitmap bitmap = isDone ? done : notDone;
+            matches = matches == null ? bitmap : matches.and(bitmap);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the bitmap of the specified task's type.
+     *
+     * @param task The task.
+     * @return The type bitmap.
+     */
+    private RoaringBitmap typeBitmap(Task task) {
+        if (task instanceof Deadline) {
+            return deadlines;
+        } else if (task instanceof Event) {
+            return events;
+        }
+        return todos;
+    }
+
+    /**
+     * Returns the bitmap of the specified type letter.
+     *
+     * @param type The type letter.
+     * @return The type bitmap.
+     * @throws IllegalArgumentException If the letter is not a task type.
+     */
+    private RoaringBitmap typeBitmap(char type) {
+        return switch (type) {
+            case TODO -> todos;
+            case DEADLINE -> deadlines;
+            case EVENT -> events;
+            default -> throw new IllegalArgumentException("Unknown task type: " + type);
+        };
+    }
+
+    /**
+     * Renumbers the ordinals in every bitmap once removed tasks have been purged from the tree.
+     */
+    private void compact() {
+        int[] mapping = ordinals.compact();
+        todos = remap(todos, mapping);
+        deadlines = remap(deadlines, mapping);
+        events = remap(events, mapping);
+        done = remap(done, mapping);
+        notDone = remap(notDone, mapping);
+    }
+
+    /**
+     * Creates a bitmap of the new ordinals of the ordinals in a bitmap.
+     *
+     * @param bitmap The bitmap, which only holds ordinals that were not removed.
+     * @param mapping The new ordinal of each old ordinal.
+     * @return The renumbered bitmap.
+     */
+    private static RoaringBitmap remap(RoaringBitmap bitmap, int[] mapping) {
+        RoaringBitmap remapped = new RoaringBitmap();
+        bitmap.forEach(ordinal -> remapped.add(mapping[ordinal]));
+        return remapped;
+    }
+}
@@ -0,0 +1,397 @@
+package reverie.index;
+
+import reverie.task.Task;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents the ordered list of tasks, with O(log n) access and deletion by position.
+ * A <code>TaskSequence</code> stores each task in the slot of its ordinal and uses an {@link OrdinalTree}
+ * to map positions to ordinals, so deleting a task empties its slot instead of shifting every later task.
+ * Empty slots are squeezed out once they make up half of the sequence.
+ * The slots are kept either as task objects or, for very large lists, as columns of primitive arrays.
+ *
+ * <p>Every task added is also given an internal ID that, unlike its ordinal, never changes.
+ * IDs increase in the order tasks are added, so the ordinal of an ID is found by binary search.</p>
+ *
+ * <p>A deleted slot keeps its task and is stamped with the version of the deletion instead,
+ * so that a {@link TaskSnapshot} taken earlier can still see it. Slots are only ever appended or
+ * stamped in place, and growth and compaction move the tasks into a new store, so taking a snapshot
+ * copies nothing.</p>
+ */
+public class TaskSequence extends AbstractList<Task> {
+    private static final int MIN_COMPACTION_ORDINALS = 1024;
+
+    private final OrdinalTree ordinals = new OrdinalTree();
+    private TaskStore store;
+    private long[] ids;
+    private int[] deletedAt;
+    private long nextId;
+    private int version;
+
+    /**
+     * Constructs an empty TaskSequence that keeps tasks as objects.
+     */
+    public TaskSequence() {
+        this(List.of(), false);
+    }
+
+    /**
+     * Constructs a TaskSequence holding the specified tasks, in list order.
+     *
+     * @param tasks The tasks to hold.
+     * @param isColumnar True to keep the tasks as columns and create task objects only when they are read,
+     *     false to keep the task objects themselves.
+     */
+    public TaskSequence(List<Task> tasks, boolean isColumnar) {
+        this(isColumnar ? new ColumnarTaskStore(Math.max(16, tasks.size()))
+                : new ObjectTaskStore(Math.max(16, tasks.size())), Math.max(16, tasks.size()));
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Constructs an empty TaskSequence over the specified store.
+     *
+     * @param store The empty store to keep the tasks in.
+     * @param capacity The number of tasks to make room for.
+     */
+    private TaskSequence(TaskStore store, int capacity) {
+        this.store = store;
+        this.ids = new long[capacity];
+        this.deletedAt = newDeletedAt(capacity);
+    }
+
+    /**
+     * Constructs an empty TaskSequence in the columnar layout that is to be filled lazily from a binary data file
+     * with {@link #addFromFile(int, long, long, long)}.
+     *
+     * @param file The open data file.
+     * @param capacity The number of tasks in the file.
+     * @return The empty sequence.
+     */
+    public static TaskSequence lazy(FileArena file, int capacity) {
+        int slots = Math.max(16, capacity);
+        return new TaskSequence(new ColumnarTaskStore(slots, file), slots);
+    }
+
+    /**
+     * Appends a task read from the data file, keeping its strings in the file, and gives it a new ID.
+     *
+     * @param tag The tag byte of the task's record in the binary data file.
+     * @param descriptionOffset The file offset of the description.
+     * @param first The first date as an epoch minute, or the file offset of its text.
+     * @param second The second date as an epoch minute, or the file offset of its text.
+     * @throws IllegalStateException If the sequence was not created by {@link #lazy(FileArena, int)}.
+     */
+    public void addFromFile(int tag, long descriptionOffset, long first, long second) {
+        if (!(store instanceof ColumnarTaskStore columnar)) {
+            throw new IllegalStateException("The sequence is not backed by a data file");
+        }
+        int ordinal = appendOrdinal();
+        store = columnar.setFromFile(ordinal, tag, descriptionOffset, first, second);
+        ids[ordinal] = nextId++;
+        modCount++;
+    }
+
+    /**
+     * Appends a task to the end of the sequence and gives it a new ID.
+     *
+     * @param task The task to append.
+     * @return Always true.
+     */
+    @Override
+    public boolean add(Task task) {
+        int ordinal = appendOrdinal();
+        store = store.set(ordinal, task);
+        ids[ordinal] = nextId;
+        task.setId(nextId++);
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Returns the task at a position.
+     *
+     * @param position The position (0-based).
+     * @return The task at the position.
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    @Override
+    public Task get(int position) {
+        checkPosition(position);
+        return read(ordinals.ordinalAt(position));
+    }
+
+    /**
+     * Replaces the task at a position, keeping its ID.
+     * The slot is overwritten in place, so snapshots taken earlier may see the new task.
+     *
+     * @param position The position (0-based).
+     * @param task The new task.
+     * @return The task that was replaced.
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    @Override
+    public Task set(int position, Task task) {
+        checkPosition(position);
+        int ordinal = ordinals.ordinalAt(position);
+        Task replaced = read(ordinal);
+        store = store.set(ordinal, task);
+        task.setId(ids[ordinal]);
+        return replaced;
+    }
+
+    /**
+     * Marks or unmarks the task at a position as done.
+     *
+     * @param position The position (0-based).
+     * @param isDone True to mark the task as done, false to mark it as not done.
+     * @return The changed task.
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    public Task setDone(int position, boolean isDone) {
+        checkPosition(position);
+        int ordinal = ordinals.ordinalAt(position);
+        store.setDone(ordinal, isDone);
+        return read(ordinal);
+    }
+
+    /**
+     * Removes the task at a position, moving every later task up by one position.
+     *
+     * @param position The position (0-based).
+     * @return The removed task.
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    @Override
+    public Task remove(int position) {
+        checkPosition(position);
+        int ordinal = ordinals.ordinalAt(position);
+        Task task = read(ordinal);
+        deletedAt[ordinal] = ++version;
+        ordinals.remove(ordinal);
+        modCount++;
+
+        int removed = ordinals.size() - ordinals.liveCount();
+        if (removed >= MIN_COMPACTION_ORDINALS && removed > ordinals.liveCount()) {
+            compact();
+        }
+        return task;
+    }
+
+    /**
+     * Returns the number of tasks in the sequence.
+     *
+     * @return The number of tasks.
+     */
+    @Override
+    public int size() {
+        return ordinals.liveCount();
+    }
+
+    /**
+     * Returns an iterator over the tasks in list order that walks the slots directly.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        BitSet alive = ordinals.aliveOrdinals();
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private int next = alive.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Task next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                Task task = read(next);
+                next = alive.nextSetBit(next + 1);
+                return task;
+            }
+        };
+    }
+
+    /**
+     * Finds the positions in a range whose tasks match a condition, walking the slots directly.
+     * Only reads the sequence, so several ranges can be scanned at once while nothing changes it.
+     *
+     * @param from The first position of the range.
+     * @param to The position after the last position of the range.
+     * @param matcher The condition to check.
+     * @return The matching positions, in ascending order.
+     */
+    public IntList scan(int from, int to, ParallelScan.Matcher matcher) {
+        IntList matches = new IntList();
+        if (from >= to) {
+            return matches;
+        }
+        BitSet alive = ordinals.aliveOrdinals();
+        int ordinal = ordinals.ordinalAt(from);
+        for (int position = from; position < to; position++) {
+            if (matcher.matches(read(ordinal), position)) {
+                matches.add(position);
+            }
+            ordinal = alive.nextSetBit(ordinal + 1);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the tasks in a range of positions, walking the slots directly
+     * instead of looking up each position on its own.
+     *
+     * @param from The first position of the range.
+     * @param to The position after the last position of the range.
+     * @return The tasks of the range, in list order.
+     * @throws IndexOutOfBoundsException If the range is out of bounds.
+     */
+    public List<Task> getRange(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Range " + from + ".." + to + " out of bounds for size " + size());
+        }
+        List<Task> range = new ArrayList<>(to - from);
+        if (from == to) {
+            return range;
+        }
+        BitSet alive = ordinals.aliveOrdinals();
+        int ordinal = ordinals.ordinalAt(from);
+        for (int position = from; position < to; position++) {
+            range.add(read(ordinal));
+            ordinal = alive.nextSetBit(ordinal + 1);
+        }
+        return range;
+    }
+
+    /**
+     * Returns a read-only view of the tasks as they are now, which later changes to the sequence do not affect.
+     * The snapshot shares the arrays of the sequence, so it takes O(1) time and memory.
+     *
+     * @return The snapshot.
+     */
+    public TaskSnapshot snapshot() {
+        return new TaskSnapshot(store, deletedAt, ordinals.size(), version, ordinals.liveCount());
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the tasks and the sequence, for memory reporting.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long memoryBytes() {
+        return store.memoryBytes(ordinals.size()) + ordinals.memoryBytes() + 12L * ids.length;
+    }
+
+    /**
+     * Returns the name of the layout the tasks are kept in, for statistics.
+     *
+     * @return <code>object</code> or <code>columnar</code>.
+     */
+    public String getStoreName() {
+        return store.getName();
+    }
+
+    /**
+     * Returns the current position of the task with the specified ID.
+     *
+     * @param id The ID of the task.
+     * @return The position (0-based), or -1 if no task in the sequence has the ID.
+     */
+    public int positionOfId(long id) {
+        int ordinal = Arrays.binarySearch(ids, 0, ordinals.size(), id);
+        if (ordinal < 0 || !ordinals.isAlive(ordinal)) {
+            return -1;
+        }
+        return ordinals.positionOf(ordinal);
+    }
+
+    /**
+     * Hands out the ordinal of a new task, making room for its ID and deletion version.
+     *
+     * @return The new ordinal.
+     */
+    private int appendOrdinal() {
+        int ordinal = ordinals.append();
+        if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ordinal * 2);
+            int[] grown = newDeletedAt(ordinal * 2);
+            System.arraycopy(deletedAt, 0, grown, 0, ordinal);
+            deletedAt = grown;
+        }
+        return ordinal;
+    }
+
+    /**
+     * Returns the task in a slot, with its ID.
+     *
+     * @param ordinal The ordinal of the slot.
+     * @return The task.
+     */
+    private Task read(int ordinal) {
+        Task task = store.get(ordinal);
+        task.setId(ids[ordinal]);
+        return task;
+    }
+
+    /**
+     * Checks that a position refers to a task in the sequence.
+     *
+     * @param position The position (0-based).
+     * @throws IndexOutOfBoundsException If the position is out of range.
+     */
+    private void checkPosition(int position) {
+        if (position < 0 || position >= ordinals.liveCount()) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of range for size "
+                    + ordinals.liveCount());
+        }
+    }
+
+    /**
+     * Squeezes the deleted slots out and renumbers the remaining tasks.
+     * The tasks are moved into new arrays, leaving the old ones to any snapshot still reading them.
+     */
+    private void compact() {
+        int[] mapping = ordinals.compact();
+        int capacity = Math.max(16, ordinals.size() * 2);
+        long[] newIds = new long[capacity];
+        for (int ordinal = 0; ordinal < mapping.length; ordinal++) {
+            if (mapping[ordinal] >= 0) {
+                newIds[mapping[ordinal]] = ids[ordinal];
+            }
+        }
+        store = store.compact(mapping, ordinals.size());
+        ids = newIds;
+        // Snapshots keep the old array, so the new one can count deletions from zero again
+        deletedAt = newDeletedAt(capacity);
+        version = 0;
+    }
+
+    /**
+     * Creates an array of deletion versions in which no slot has been deleted.
+     *
+     * @param capacity The length of the array.
+     * @return The new array.
+     */
+    private static int[] newDeletedAt(int capacity) {
+        int[] array = new int[capacity];
+        Arrays.fill(array, TaskSnapshot.NOT_DELETED);
+        return array;
+    }
+}
@@ -0,0 +1,93 @@
+package reverie.index;
+
+import reverie.task.Task;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Represents a read-only view of a {@link TaskSequence} as it was at one moment.
+ * A <code>TaskSnapshot</code> reads the store and arrays of the sequence directly instead of copying them.
+ * It covers the slots that existed when it was taken, and treats a slot as present unless it was
+ * deleted at or before the version the snapshot was taken at, so later changes are invisible to it.
+ *
+ * <p>The tasks themselves are shared, so marking a task after the snapshot was taken may show up in it,
+ * as it would in a copied list.</p>
+ */
+public final class TaskSnapshot extends AbstractCollection<Task> {
+    /** The deletion version of a slot that has not been deleted. */
+    static final int NOT_DELETED = Integer.MAX_VALUE;
+
+    private final TaskStore store;
+    private final int[] deletedAt;
+    private final int ordinalCount;
+    private final int version;
+    private final int size;
+
+    /**
+     * Constructs a TaskSnapshot over the specified arrays of a sequence.
+     *
+     * @param store The tasks of the sequence by ordinal.
+     * @param deletedAt The version each slot was deleted at, or {@link #NOT_DELETED}.
+     * @param ordinalCount The number of slots in use when the snapshot was taken.
+     * @param version The deletion version of the sequence when the snapshot was taken.
+     * @param size The number of tasks when the snapshot was taken.
+     */
+    TaskSnapshot(TaskStore store, int[] deletedAt, int ordinalCount, int version, int size) {
+        this.store = store;
+        this.deletedAt = deletedAt;
+        this.ordinalCount = ordinalCount;
+        this.version = version;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of tasks in the snapshot.
+     *
+     * @return The number of tasks.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an iterator over the tasks of the snapshot in list order.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int next = nextPresent(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < ordinalCount;
+            }
+
+            @Override
+            public Task next() {
+                if (next >= ordinalCount) {
+                    throw new NoSuchElementException();
+                }
+                Task task = store.get(next);
+                next = nextPresent(next + 1);
+                return task;
+            }
+        };
+    }
+
+    /**
+     * Returns the first slot from an ordinal onwards that was present when the snapshot was taken.
+     *
+     * @param ordinal The ordinal to start from.
+     * @return The ordinal of the slot, or the slot count if there is none.
+     */
+    private int nextPresent(int ordinal) {
+        while (ordinal < ordinalCount && deletedAt[ordinal] <= version) {
+            ordinal++;
+        }
+        return ordinal;
+    }
+}
@@ -0,0 +1,61 @@
+package reverie.index;
+
+import reverie.task.Task;
+
+/**
+ * Represents the storage behind the slots of a {@link TaskSequence}, one slot per ordinal.
+ * A <code>TaskStore</code> never moves a slot once written: when it runs out of room it returns a larger copy
+ * of itself instead, so a {@link TaskSnapshot} holding the old store keeps reading the slots it knew about.
+ */
+abstract class TaskStore {
+    /**
+     * Writes a task into a slot, growing the store if the slot is past its capacity.
+     *
+     * @param ordinal The slot to write.
+     * @param task The task to store.
+     * @return The store to use from now on, which is this store unless it had to grow.
+     */
+    abstract TaskStore set(int ordinal, Task task);
+
+    /**
+     * Returns the task in a slot.
+     *
+     * @param ordinal The slot to read.
+     * @return The task.
+     */
+    abstract Task get(int ordinal);
+
+    /**
+     * Marks or unmarks the task in a slot as done.
+     * May run while other threads read the store, but not while another thread marks a task.
+     *
+     * @param ordinal The slot of the task.
+     * @param isDone True to mark the task as done, false to mark it as not done.
+     */
+    abstract void setDone(int ordinal, boolean isDone);
+
+    /**
+     * Returns a new store holding the slots that survive a compaction, at their new ordinals.
+     *
+     * @param mapping The new ordinal of each old ordinal, or -1 for removed ordinals.
+     * @param liveCount The number of surviving slots.
+     * @return The compacted store.
+     */
+    abstract TaskStore compact(int[] mapping, int liveCount);
+
+    /**
+     * Returns the approximate number of bytes used by the store for the specified number of slots,
+     * including the tasks it holds, for memory reporting.
+     *
+     * @param ordinalCount The number of slots in use.
+     * @return The approximate size in bytes.
+     */
+    abstract long memoryBytes(int ordinalCount);
+
+    /**
+     * Returns a short name of the layout of the store, for statistics.
+     *
+     * @return The name of the store.
+     */
+    abstract String getName();
+}
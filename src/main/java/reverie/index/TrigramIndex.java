@@ -0,0 +1,375 @@
+package reverie.index;
+
+import reverie.task.Task;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents a trigram index for substring searches over the numbered status line of each task,
+ * such as <code>3.[D][X] return book (by: Dec 02 2019)</code>.
+ * A <code>TrigramIndex</code> keeps, for every run of three characters, the tasks whose line contains it.
+ * A search looks up the trigrams of the keyword to narrow the list down to a few candidates,
+ * and then checks each candidate against its actual line.
+ *
+ * <p>Only the part of the line after the type and status icons is indexed, so marking a task
+ * never changes the index. Trigrams that can come from the icons, such as <code>[x]</code>,
+ * do not narrow the search, and a keyword that can reach into the task number is also
+ * matched against the numbers that could contain it.</p>
+ */
+public class TrigramIndex {
+    /** The shortest keyword the index can narrow down. */
+    public static final int MIN_KEYWORD_LENGTH = 3;
+
+    private static final int STATUS_PREFIX_LENGTH = "[T][X] ".length();
+    private static final int FIRST_INDEXED_START = STATUS_PREFIX_LENGTH - 2;
+    private static final int MIN_COMPACTION_ORDINALS = 1024;
+    private static final Set<String> ICON_TRIGRAMS = new HashSet<>();
+
+    static {
+        for (char type : "tde".toCharArray()) {
+            for (char icon : "x ".toCharArray()) {
+                String prefix = "[" + type + "][" + icon + "]";
+                for (int i = 0; i + MIN_KEYWORD_LENGTH <= prefix.length() + 1; i++) {
+                    ICON_TRIGRAMS.add((prefix + " ").substring(i, i + MIN_KEYWORD_LENGTH));
+                }
+            }
+        }
+    }
+
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final OrdinalTree ordinals = new OrdinalTree();
+    private long postingCount;
+
+    /**
+     * Constructs a TrigramIndex over the specified tasks, in list order.
+     *
+     * @param tasks The tasks to index.
+     */
+    public TrigramIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Indexes a task appended to the end of the list.
+     *
+     * @param task The task that was added.
+     */
+    public void add(Task task) {
+        int ordinal = ordinals.append();
+        String line = task.getLowerCaseFullStatus();
+        for (int i = FIRST_INDEXED_START; i + MIN_KEYWORD_LENGTH <= line.length(); i++) {
+            IntList list = postings.computeIfAbsent(key(line, i), key -> new IntList());
+            if (list.last() != ordinal) {
+                list.add(ordinal);
+                postingCount++;
+            }
+        }
+    }
+
+    /**
+     * Removes the task at the specified position from the index.
+     * Later tasks move up one position without any change to the postings.
+     *
+     * @param position The position of the deleted task (0-based).
+     */
+    public void delete(int position) {
+        ordinals.remove(ordinals.ordinalAt(position));
+        int removed = ordinals.size() - ordinals.liveCount();
+        if (removed >= MIN_COMPACTION_ORDINALS && removed > ordinals.liveCount()) {
+            compact();
+        }
+    }
+
+    /**
+     * Finds the tasks whose numbered status line contains the keyword, ignoring case.
+     *
+     * @param tasks The tasks in list order, which must be the tasks this index was built from.
+     * @param keyword The keyword, at least {@link #MIN_KEYWORD_LENGTH} characters long.
+     * @return The positions of the matching tasks (0-based), in list order.
+     */
+    public ArrayList<Integer> find(List<Task> tasks, String keyword) {
+        String lowerKeyword = keyword.toLowerCase();
+        BitSet matches = new BitSet();
+
+        List<IntList> matchLists = new ArrayList<>();
+        boolean canMatchStatus = true;
+        for (int i = 0; i + MIN_KEYWORD_LENGTH <= lowerKeyword.length(); i++) {
+            if (ICON_TRIGRAMS.contains(lowerKeyword.substring(i, i + MIN_KEYWORD_LENGTH))) {
+                continue;
+            }
+            IntList list = postings.get(key(lowerKeyword, i));
+            if (list == null) {
+                canMatchStatus = false;
+                break;
+            }
+            matchLists.add(list);
+        }
+
+        if (canMatchStatus && matchLists.isEmpty()) {
+            // Nothing to narrow down with, so check every task
+            int position = 0;
+            for (Task task : tasks) {
+                if (task.getLowerCaseFullStatus().contains(lowerKeyword)) {
+                    matches.set(position);
+                }
+                position++;
+            }
+        } else if (canMatchStatus) {
+            // Walk the rarest trigram and look its ordinals up in the others
+            matchLists.sort(Comparator.comparingInt(IntList::size));
+            IntList rarest = matchLists.get(0);
+            for (int i = 0; i < rarest.size(); i++) {
+                int ordinal = rarest.get(i);
+                if (ordinals.isAlive(ordinal) && isInAll(ordinal, matchLists)) {
+                    checkStatus(tasks, ordinals.positionOf(ordinal), lowerKeyword, matches);
+                }
+            }
+        }
+
+        IntList numberCandidates = findNumberCandidates(lowerKeyword, tasks.size());
+        for (int i = 0; i < numberCandidates.size(); i++) {
+            int position = numberCandidates.get(i);
+            if (!matches.get(position)) {
+                String numbered = (position + 1) + "." + tasks.get(position).getLowerCaseFullStatus();
+                if (numbered.contains(lowerKeyword)) {
+                    matches.set(position);
+                }
+            }
+        }
+
+        ArrayList<Integer> positions = new ArrayList<>();
+        for (int position = matches.nextSetBit(0); position >= 0; position = matches.nextSetBit(position + 1)) {
+            positions.add(position);
+        }
+        return positions;
+    }
+
+    /**
+     * Checks if the keyword has a trigram that narrows the search, rather than only trigrams
+     * that can come from the type and status icons.
+     *
+     * @param keyword The keyword, at least {@link #MIN_KEYWORD_LENGTH} characters long.
+     * @return True if the index can narrow the search down, false if every task has to be checked.
+     */
+    public static boolean canNarrow(String keyword) {
+        String lowerKeyword = keyword.toLowerCase();
+        for (int i = 0; i + MIN_KEYWORD_LENGTH <= lowerKeyword.length(); i++) {
+            if (!ICON_TRIGRAMS.contains(lowerKeyword.substring(i, i + MIN_KEYWORD_LENGTH))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Estimates the number of tasks whose status line contains the keyword, without checking any task.
+     * The estimate is the size of the rarest trigram's posting list, which may include removed tasks,
+     * and does not count matches that reach into the task number.
+     *
+     * @param keyword The keyword, at least {@link #MIN_KEYWORD_LENGTH} characters long.
+     * @return The estimated number of matching tasks.
+     */
+    public int estimate(String keyword) {
+        String lowerKeyword = keyword.toLowerCase();
+        int estimate = ordinals.liveCount();
+        for (int i = 0; i + MIN_KEYWORD_LENGTH <= lowerKeyword.length(); i++) {
+            if (!ICON_TRIGRAMS.contains(lowerKeyword.substring(i, i + MIN_KEYWORD_LENGTH))) {
+                IntList list = postings.get(key(lowerKeyword, i));
+                estimate = Math.min(estimate, list == null ? 0 : list.size());
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the number of trigram postings, which is the number of distinct trigrams summed over all tasks.
+     *
+     * @return The number of postings.
+     */
+    public long postingCount() {
+        return postingCount;
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the index, for memory reporting.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long memoryBytes() {
+        long bytes = ordinals.memoryBytes();
+        for (IntList list : postings.values()) {
+            // Map entry, boxed key and the list itself
+            bytes += 64 + list.memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Marks a position as a match if its status line contains the keyword.
+     *
+     * @param tasks The tasks in list order.
+     * @param position The position to check.
+     * @param lowerKeyword The lower-cased keyword.
+     * @param matches The matching positions found so far.
+     */
+    private static void checkStatus(List<Task> tasks, int position, String lowerKeyword, BitSet matches) {
+        if (tasks.get(position).getLowerCaseFullStatus().contains(lowerKeyword)) {
+            matches.set(position);
+        }
+    }
+
+    /**
+     * Checks if an ordinal is in every match list after the first.
+     *
+     * @param ordinal The ordinal to look up.
+     * @param matchLists The match lists, each in increasing order.
+     * @return True if every list contains the ordinal, false otherwise.
+     */
+    private static boolean isInAll(int ordinal, List<IntList> matchLists) {
+        for (int i = 1; i < matchLists.size(); i++) {
+            if (!matchLists.get(i).containsSorted(ordinal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the positions whose task number the keyword could overlap.
+     * The numbered line is <code>N.[...</code>, so such a keyword is a run of digits inside N,
+     * or ends N with its leading digits and continues with a dot.
+     *
+     * @param lowerKeyword The lower-cased keyword.
+     * @param size The number of tasks.
+     * @return The candidate positions (0-based).
+     */
+    private static IntList findNumberCandidates(String lowerKeyword, int size) {
+        IntList candidates = new IntList();
+        int digitCount = 0;
+        while (digitCount < lowerKeyword.length() && isDigit(lowerKeyword.charAt(digitCount))) {
+            digitCount++;
+        }
+        String digits = lowerKeyword.substring(0, digitCount);
+
+        if (digitCount == lowerKeyword.length()) {
+            addNumbersContaining(digits, size, candidates);
+        } else if (lowerKeyword.charAt(digitCount) == '.') {
+            addNumbersEndingWith(digits, size, candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * Adds the positions of the task numbers up to a maximum that contain a run of digits.
+     *
+     * @param digits The run of digits.
+     * @param max The largest task number.
+     * @param candidates The list to add the positions to.
+     */
+    private static void addNumbersContaining(String digits, int max, IntList candidates) {
+        if (digits.length() > Integer.toString(max).length()) {
+            return;
+        }
+        long value = Long.parseLong(digits);
+        long scale = pow10(digits.length());
+        BitSet numbers = new BitSet();
+        for (int length = digits.length(); length <= Integer.toString(max).length(); length++) {
+            for (int headLength = 0; headLength + digits.length() <= length; headLength++) {
+                if (headLength == 0 && digits.charAt(0) == '0') {
+                    continue;
+                }
+                long tailScale = pow10(length - digits.length() - headLength);
+                long headStart = headLength == 0 ? 0 : pow10(headLength - 1);
+                long headEnd = headLength == 0 ? 0 : pow10(headLength) - 1;
+                for (long head = headStart; head <= headEnd; head++) {
+                    long base = (head * scale + value) * tailScale;
+                    if (base > max) {
+                        break;
+                    }
+                    for (long number = Math.max(base, 1); number < base + tailScale && number <= max; number++) {
+                        numbers.set((int) number);
+                    }
+                }
+            }
+        }
+        for (int number = numbers.nextSetBit(1); number >= 0; number = numbers.nextSetBit(number + 1)) {
+            candidates.add(number - 1);
+        }
+    }
+
+    /**
+     * Adds the positions of the task numbers up to a maximum that end with a run of digits.
+     *
+     * @param digits The run of digits, possibly empty.
+     * @param max The largest task number.
+     * @param candidates The list to add the positions to.
+     */
+    private static void addNumbersEndingWith(String digits, int max, IntList candidates) {
+        if (digits.length() > Integer.toString(max).length()) {
+            return;
+        }
+        long step = pow10(digits.length());
+        long first = digits.isEmpty() ? 0 : Long.parseLong(digits);
+        for (long number = first; number <= max; number += step) {
+            if (number > 0 && Long.toString(number).endsWith(digits)) {
+                candidates.add((int) number - 1);
+            }
+        }
+    }
+
+    /**
+     * Purges removed ordinals from the postings and renumbers the remaining ones.
+     */
+    private void compact() {
+        int[] mapping = ordinals.compact();
+        postingCount = 0;
+        postings.values().removeIf(list -> {
+            list.remap(mapping);
+            postingCount += list.size();
+            return list.size() == 0;
+        });
+    }
+
+    /**
+     * Packs the trigram starting at an index into a single key.
+     *
+     * @param text The text.
+     * @param start The index of the first character of the trigram.
+     * @return The key of the trigram.
+     */
+    private static long key(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * Returns ten to the power of an exponent.
+     *
+     * @param exponent The exponent.
+     * @return The power of ten.
+     */
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the specified character is an ASCII digit.
+     *
+     * @param c The character to check.
+     * @return True if the character is a digit, false otherwise.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
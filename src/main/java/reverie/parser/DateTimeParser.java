@@ -2,11 +2,6 @@ package reverie.parser;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.Locale;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,64 +10,67 @@ import java.util.List;
  * date and time formats into LocalDateTime objects.
  */
 public class DateTimeParser {
-    private static final List<DateTimeFormatter> DATE_TIME_FORMATTERS = new ArrayList<>();
-    private static final List<DateTimeFormatter> DATE_FORMATTERS = new ArrayList<>();
-    private static final List<DateTimeFormatter> TIME_FORMATTERS = new ArrayList<>();
-
-    static {
-        // Date-time formats (with both date and time)
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy/MM/dd HHmm"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("dd-MM-yyyy HHmm"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("dd/MM/yyyy HHmm"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy MMM dd HHmm").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy MMM dd HH:mm").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("MMM dd yyyy HHmm").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("dd MMM yyyy HHmm").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HHmm yyyy-MM-dd"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HH:mm yyyy-MM-dd"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HHmm yyyy/MM/dd"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HH:mm yyyy/MM/dd"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HHmm dd-MM-yyyy"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HH:mm dd-MM-yyyy"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HHmm dd/MM/yyyy"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy"));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HHmm yyyy MMM dd").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HH:mm yyyy MMM dd").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HHmm MMM dd yyyy").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HH:mm MMM dd yyyy").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HHmm dd MMM yyyy").withLocale(Locale.ENGLISH));
-        DATE_TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HH:mm dd MMM yyyy").withLocale(Locale.ENGLISH));
-
-        // Date-only formats
-        DATE_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        DATE_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        DATE_FORMATTERS.add(DateTimeFormatter.ofPattern("dd-MM-yyyy"));
-        DATE_FORMATTERS.add(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-        DATE_FORMATTERS.add(DateTimeFormatter.ofPattern("MMM dd yyyy").withLocale(Locale.ENGLISH));
-        DATE_FORMATTERS.add(DateTimeFormatter.ofPattern("dd MMM yyyy").withLocale(Locale.ENGLISH));
-        DATE_FORMATTERS.add(DateTimeFormatter.ofPattern("yyyy MMM dd").withLocale(Locale.ENGLISH));
-
-        // Time-only formats
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HHmm"));
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("HH:mm"));
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("hhmm a").withLocale(java.util.Locale.ENGLISH));
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("hhmma").withLocale(java.util.Locale.ENGLISH));
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("hmm a").withLocale(java.util.Locale.ENGLISH));
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("hmma").withLocale(java.util.Locale.ENGLISH));
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("hh:mm a").withLocale(java.util.Locale.ENGLISH));
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("hh:mma").withLocale(java.util.Locale.ENGLISH));
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("h:mm a").withLocale(java.util.Locale.ENGLISH));
-        TIME_FORMATTERS.add(DateTimeFormatter.ofPattern("h:mma").withLocale(java.util.Locale.ENGLISH));
-    }
+    // Date-time formats (with both date and time)
+    private static final List<String> DATE_TIME_PATTERNS = List.of(
+            "yyyy-MM-dd HHmm",
+            "yyyy-MM-dd HH:mm",
+            "yyyy/MM/dd HHmm",
+            "yyyy/MM/dd HH:mm",
+            "dd-MM-yyyy HHmm",
+            "dd-MM-yyyy HH:mm",
+            "dd/MM/yyyy HHmm",
+            "dd/MM/yyyy HH:mm",
+            "yyyy-MM-dd'T'HH:mm",
+            "yyyy-MM-dd'T'HH:mm:ss",
+            "yyyy MMM dd HHmm",
+            "yyyy MMM dd HH:mm",
+            "MMM dd yyyy HHmm",
+            "MMM dd yyyy HH:mm",
+            "dd MMM yyyy HHmm",
+            "dd MMM yyyy HH:mm",
+            "HHmm yyyy-MM-dd",
+            "HH:mm yyyy-MM-dd",
+            "HHmm yyyy/MM/dd",
+            "HH:mm yyyy/MM/dd",
+            "HHmm dd-MM-yyyy",
+            "HH:mm dd-MM-yyyy",
+            "HHmm dd/MM/yyyy",
+            "HH:mm dd/MM/yyyy",
+            "HHmm yyyy MMM dd",
+            "HH:mm yyyy MMM dd",
+            "HHmm MMM dd yyyy",
+            "HH:mm MMM dd yyyy",
+            "HHmm dd MMM yyyy",
+            "HH:mm dd MMM yyyy");
+
+    // Date-only formats
+    private static final List<String> DATE_PATTERNS = List.of(
+            "yyyy-MM-dd",
+            "yyyy/MM/dd",
+            "dd-MM-yyyy",
+            "dd/MM/yyyy",
+            "MMM dd yyyy",
+            "dd MMM yyyy",
+            "yyyy MMM dd");
+
+    // Time-only formats
+    private static final List<String> TIME_PATTERNS = List.of(
+            "HHmm",
+            "HH:mm",
+            "hhmm a",
+            "hhmma",
+            "hmm a",
+            "hmma",
+            "hh:mm a",
+            "hh:mma",
+            "h:mm a",
+            "h:mma");
+
+    private static final int CACHE_CAPACITY = 1024;
+
+    private static final DateTimeRecognizer RECOGNIZER =
+            new DateTimeRecognizer(DATE_TIME_PATTERNS, DATE_PATTERNS, TIME_PATTERNS);
+    private static final ParseResultCache CACHE = new ParseResultCache(CACHE_CAPACITY, RECOGNIZER::recognize);
 
     /**
      * Represents the result of parsing a date-time string.
@@ -81,6 +79,7 @@ public class DateTimeParser {
     public static class ParseResult {
         private final LocalDateTime dateTime;
         private final boolean hasTime;
+        private final boolean isTimeOnly;
 
         /**
          * Constructs a ParseResult with the specified date-time and time flag.
@@ -89,8 +88,20 @@ public class DateTimeParser {
          * @param hasTime Whether the input included time information.
          */
         public ParseResult(LocalDateTime dateTime, boolean hasTime) {
+            this(dateTime, hasTime, false);
+        }
+
+        /**
+         * Constructs a ParseResult that may have been placed on the current date.
+         *
+         * @param dateTime The parsed LocalDateTime.
+         * @param hasTime Whether the input included time information.
+         * @param isTimeOnly Whether the input had no date, so the date is the day it was parsed on.
+         */
+        ParseResult(LocalDateTime dateTime, boolean hasTime, boolean isTimeOnly) {
             this.dateTime = dateTime;
             this.hasTime = hasTime;
+            this.isTimeOnly = isTimeOnly;
         }
 
         /**
@@ -110,11 +121,23 @@ public class DateTimeParser {
         public boolean hasTime() {
             return hasTime;
         }
+
+        /**
+         * Checks if the parsed input had no date, so that the date is the day it was parsed on.
+         *
+         * @return True if only a time was given, false otherwise.
+         */
+        public boolean isTimeOnly() {
+            return isTimeOnly;
+        }
     }
 
     /**
      * Parses a date-time string flexibly using various date and time formats.
      * Attempts to parse as full date-time first, then date-only, then time-only.
+     * The input is scanned once and only the formats with the same shape are tried,
+     * so plain text is rejected without attempting every format.
+     * Results are cached by input, since the same few dates and times are entered repeatedly.
      * Returns null for the DateTime if the input cannot be parsed as a valid date/time.
      *
      * @param input The date-time string to parse.
@@ -125,38 +148,89 @@ public class DateTimeParser {
             return new ParseResult(null, false);
         }
 
-        String trimmed = input.trim();
-
-        // Normalize AM/PM to uppercase for easier parsing
-        String normalized = trimmed.replaceAll("(?i)am", "AM").replaceAll("(?i)pm", "PM");
+        return CACHE.get(input.trim());
+    }
 
-        // Try full date-time formats first
-        for (DateTimeFormatter formatter : DATE_TIME_FORMATTERS) {
-            try {
-                return new ParseResult(LocalDateTime.parse(normalized, formatter), true);
-            } catch (DateTimeParseException ignored) {
-            }
+    /**
+     * Parses a date string, such as the date given to the schedule command.
+     * Any format accepted by {@link #parseDateTime(String)} that includes a date is allowed,
+     * and a time in the input is ignored.
+     *
+     * @param input The date string to parse.
+     * @return The parsed LocalDate, or null if the input does not contain a valid date.
+     */
+    public static LocalDate parseDate(String input) {
+        ParseResult result = parseDateTime(input);
+        if (result.getDateTime() == null || result.isTimeOnly()) {
+            return null;
         }
+        return result.getDateTime().toLocalDate();
+    }
+
+    /**
+     * Returns a summary of how well the parse result cache is working.
+     *
+     * @return The cache statistics line.
+     */
+    public static String getCacheStatistics() {
+        return CACHE.getStatistics();
+    }
 
-        // Try date-only formats (set time to 00:00)
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                LocalDate date = LocalDate.parse(normalized, formatter);
-                return new ParseResult(date.atStartOfDay(), false);
-            } catch (DateTimeParseException ignored) {
+    /**
+     * Returns the canonical ISO-8601 form of a resolved date-time.
+     * The result is accepted by {@link #parseDateTime(String)} and does not depend on any formatter.
+     *
+     * @param dateTime The resolved date-time.
+     * @param hasTime Whether the time part is significant.
+     * @return The canonical string, e.g. <code>2019-12-02T14:00</code> or <code>2019-12-02</code>.
+     */
+    public static String toCanonicalString(LocalDateTime dateTime, boolean hasTime) {
+        return hasTime ? dateTime.toString() : dateTime.toLocalDate().toString();
+    }
+
+    /**
+     * Parses a canonical ISO-8601 date-time such as <code>2019-12-02T14:00</code> or
+     * <code>2019-12-02T14:00:45</code>, as produced by <code>LocalDateTime.toString()</code>.
+     * The common shapes are read digit by digit without trying any formatter.
+     *
+     * @param text The canonical date-time string.
+     * @return The parsed LocalDateTime.
+     * @throws java.time.DateTimeException If the text is not a valid canonical date-time.
+     */
+    public static LocalDateTime parseCanonical(String text) {
+        int length = text.length();
+        if ((length == 16 || length == 19) && text.charAt(4) == '-' && text.charAt(7) == '-'
+                && text.charAt(10) == 'T' && text.charAt(13) == ':') {
+            int year = readDigits(text, 0, 4);
+            int month = readDigits(text, 5, 7);
+            int day = readDigits(text, 8, 10);
+            int hour = readDigits(text, 11, 13);
+            int minute = readDigits(text, 14, 16);
+            int second = length == 19 && text.charAt(16) == ':' ? readDigits(text, 17, 19) : 0;
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
             }
         }
+        return LocalDateTime.parse(text);
+    }
 
-        // Try time-only formats (set date to today)
-        for (DateTimeFormatter formatter : TIME_FORMATTERS) {
-            try {
-                LocalTime time = LocalTime.parse(normalized, formatter);
-                return new ParseResult(LocalDateTime.of(LocalDate.now(), time), true);
-            } catch (DateTimeParseException ignored) {
+    /**
+     * Reads a run of decimal digits as a number.
+     *
+     * @param text The text to read from.
+     * @param from The index of the first digit.
+     * @param to The index after the last digit.
+     * @return The number, or -1 if the range contains a non-digit.
+     */
+    private static int readDigits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
             }
+            value = value * 10 + (c - '0');
         }
-
-        // If all parsing fails, return null (treat as plain text)
-        return new ParseResult(null, false);
+        return value;
     }
 }
@@ -0,0 +1,457 @@
+package reverie.parser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a single-pass recognizer for the date and time patterns accepted by {@link DateTimeParser}.
+ * A <code>DateTimeRecognizer</code> splits the input once into digit runs, words and separators,
+ * looks up the patterns that have the same shape and resolves the first one whose fields are valid.
+ * Inputs that match no pattern are rejected without trying a formatter or throwing an exception.
+ *
+ * <p>Patterns use the <code>DateTimeFormatter</code> letters <code>yyyy</code>, <code>MM</code>,
+ * <code>MMM</code>, <code>dd</code>, <code>HH</code>, <code>hh</code>, <code>h</code>, <code>mm</code>,
+ * <code>ss</code> and <code>a</code>, and fields are resolved the way the formatters resolve them
+ * by default: days past the end of the month are clamped, <code>24:00</code> is midnight of the next day,
+ * and a clock hour of <code>0</code> or <code>12</code> is the start of the half day.</p>
+ */
+class DateTimeRecognizer {
+    private static final int MAX_TOKENS = 16;
+    private static final int MAX_VARIABLE_DIGITS = 19;
+    private static final int MAX_YEAR = 999_999_999;
+    private static final long DIGITS_LIMIT = 10_000_000_000L;
+    private static final String[] MONTH_NAMES = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private static final char DIGITS_KEY = '9';
+    private static final char WORD_KEY = 'A';
+
+    private static final int KIND_DIGITS = 0;
+    private static final int KIND_MONTH_NAME = 1;
+    private static final int KIND_AM_PM = 2;
+    private static final int KIND_LITERAL = 3;
+    private static final int KIND_SEPARATOR = 4;
+
+    private static final int YEAR = 0;
+    private static final int MONTH = 1;
+    private static final int DAY = 2;
+    private static final int HOUR = 3;
+    private static final int CLOCK_HOUR = 4;
+    private static final int MINUTE = 5;
+    private static final int SECOND = 6;
+    private static final int AM_PM = 7;
+    private static final int FIELD_COUNT = 8;
+
+    private final Map<String, List<Layout>> layoutsByShape = new HashMap<>();
+
+    /**
+     * Represents one token position of a compiled pattern.
+     * A digit element holds one or more adjacent numeric fields, such as <code>HHmm</code>.
+     */
+    private static class Element {
+        private final int kind;
+        private final String literal;
+        private final List<Integer> fields = new ArrayList<>();
+        private final List<Integer> widths = new ArrayList<>();
+
+        Element(int kind, String literal) {
+            this.kind = kind;
+            this.literal = literal;
+        }
+    }
+
+    /**
+     * Represents a compiled pattern together with what kind of result it produces.
+     */
+    private static class Layout {
+        private final Element[] elements;
+        private final boolean hasDate;
+        private final boolean hasTime;
+        private final boolean hasAmPm;
+
+        Layout(Element[] elements, boolean hasDate, boolean hasTime) {
+            this.elements = elements;
+            this.hasDate = hasDate;
+            this.hasTime = hasTime;
+            boolean hasAmPm = false;
+            for (Element element : elements) {
+                hasAmPm |= element.kind == KIND_AM_PM;
+            }
+            this.hasAmPm = hasAmPm;
+        }
+    }
+
+    /**
+     * Constructs a DateTimeRecognizer for the specified patterns.
+     * When an input has the shape of several patterns, they are tried in the order given here.
+     *
+     * @param dateTimePatterns The patterns that contain both a date and a time.
+     * @param datePatterns The patterns that contain only a date.
+     * @param timePatterns The patterns that contain only a time.
+     */
+    DateTimeRecognizer(List<String> dateTimePatterns, List<String> datePatterns, List<String> timePatterns) {
+        addPatterns(dateTimePatterns, true, true);
+        addPatterns(datePatterns, true, false);
+        addPatterns(timePatterns, false, true);
+    }
+
+    /**
+     * Recognizes the specified input.
+     * Time-only inputs are placed on the current date.
+     *
+     * @param input The trimmed date-time string.
+     * @return A ParseResult with the resolved date-time, or with null if the input matches no pattern.
+     */
+    DateTimeParser.ParseResult recognize(String input) {
+        int length = input.length();
+        int[] starts = new int[MAX_TOKENS];
+        int[] ends = new int[MAX_TOKENS];
+        char[] shape = new char[MAX_TOKENS];
+        int count = 0;
+
+        int i = 0;
+        while (i < length) {
+            if (count == MAX_TOKENS) {
+                return new DateTimeParser.ParseResult(null, false);
+            }
+            char c = input.charAt(i);
+            int start = i;
+            if (isDigit(c) || (c == '+' && i + 1 < length && isDigit(input.charAt(i + 1)))) {
+                i++;
+                while (i < length && isDigit(input.charAt(i))) {
+                    i++;
+                }
+                shape[count] = DIGITS_KEY;
+            } else if (isLetter(c)) {
+                i++;
+                while (i < length && isLetter(input.charAt(i))) {
+                    i++;
+                }
+                shape[count] = WORD_KEY;
+            } else if (c == '-' || c == '/' || c == ':' || c == ' ') {
+                i++;
+                shape[count] = c;
+            } else {
+                return new DateTimeParser.ParseResult(null, false);
+            }
+            starts[count] = start;
+            ends[count] = i;
+            count++;
+        }
+
+        List<Layout> candidates = layoutsByShape.get(new String(shape, 0, count));
+        if (candidates != null) {
+            long[] values = new long[FIELD_COUNT];
+            for (Layout layout : candidates) {
+                Arrays.fill(values, 0);
+                LocalDateTime dateTime = resolve(layout, input, starts, ends, values);
+                if (dateTime != null) {
+                    return new DateTimeParser.ParseResult(dateTime, layout.hasTime, !layout.hasDate);
+                }
+            }
+        }
+        return new DateTimeParser.ParseResult(null, false);
+    }
+
+    /**
+     * Matches the tokens against a pattern and resolves the fields into a date-time.
+     *
+     * @param layout The pattern, which has the same shape as the tokens.
+     * @param input The input string.
+     * @param starts The start index of each token.
+     * @param ends The end index of each token.
+     * @param values The array to collect field values in.
+     * @return The resolved date-time, or null if a field does not fit the pattern.
+     */
+    private LocalDateTime resolve(Layout layout, String input, int[] starts, int[] ends, long[] values) {
+        for (int t = 0; t < layout.elements.length; t++) {
+            if (!matchElement(layout.elements[t], input, starts[t], ends[t], values)) {
+                return null;
+            }
+        }
+
+        LocalTime time = LocalTime.MIDNIGHT;
+        boolean isNextDay = false;
+        if (layout.hasTime) {
+            long hour;
+            if (layout.hasAmPm) {
+                long clockHour = values[CLOCK_HOUR];
+                if (clockHour > 12) {
+                    return null;
+                }
+                hour = values[AM_PM] * 12 + (clockHour == 12 ? 0 : clockHour);
+            } else {
+                hour = values[HOUR];
+            }
+            long minute = values[MINUTE];
+            long second = values[SECOND];
+            if (hour == 24 && minute == 0 && second == 0) {
+                isNextDay = true;
+            } else if (hour > 23 || minute > 59 || second > 59) {
+                return null;
+            } else {
+                time = LocalTime.of((int) hour, (int) minute, (int) second);
+            }
+        }
+
+        if (!layout.hasDate) {
+            return LocalDateTime.of(LocalDate.now(), time);
+        }
+
+        long year = values[YEAR];
+        long month = values[MONTH];
+        long day = values[DAY];
+        if (year < 1 || year > MAX_YEAR || month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        int monthLength = switch ((int) month) {
+        case 2 -> Year.isLeap(year) ? 29 : 28;
+        case 4, 6, 9, 11 -> 30;
+        default -> 31;
+        };
+        LocalDate date = LocalDate.of((int) year, (int) month, (int) Math.min(day, monthLength));
+        if (isNextDay) {
+            if (date.equals(LocalDate.MAX)) {
+                return null;
+            }
+            date = date.plusDays(1);
+        }
+        return LocalDateTime.of(date, time);
+    }
+
+    /**
+     * Matches a single token against a pattern element and stores its field values.
+     *
+     * @param element The pattern element.
+     * @param input The input string.
+     * @param start The start index of the token.
+     * @param end The end index of the token.
+     * @param values The array to store field values in.
+     * @return True if the token fits the element, false otherwise.
+     */
+    private boolean matchElement(Element element, String input, int start, int end, long[] values) {
+        switch (element.kind) {
+        case KIND_SEPARATOR:
+            return true;
+        case KIND_LITERAL:
+            return input.startsWith(element.literal, start) && end - start == element.literal.length();
+        case KIND_AM_PM:
+            return matchAmPm(input, start, end, values);
+        case KIND_MONTH_NAME:
+            for (int m = 0; m < MONTH_NAMES.length; m++) {
+                if (end - start == 3 && input.startsWith(MONTH_NAMES[m], start)) {
+                    values[MONTH] = m + 1;
+                    return true;
+                }
+            }
+            return false;
+        default:
+            return matchDigits(element, input, start, end, values);
+        }
+    }
+
+    /**
+     * Matches an AM/PM marker in any letter case.
+     *
+     * @param input The input string.
+     * @param start The start index of the token.
+     * @param end The end index of the token.
+     * @param values The array to store the half of the day in.
+     * @return True if the token is an AM/PM marker, false otherwise.
+     */
+    private boolean matchAmPm(String input, int start, int end, long[] values) {
+        if (end - start != 2 || Character.toLowerCase(input.charAt(start + 1)) != 'm') {
+            return false;
+        }
+        char first = Character.toLowerCase(input.charAt(start));
+        if (first != 'a' && first != 'p') {
+            return false;
+        }
+        values[AM_PM] = first == 'p' ? 1 : 0;
+        return true;
+    }
+
+    /**
+     * Matches a run of digits against the numeric fields of a pattern element.
+     * A year has exactly four digits unless it is written with a leading plus sign and more digits,
+     * and a single-letter field takes whatever digits the fixed-width fields after it leave over.
+     *
+     * @param element The pattern element.
+     * @param input The input string.
+     * @param start The start index of the token.
+     * @param end The end index of the token.
+     * @param values The array to store field values in.
+     * @return True if the digits fit the element, false otherwise.
+     */
+    private boolean matchDigits(Element element, String input, int start, int end, long[] values) {
+        boolean isSigned = input.charAt(start) == '+';
+        int from = isSigned ? start + 1 : start;
+        int digitCount = end - from;
+
+        if (element.fields.get(0) == YEAR) {
+            boolean isValidWidth = isSigned ? digitCount > 4 && digitCount <= MAX_VARIABLE_DIGITS : digitCount == 4;
+            if (!isValidWidth) {
+                return false;
+            }
+            values[YEAR] = readValue(input, from, end);
+            return true;
+        }
+        if (isSigned) {
+            return false;
+        }
+
+        int fixedWidth = 0;
+        boolean hasVariable = false;
+        for (int width : element.widths) {
+            fixedWidth += width;
+            hasVariable |= width == 0;
+        }
+        int variableWidth = digitCount - fixedWidth;
+        if (hasVariable ? variableWidth < 1 || variableWidth > MAX_VARIABLE_DIGITS : variableWidth != 0) {
+            return false;
+        }
+
+        int position = from;
+        for (int f = 0; f < element.fields.size(); f++) {
+            int width = element.widths.get(f) == 0 ? variableWidth : element.widths.get(f);
+            values[element.fields.get(f)] = readValue(input, position, position + width);
+            position += width;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a run of digits as a number, capping values that are too large to be valid for any field.
+     *
+     * @param input The input string.
+     * @param from The index of the first digit.
+     * @param to The index after the last digit.
+     * @return The value of the digits.
+     */
+    private static long readValue(String input, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = Math.min(value * 10 + (input.charAt(i) - '0'), DIGITS_LIMIT);
+        }
+        return value;
+    }
+
+    /**
+     * Compiles the specified patterns and registers them under their shapes.
+     *
+     * @param patterns The patterns to compile.
+     * @param hasDate Whether the patterns contain a date.
+     * @param hasTime Whether the patterns contain a time.
+     */
+    private void addPatterns(List<String> patterns, boolean hasDate, boolean hasTime) {
+        for (String pattern : patterns) {
+            StringBuilder shape = new StringBuilder();
+            Element[] elements = compile(pattern, shape);
+            layoutsByShape.computeIfAbsent(shape.toString(), key -> new ArrayList<>())
+                    .add(new Layout(elements, hasDate, hasTime));
+        }
+    }
+
+    /**
+     * Compiles a pattern into its token elements and builds the shape that matching inputs have.
+     *
+     * @param pattern The pattern to compile.
+     * @param shape The builder to append the shape to.
+     * @return The elements of the pattern, one per token.
+     * @throws IllegalArgumentException If the pattern uses an unsupported letter.
+     */
+    private static Element[] compile(String pattern, StringBuilder shape) {
+        List<Element> elements = new ArrayList<>();
+        Element digits = null;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            int start = i;
+            if (c == '\'') {
+                int close = pattern.indexOf('\'', i + 1);
+                elements.add(new Element(KIND_LITERAL, pattern.substring(i + 1, close)));
+                shape.append(WORD_KEY);
+                digits = null;
+                i = close + 1;
+                continue;
+            }
+            while (i < pattern.length() && pattern.charAt(i) == c) {
+                i++;
+            }
+            int letterCount = i - start;
+
+            if (c == 'M' && letterCount == 3) {
+                elements.add(new Element(KIND_MONTH_NAME, null));
+                shape.append(WORD_KEY);
+                digits = null;
+            } else if (c == 'a') {
+                elements.add(new Element(KIND_AM_PM, null));
+                shape.append(WORD_KEY);
+                digits = null;
+            } else if (isLetter(c)) {
+                if (digits == null) {
+                    digits = new Element(KIND_DIGITS, null);
+                    elements.add(digits);
+                    shape.append(DIGITS_KEY);
+                }
+                digits.fields.add(fieldOf(c));
+                digits.widths.add(letterCount == 1 ? 0 : letterCount);
+            } else {
+                for (int k = 0; k < letterCount; k++) {
+                    elements.add(new Element(KIND_SEPARATOR, null));
+                    shape.append(c);
+                }
+                digits = null;
+            }
+        }
+        return elements.toArray(new Element[0]);
+    }
+
+    /**
+     * Returns the field a numeric pattern letter stands for.
+     *
+     * @param letter The pattern letter.
+     * @return The field index.
+     * @throws IllegalArgumentException If the letter is not supported.
+     */
+    private static int fieldOf(char letter) {
+        return switch (letter) {
+        case 'y' -> YEAR;
+        case 'M' -> MONTH;
+        case 'd' -> DAY;
+        case 'H' -> HOUR;
+        case 'h' -> CLOCK_HOUR;
+        case 'm' -> MINUTE;
+        case 's' -> SECOND;
+        default -> throw new IllegalArgumentException("Unsupported pattern letter: " + letter);
+        };
+    }
+
+    /**
+     * Checks if the specified character is an ASCII digit.
+     *
+     * @param c The character to check.
+     * @return True if the character is a digit, false otherwise.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Checks if the specified character is an ASCII letter.
+     *
+     * @param c The character to check.
+     * @return True if the character is a letter, false otherwise.
+     */
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,90 @@
+package reverie.parser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Represents a size-bounded, thread-safe cache of date-time parse results keyed by the raw input.
+ * A <code>ParseResultCache</code> evicts the least recently used input once it is full.
+ * Results of time-only inputs are moved onto the current date when they are served,
+ * so an input such as <code>2359</code> parsed before midnight does not keep yesterday's date.
+ */
+class ParseResultCache {
+    private final Function<String, DateTimeParser.ParseResult> parser;
+    private final Map<String, DateTimeParser.ParseResult> results;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs a ParseResultCache in front of the specified parser.
+     *
+     * @param capacity The maximum number of inputs to keep.
+     * @param parser The parser used when an input is not cached.
+     */
+    ParseResultCache(int capacity, Function<String, DateTimeParser.ParseResult> parser) {
+        this.parser = parser;
+        this.results = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DateTimeParser.ParseResult> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the parse result for the specified input, parsing it only if it is not cached.
+     *
+     * @param input The trimmed date-time string.
+     * @return The parse result.
+     */
+    DateTimeParser.ParseResult get(String input) {
+        DateTimeParser.ParseResult result;
+        synchronized (this) {
+            result = results.get(input);
+            if (result != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+
+        if (result == null) {
+            // Parse outside the lock so that other threads are not held up
+            result = parser.apply(input);
+            synchronized (this) {
+                results.put(input, result);
+            }
+            return result;
+        }
+        return result.isTimeOnly() ? onToday(result) : result;
+    }
+
+    /**
+     * Returns a summary of the cache size and hit rate.
+     *
+     * @return The cache statistics line.
+     */
+    synchronized String getStatistics() {
+        long lookups = hits + misses;
+        return String.format("Date parse cache: %d input(s) cached, %d hit(s), %d miss(es), %.0f%% hit rate",
+                results.size(), hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups);
+    }
+
+    /**
+     * Moves a cached time-only result onto the current date.
+     *
+     * @param result The cached result.
+     * @return The result on the current date.
+     */
+    private static DateTimeParser.ParseResult onToday(DateTimeParser.ParseResult result) {
+        LocalDate today = LocalDate.now();
+        LocalDateTime dateTime = result.getDateTime();
+        if (dateTime.toLocalDate().equals(today)) {
+            return result;
+        }
+        return new DateTimeParser.ParseResult(LocalDateTime.of(today, dateTime.toLocalTime()), true, true);
+    }
+}
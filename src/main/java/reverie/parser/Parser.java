@@ -30,7 +30,7 @@ public class Parser {
 
         return switch (commandWord) {
             case "bye" -> new ExitCommand();
-            case "list" -> new ListCommand();
+            case "list" -> new ListCommand(arguments);
             case "mark" -> new MarkCommand(arguments, true);
             case "unmark" -> new MarkCommand(arguments, false);
             case "todo" -> new AddCommand(parseTodo(trimmedCommand));
@@ -39,6 +39,8 @@ public class Parser {
             case "delete" -> new DeleteCommand(arguments);
             case "find" -> new FindCommand(arguments);
             case "schedule" -> new ScheduleCommand(arguments);
+            case "query" -> new QueryCommand(arguments);
+            case "stats" -> new StatsCommand();
             default -> throw new ReverieException("I'm sorry, but I don't know what that means :-(");
         };
     }
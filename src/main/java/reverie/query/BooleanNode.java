@@ -0,0 +1,49 @@
+package reverie.query;
+
+import java.util.List;
+
+/**
+ * Represents a boolean combination of query nodes.
+ * A <code>BooleanNode</code> matches the tasks that match all of its children, any of its children,
+ * or, for <code>not</code>, the tasks that do not match its only child.
+ */
+public class BooleanNode extends QueryNode {
+    /**
+     * Represents the boolean operators of the query language.
+     */
+    public enum Operator {
+        AND, OR, NOT
+    }
+
+    private final Operator operator;
+    private final List<QueryNode> children;
+
+    /**
+     * Constructs a BooleanNode combining the specified children.
+     *
+     * @param operator The operator.
+     * @param children The nodes to combine, of which there is exactly one for <code>NOT</code>.
+     */
+    public BooleanNode(Operator operator, List<QueryNode> children) {
+        this.operator = operator;
+        this.children = List.copyOf(children);
+    }
+
+    /**
+     * Returns the operator of the node.
+     *
+     * @return The operator.
+     */
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * Returns the nodes combined by the node.
+     *
+     * @return The children.
+     */
+    public List<QueryNode> getChildren() {
+        return children;
+    }
+}
@@ -0,0 +1,8 @@
+package reverie.query;
+
+/**
+ * Represents a node of a parsed query, either a single condition or a boolean combination of conditions.
+ * A <code>QueryNode</code> only describes what to match; {@link QueryPlan} decides how to find the matches.
+ */
+public abstract class QueryNode {
+}
@@ -0,0 +1,200 @@
+package reverie.query;
+
+import reverie.exception.ReverieException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a parser for the query language used by the <code>query</code> command.
+ * A query is made of conditions joined by <code>and</code>, <code>or</code> and <code>not</code>,
+ * with brackets for grouping, for example <code>type:deadline and not done:true and before:2019-12-31</code>.
+ *
+ * <p>The conditions are <code>type:</code>, <code>done:</code>, <code>before:</code>, <code>after:</code>,
+ * <code>on:</code>, <code>word:</code> and <code>prefix:</code> followed by a value, and plain keywords,
+ * which may be quoted to include spaces or the words <code>and</code>, <code>or</code> and <code>not</code>.
+ * <code>not</code> binds tightest and <code>or</code> loosest, and conditions written next to each other
+ * without an operator must all hold.</p>
+ */
+public class QueryParser {
+    private final List<String> tokens;
+    private int next;
+
+    /**
+     * Constructs a QueryParser over the specified tokens.
+     *
+     * @param tokens The tokens of the query.
+     */
+    private QueryParser(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses a query into a tree of query nodes.
+     *
+     * @param query The query text.
+     * @return The root of the parsed query.
+     * @throws ReverieException If the query is empty or not well formed.
+     */
+    public static QueryNode parse(String query) throws ReverieException {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            throw new ReverieException("Please specify a query, e.g. query type:deadline and not done:true");
+        }
+        QueryParser parser = new QueryParser(tokens);
+        QueryNode root = parser.parseOr();
+        if (parser.next < tokens.size()) {
+            throw new ReverieException("Unexpected " + tokens.get(parser.next) + " in query");
+        }
+        return root;
+    }
+
+    /**
+     * Parses conditions joined by <code>or</code>.
+     *
+     * @return The parsed node.
+     * @throws ReverieException If the query is not well formed.
+     */
+    private QueryNode parseOr() throws ReverieException {
+        List<QueryNode> children = new ArrayList<>();
+        children.add(parseAnd());
+        while (isNext("or")) {
+            next++;
+            children.add(parseAnd());
+        }
+        return children.size() == 1 ? children.get(0) : new BooleanNode(BooleanNode.Operator.OR, children);
+    }
+
+    /**
+     * Parses conditions joined by <code>and</code> or written next to each other.
+     *
+     * @return The parsed node.
+     * @throws ReverieException If the query is not well formed.
+     */
+    private QueryNode parseAnd() throws ReverieException {
+        List<QueryNode> children = new ArrayList<>();
+        children.add(parseNot());
+        while (next < tokens.size() && !isNext("or") && !isNext(")")) {
+            if (isNext("and")) {
+                next++;
+            }
+            children.add(parseNot());
+        }
+        return children.size() == 1 ? children.get(0) : new BooleanNode(BooleanNode.Operator.AND, children);
+    }
+
+    /**
+     * Parses a condition, a bracketed query, or either of them after <code>not</code>.
+     *
+     * @return The parsed node.
+     * @throws ReverieException If the query is not well formed.
+     */
+    private QueryNode parseNot() throws ReverieException {
+        if (next == tokens.size()) {
+            throw new ReverieException("The query ended too early! Please add a condition at the end");
+        }
+        String token = tokens.get(next++);
+        String lowerToken = token.toLowerCase();
+        if (lowerToken.equals("not")) {
+            return new BooleanNode(BooleanNode.Operator.NOT, List.of(parseNot()));
+        } else if (token.equals("(")) {
+            QueryNode node = parseOr();
+            if (!isNext(")")) {
+                throw new ReverieException("Missing ) in query");
+            }
+            next++;
+            return node;
+        } else if (token.equals(")") || lowerToken.equals("and") || lowerToken.equals("or")) {
+            throw new ReverieException("Unexpected " + token + " in query");
+        }
+        return parseTerm(token);
+    }
+
+    /**
+     * Parses a single condition.
+     * A token whose part before the colon is made of letters must name a field;
+     * other tokens, such as times like <code>14:00</code>, are plain keywords.
+     *
+     * @param token The token of the condition.
+     * @return The parsed condition.
+     * @throws ReverieException If the field is unknown or the value is invalid.
+     */
+    private static TermNode parseTerm(String token) throws ReverieException {
+        if (token.startsWith("\"")) {
+            return new TermNode(TermNode.Kind.TEXT, unquote(token));
+        }
+        int colon = token.indexOf(':');
+        if (colon < 0) {
+            return new TermNode(TermNode.Kind.TEXT, token);
+        }
+        String field = token.substring(0, colon).toLowerCase();
+        TermNode.Kind kind = TermNode.Kind.ofField(field);
+        if (kind != null) {
+            return new TermNode(kind, unquote(token.substring(colon + 1)));
+        }
+        if (!field.isEmpty() && field.chars().allMatch(Character::isLetter)) {
+            throw new ReverieException("Unknown query field: " + field
+                    + "! Please use type, done, before, after, on, word or prefix");
+        }
+        return new TermNode(TermNode.Kind.TEXT, token);
+    }
+
+    /**
+     * Checks if the next token is the specified word, ignoring case.
+     *
+     * @param word The word.
+     * @return True if the next token is the word, false otherwise.
+     */
+    private boolean isNext(String word) {
+        return next < tokens.size() && tokens.get(next).equalsIgnoreCase(word);
+    }
+
+    /**
+     * Splits a query into brackets, quoted strings and runs of other non-space characters.
+     * A quote inside a token, as in <code>word:"two words"</code>, runs to the closing quote.
+     *
+     * @param query The query text.
+     * @return The tokens.
+     * @throws ReverieException If a quote is not closed.
+     */
+    private static List<String> tokenize(String query) throws ReverieException {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                int start = i;
+                while (i < query.length() && !Character.isWhitespace(query.charAt(i))
+                        && query.charAt(i) != '(' && query.charAt(i) != ')') {
+                    if (query.charAt(i) == '"') {
+                        int end = query.indexOf('"', i + 1);
+                        if (end < 0) {
+                            throw new ReverieException("Missing closing \" in query");
+                        }
+                        i = end;
+                    }
+                    i++;
+                }
+                tokens.add(query.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Removes the quotes around a value, if it has them.
+     *
+     * @param value The value.
+     * @return The value without quotes.
+     */
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,342 @@
+package reverie.query;
+
+import reverie.exception.ReverieException;
+import reverie.index.RoaringBitmap;
+import reverie.ui.TaskList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Represents a plan for finding the tasks that match a query.
+ * A <code>QueryPlan</code> is built by asking the index behind each condition how many tasks it expects
+ * to find, and then answers every <code>and</code> starting from its most selective condition.
+ * Bitmap conditions are combined with it directly, and any other condition expected to match far more
+ * tasks than are left is checked against those tasks one by one instead of being looked up in full.
+ *
+ * <p>Intermediate results are compressed bitmaps of task indices, so combining them never reads a task.
+ * The estimates assume that conditions are independent of each other.</p>
+ */
+public class QueryPlan {
+    /** How many times more tasks than are left a condition must be expected to match to be checked per task. */
+    private static final int ROW_CHECK_RATIO = 8;
+
+    private final Step root;
+    private final int taskCount;
+
+    /**
+     * Constructs a QueryPlan with the specified root step.
+     *
+     * @param root The step that produces the result.
+     * @param taskCount The number of tasks when the plan was made.
+     */
+    private QueryPlan(Step root, int taskCount) {
+        this.root = root;
+        this.taskCount = taskCount;
+    }
+
+    /**
+     * Plans a query against the current contents of a task list.
+     * Indexes that have not been built yet are built to estimate from.
+     *
+     * @param query The parsed query.
+     * @param tasks The task list to plan against.
+     * @return The plan.
+     */
+    public static QueryPlan of(QueryNode query, TaskList tasks) {
+        return new QueryPlan(plan(query, tasks), tasks.size());
+    }
+
+    /**
+     * Runs the plan and passes the index of every matching task to an action, in list order.
+     *
+     * @param tasks The task list the plan was made for.
+     * @param action The action to perform on each index (0-based).
+     * @throws ReverieException If a task cannot be read.
+     */
+    public void execute(TaskList tasks, IntConsumer action) throws ReverieException {
+        root.run(tasks).forEach(action);
+    }
+
+    /**
+     * Describes the plan, one step per line, with the estimated number of tasks out of each step.
+     *
+     * @return The lines of the description.
+     */
+    public List<String> explain() {
+        List<String> lines = new ArrayList<>();
+        root.describe("", "", lines);
+        lines.add(String.format("Estimated result: %d of %d task(s)", root.estimate, taskCount));
+        return lines;
+    }
+
+    /**
+     * Builds the step that answers a query node.
+     *
+     * @param node The query node.
+     * @param tasks The task list to estimate against.
+     * @return The step.
+     */
+    private static Step plan(QueryNode node, TaskList tasks) {
+        if (node instanceof TermNode term) {
+            return new Scan(term, term.estimate(tasks));
+        }
+        BooleanNode booleanNode = (BooleanNode) node;
+        List<Step> children = new ArrayList<>();
+        for (QueryNode child : booleanNode.getChildren()) {
+            children.add(plan(child, tasks));
+        }
+        return switch (booleanNode.getOperator()) {
+            case NOT -> new Complement(children.get(0), tasks.size());
+            case OR -> new Union(children, tasks.size());
+            case AND -> planAnd(children, tasks.size());
+        };
+    }
+
+    /**
+     * Builds the step that answers an <code>and</code>, ordering its conditions from most to least selective.
+     *
+     * @param children The steps of the conditions.
+     * @param taskCount The number of tasks.
+     * @return The step.
+     */
+    private static Step planAnd(List<Step> children, int taskCount) {
+        List<Step> included = new ArrayList<>();
+        List<Step> excluded = new ArrayList<>();
+        for (Step child : children) {
+            if (child instanceof Complement complement) {
+                excluded.add(complement.inner);
+            } else {
+                included.add(child);
+            }
+        }
+        included.sort(Comparator.comparingLong(step -> step.estimate));
+        excluded.sort(Comparator.comparingLong(step -> step.estimate));
+
+        Step driver = included.isEmpty() ? new Complement(excluded.remove(0), taskCount) : included.remove(0);
+        Intersection intersection = new Intersection(driver);
+        double estimate = driver.estimate;
+        List<Operation> checks = new ArrayList<>();
+        for (Step step : included) {
+            estimate = addOperation(intersection, checks, step, false, estimate, taskCount);
+        }
+        for (Step step : excluded) {
+            estimate = addOperation(intersection, checks, step, true, estimate, taskCount);
+        }
+        // Checks read tasks, so they run last on the fewest tasks
+        intersection.operations.addAll(checks);
+        intersection.estimate = Math.round(estimate);
+        return intersection;
+    }
+
+    /**
+     * Adds a condition to an intersection, either as a lookup to combine or as a check of each task left.
+     *
+     * @param intersection The intersection to add to.
+     * @param checks The list of per-task checks, which run after every lookup.
+     * @param step The step of the condition.
+     * @param isExcluded True if tasks matching the condition are to be removed, false if they are to be kept.
+     * @param estimate The estimated number of tasks left before the condition.
+     * @param taskCount The number of tasks.
+     * @return The estimated number of tasks left after the condition.
+     */
+    private static double addOperation(Intersection intersection, List<Operation> checks, Step step,
+            boolean isExcluded, double estimate, int taskCount) {
+        boolean isCheck = step instanceof Scan scan && !scan.term.isBitmap()
+                && step.estimate > estimate * ROW_CHECK_RATIO;
+        Operation operation = new Operation(step, isExcluded, isCheck);
+        (isCheck ? checks : intersection.operations).add(operation);
+
+        double fraction = taskCount == 0 ? 0 : (double) step.estimate / taskCount;
+        return estimate * (isExcluded ? 1 - fraction : fraction);
+    }
+
+    /**
+     * Represents a step of a plan, which produces the indices of the tasks matching part of the query.
+     */
+    private abstract static class Step {
+        protected long estimate;
+
+        /**
+         * Produces the indices of the matching tasks.
+         *
+         * @param tasks The task list.
+         * @return The indices, which may be shared with an index and must not be modified.
+         * @throws ReverieException If a task cannot be read.
+         */
+        abstract RoaringBitmap run(TaskList tasks) throws ReverieException;
+
+        /**
+         * Adds the lines describing the step and its inputs.
+         *
+         * @param indent The indentation of the step's first line.
+         * @param label The text to put before the step's first line, such as <code>Remove: </code>.
+         * @param lines The lines to add to.
+         */
+        abstract void describe(String indent, String label, List<String> lines);
+    }
+
+    /**
+     * Represents a lookup of a single condition in the index that answers it.
+     */
+    private static class Scan extends Step {
+        private final TermNode term;
+
+        Scan(TermNode term, long estimate) {
+            this.term = term;
+            this.estimate = estimate;
+        }
+
+        @Override
+        RoaringBitmap run(TaskList tasks) {
+            return term.find(tasks);
+        }
+
+        @Override
+        void describe(String indent, String label, List<String> lines) {
+            lines.add(String.format("%s%sLook up %s via %s (est. %d)", indent, label, term, term.getAccessPath(),
+                    estimate));
+        }
+    }
+
+    /**
+     * Represents a condition applied to the tasks left in an intersection.
+     */
+    private static class Operation {
+        private final Step step;
+        private final boolean isExcluded;
+        private final boolean isCheck;
+
+        Operation(Step step, boolean isExcluded, boolean isCheck) {
+            this.step = step;
+            this.isExcluded = isExcluded;
+            this.isCheck = isCheck;
+        }
+    }
+
+    /**
+     * Represents an <code>and</code>, which starts from one step and narrows its result down with the others.
+     */
+    private static class Intersection extends Step {
+        private final Step driver;
+        private final List<Operation> operations = new ArrayList<>();
+
+        Intersection(Step driver) {
+            this.driver = driver;
+        }
+
+        @Override
+        RoaringBitmap run(TaskList tasks) throws ReverieException {
+            RoaringBitmap result = driver.run(tasks);
+            for (Operation operation : operations) {
+                if (result.cardinality() == 0) {
+                    break;
+                }
+                if (operation.isCheck) {
+                    result = check(tasks, result, ((Scan) operation.step).term, operation.isExcluded);
+                } else if (operation.isExcluded) {
+                    result = result.andNot(operation.step.run(tasks));
+                } else {
+                    result = result.and(operation.step.run(tasks));
+                }
+            }
+            return result;
+        }
+
+        @Override
+        void describe(String indent, String label, List<String> lines) {
+            lines.add(String.format("%s%sIntersect (est. %d)", indent, label, estimate));
+            driver.describe(indent + "  ", "Start: ", lines);
+            for (Operation operation : operations) {
+                String operationLabel = operation.isExcluded ? "Remove: " : "Keep: ";
+                if (operation.isCheck) {
+                    Scan scan = (Scan) operation.step;
+                    lines.add(String.format("%s  %sCheck each task for %s (index est. %d)", indent, operationLabel,
+                            scan.term, scan.estimate));
+                } else {
+                    operation.step.describe(indent + "  ", operationLabel, lines);
+                }
+            }
+        }
+
+        /**
+         * Keeps the tasks that match, or do not match, a condition, reading only the tasks left.
+         *
+         * @param tasks The task list.
+         * @param candidates The indices of the tasks left.
+         * @param term The condition.
+         * @param isExcluded True to keep the tasks that do not match, false to keep those that do.
+         * @return The indices of the tasks kept.
+         * @throws ReverieException If a task cannot be read.
+         */
+        private static RoaringBitmap check(TaskList tasks, RoaringBitmap candidates, TermNode term,
+                boolean isExcluded) throws ReverieException {
+            RoaringBitmap kept = new RoaringBitmap();
+            List<Integer> indices = new ArrayList<>();
+            candidates.forEach(indices::add);
+            for (int index : indices) {
+                if (term.matches(tasks.get(index), index) != isExcluded) {
+                    kept.add(index);
+                }
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * Represents an <code>or</code>, which combines the results of its steps.
+     */
+    private static class Union extends Step {
+        private final List<Step> children;
+
+        Union(List<Step> children, int taskCount) {
+            this.children = children;
+            long sum = 0;
+            for (Step child : children) {
+                sum += child.estimate;
+            }
+            this.estimate = Math.min(sum, taskCount);
+        }
+
+        @Override
+        RoaringBitmap run(TaskList tasks) throws ReverieException {
+            RoaringBitmap result = new RoaringBitmap();
+            for (Step child : children) {
+                result = result.or(child.run(tasks));
+            }
+            return result;
+        }
+
+        @Override
+        void describe(String indent, String label, List<String> lines) {
+            lines.add(String.format("%s%sUnion (est. %d)", indent, label, estimate));
+            for (Step child : children) {
+                child.describe(indent + "  ", "", lines);
+            }
+        }
+    }
+
+    /**
+     * Represents a <code>not</code> that is not part of an <code>and</code>, which has to start from every task.
+     */
+    private static class Complement extends Step {
+        private final Step inner;
+
+        Complement(Step inner, int taskCount) {
+            this.inner = inner;
+            this.estimate = Math.max(0, taskCount - inner.estimate);
+        }
+
+        @Override
+        RoaringBitmap run(TaskList tasks) throws ReverieException {
+            return RoaringBitmap.range(tasks.size()).andNot(inner.run(tasks));
+        }
+
+        @Override
+        void describe(String indent, String label, List<String> lines) {
+            lines.add(String.format("%s%sAll tasks except (est. %d)", indent, label, estimate));
+            inner.describe(indent + "  ", "", lines);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package reverie.query;
+
+import reverie.exception.ReverieException;
+import reverie.index.RoaringBitmap;
+import reverie.index.StatusIndex;
+import reverie.index.TrigramIndex;
+import reverie.parser.DateTimeParser;
+import reverie.task.Deadline;
+import reverie.task.Event;
+import reverie.task.Task;
+import reverie.ui.TaskList;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a single condition of a query, such as <code>type:deadline</code> or <code>"book"</code>.
+ * A <code>TermNode</code> knows which index answers it and how many tasks that index expects to find,
+ * and can also check a single task by reading it, for when another condition has already narrowed
+ * the candidates down to a few.
+ */
+public class TermNode extends QueryNode {
+    /**
+     * Represents the kinds of condition, each with the field name used in queries.
+     * Text conditions are written as bare or quoted keywords instead of with a field name.
+     */
+    public enum Kind {
+        TEXT("text"), WORD("word"), PREFIX("prefix"), TYPE("type"), DONE("done"),
+        BEFORE("before"), AFTER("after"), ON("on");
+
+        private final String field;
+
+        Kind(String field) {
+            this.field = field;
+        }
+
+        /**
+         * Returns the kind of condition written with a field name.
+         *
+         * @param field The lower-case field name.
+         * @return The kind, or null if no kind has the name.
+         */
+        public static Kind ofField(String field) {
+            for (Kind kind : values()) {
+                if (kind != TEXT && kind.field.equals(field)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Kind kind;
+    private final String value;
+    private final String lowerValue;
+    private char typeLetter;
+    private boolean isDone;
+    private LocalDate from;
+    private LocalDate to;
+
+    /**
+     * Constructs a TermNode of the specified kind and value, checking that the value suits the kind.
+     *
+     * @param kind The kind of condition.
+     * @param value The value after the field name, or the keyword for text conditions.
+     * @throws ReverieException If the value is empty or not valid for the kind.
+     */
+    public TermNode(Kind kind, String value) throws ReverieException {
+        this.kind = kind;
+        this.value = value;
+        this.lowerValue = value.toLowerCase();
+        if (value.isEmpty()) {
+            throw new ReverieException(kind == Kind.TEXT ? "The keyword in quotes cannot be empty!"
+                    : "Please specify a value after " + kind.field + ":");
+        }
+
+        switch (kind) {
+            case WORD, PREFIX -> {
+                if (splitWords(lowerValue).isEmpty()) {
+                    throw new ReverieException("Please specify letters or digits after " + kind.field + ":");
+                }
+            }
+            case TYPE -> typeLetter = switch (lowerValue) {
+                case "todo", "todos" -> StatusIndex.TODO;
+                case "deadline", "deadlines" -> StatusIndex.DEADLINE;
+                case "event", "events" -> StatusIndex.EVENT;
+                default -> throw new ReverieException("Unknown task type: " + value
+                        + "! Please use todo, deadline or event");
+            };
+            case DONE -> isDone = switch (lowerValue) {
+                case "true" -> true;
+                case "false" -> false;
+                default -> throw new ReverieException("The value of done: must be true or false");
+            };
+            case BEFORE -> to = parseDate(value).minusDays(1);
+            case AFTER -> from = parseDate(value).plusDays(1);
+            case ON -> {
+                from = parseDate(value);
+                to = from;
+            }
+            default -> {
+                // Text conditions take any keyword
+            }
+        }
+    }
+
+    /**
+     * Checks if the condition is answered from the status bitmaps, which is cheap enough
+     * that it is never worth reading tasks to check it instead.
+     *
+     * @return True for type and done conditions, false otherwise.
+     */
+    public boolean isBitmap() {
+        return kind == Kind.TYPE || kind == Kind.DONE;
+    }
+
+    /**
+     * Returns the name of the index or scan that finds the tasks matching the condition.
+     *
+     * @return The access path, for query plans.
+     */
+    public String getAccessPath() {
+        return switch (kind) {
+            case TEXT -> value.length() >= TrigramIndex.MIN_KEYWORD_LENGTH && TrigramIndex.canNarrow(value)
+                    ? "trigram index" : "full scan";
+            case WORD, PREFIX -> "keyword index";
+            case TYPE, DONE -> "status bitmap";
+            default -> "date index";
+        };
+    }
+
+    /**
+     * Estimates the number of tasks matching the condition from the index that answers it.
+     *
+     * @param tasks The task list.
+     * @return The estimated number of matching tasks.
+     */
+    public long estimate(TaskList tasks) {
+        return switch (kind) {
+            case TEXT -> tasks.estimateTaskIndices(value);
+            case WORD -> tasks.estimateKeywordIndices(value, false);
+            case PREFIX -> tasks.estimateKeywordIndices(value, true);
+            case TYPE -> tasks.countFilteredIndices(String.valueOf(typeLetter), null);
+            case DONE -> tasks.countFilteredIndices("", isDone);
+            default -> tasks.estimateDatedIndices(from, to);
+        };
+    }
+
+    /**
+     * Finds the tasks matching the condition with the index that answers it.
+     *
+     * @param tasks The task list.
+     * @return The indices of the matching tasks.
+     */
+    public RoaringBitmap find(TaskList tasks) {
+        ArrayList<Integer> indices = switch (kind) {
+            case TEXT -> tasks.findTaskIndices(value);
+            case WORD -> tasks.findKeywordIndices(value, false);
+            case PREFIX -> tasks.findKeywordIndices(value, true);
+            case TYPE -> tasks.filterIndices(String.valueOf(typeLetter), null);
+            case DONE -> tasks.filterIndices("", isDone);
+            default -> tasks.findDatedIndices(from, to);
+        };
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int index : indices) {
+            bitmap.add(index);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Checks if a single task matches the condition, in the same way as the index that answers it.
+     *
+     * @param task The task.
+     * @param index The index of the task in the list, which text conditions can match against.
+     * @return True if the task matches, false otherwise.
+     */
+    public boolean matches(Task task, int index) {
+        return switch (kind) {
+            case TEXT -> task.getLowerCaseFullStatus().contains(lowerValue)
+                    || ((index + 1) + "." + task.getLowerCaseFullStatus()).contains(lowerValue);
+            case WORD, PREFIX -> containsWords(task.getLowerCaseFullStatus());
+            case TYPE -> typeLetter == (task instanceof Deadline ? StatusIndex.DEADLINE
+                    : task instanceof Event ? StatusIndex.EVENT : StatusIndex.TODO);
+            case DONE -> task.isDone() == isDone;
+            default -> isInRange(task);
+        };
+    }
+
+    /**
+     * Returns the condition as it would be written in a query.
+     *
+     * @return The condition.
+     */
+    @Override
+    public String toString() {
+        return kind == Kind.TEXT ? "\"" + value + "\"" : kind.field + ":" + value;
+    }
+
+    /**
+     * Checks if every word of the value is a word, or the start of a word, of a status line.
+     *
+     * @param line The lower-cased status line.
+     * @return True if the line contains every word, false otherwise.
+     */
+    private boolean containsWords(String line) {
+        List<String> lineWords = splitWords(line);
+        for (String word : splitWords(lowerValue)) {
+            boolean isFound = false;
+            for (String lineWord : lineWords) {
+                if (kind == Kind.PREFIX ? lineWord.startsWith(word) : lineWord.equals(word)) {
+                    isFound = true;
+                    break;
+                }
+            }
+            if (!isFound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a deadline is due, or an event overlaps, the date range of the condition.
+     * Tasks whose dates are plain text are never in range.
+     *
+     * @param task The task.
+     * @return True if the task is in range, false otherwise.
+     */
+    private boolean isInRange(Task task) {
+        if (task instanceof Deadline deadline && deadline.getByDateTime() != null) {
+            LocalDate by = deadline.getByDateTime().toLocalDate();
+            return (from == null || !by.isBefore(from)) && (to == null || !by.isAfter(to));
+        } else if (task instanceof Event event && event.getFromDateTime() != null && event.getToDateTime() != null) {
+            LocalDate start = event.getFromDateTime().toLocalDate();
+            LocalDate end = event.getToDateTime().toLocalDate();
+            return !start.isAfter(end) && (from == null || !end.isBefore(from)) && (to == null || !start.isAfter(to));
+        }
+        return false;
+    }
+
+    /**
+     * Splits text into its runs of letters and digits, as the keyword index does.
+     *
+     * @param text The text to split.
+     * @return The words of the text.
+     */
+    private static List<String> splitWords(String text) {
+        List<String> words = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            words.add(text.substring(start, i));
+        }
+        return words;
+    }
+
+    /**
+     * Parses a date in yyyy-MM-dd format.
+     *
+     * @param input The date string.
+     * @return The parsed date.
+     * @throws ReverieException If the date cannot be parsed.
+     */
+    private static LocalDate parseDate(String input) throws ReverieException {
+        LocalDate date = DateTimeParser.parseDate(input);
+        if (date == null) {
+            throw new ReverieException("Invalid date format! Please use yyyy-MM-dd (e.g., 2019-12-02)");
+        }
+        return date;
+    }
+}
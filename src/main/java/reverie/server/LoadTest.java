@@ -0,0 +1,256 @@
+package reverie.server;
+
+import reverie.ui.Ui;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents a load test of a running Reverie server.
+ * A <code>LoadTest</code> connects many clients at once, waits until all of them are connected, and then has
+ * each send the same mix of commands: mostly lists and searches, with every tenth command adding a task.
+ * It reports how long the server took to reply to each command, as the median, 99th percentile and maximum.
+ * Without a pause between commands, every client always has a command waiting, which measures the server
+ * at full load; a pause models people typing, who leave the server idle most of the time.
+ *
+ * <p>Run it against a server started in a scratch directory, since the tasks it adds are saved.</p>
+ */
+public class LoadTest {
+    private static final int DEFAULT_SESSIONS = 1000;
+    private static final int DEFAULT_COMMANDS = 20;
+    private static final int WRITE_INTERVAL = 10;
+    private static final long CONNECT_TIMEOUT_SECONDS = 60;
+    private static final int READ_TIMEOUT_MILLIS = 120_000;
+    private static final String[] READ_COMMANDS = {
+        "list /page 1 /size 20",
+        "find /word load",
+        "find session 1",
+        "list /type todo /done false /page 1 /size 20"
+    };
+
+    private final int port;
+    private final int sessionCount;
+    private final int commandCount;
+    private final long thinkMillis;
+    // The reply time of every command in nanoseconds, one row of commandCount entries per session
+    private final long[] latencies;
+    private final AtomicInteger connectedCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+
+    /**
+     * Constructs a LoadTest of the server on the specified port.
+     *
+     * @param port The port the server listens on.
+     * @param sessionCount The number of clients to connect.
+     * @param commandCount The number of commands each client sends.
+     * @param thinkMillis How long each client pauses before sending each command, on average.
+     */
+    public LoadTest(int port, int sessionCount, int commandCount, long thinkMillis) {
+        this.port = port;
+        this.sessionCount = sessionCount;
+        this.commandCount = commandCount;
+        this.thinkMillis = thinkMillis;
+        this.latencies = new long[sessionCount * commandCount];
+    }
+
+    /**
+     * Runs the load test and prints its results.
+     *
+     * @throws InterruptedException If the test is interrupted while waiting for the clients.
+     */
+    public void run() throws InterruptedException {
+        ExecutorService virtualThreads = Server.newVirtualThreadExecutor();
+        ExecutorService executor = virtualThreads != null ? virtualThreads
+                : Server.newPlatformThreadExecutor("reverie-load");
+        CountDownLatch connected = new CountDownLatch(sessionCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            int session = i;
+            executor.execute(() -> {
+                try {
+                    runSession(session, connected, start);
+                } catch (IOException | InterruptedException e) {
+                    failedCount.incrementAndGet();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+
+        // Clients beyond the server's connection limit may never connect until others leave
+        connected.await(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        System.out.println(" Connected " + connectedCount.get() + " of " + sessionCount + " client(s) on "
+                + (virtualThreads != null ? "virtual" : "platform") + " threads.");
+        long startTime = System.nanoTime();
+        start.countDown();
+        finished.await();
+        long elapsed = System.nanoTime() - startTime;
+        executor.shutdown();
+        showResults(elapsed);
+    }
+
+    /**
+     * Connects one client, waits for the others, and then sends its commands and says bye.
+     *
+     * @param session The number of the client (0-based).
+     * @param connected The latch counted down once the client has connected, or has failed to.
+     * @param start The latch the client waits on before sending its first command.
+     * @throws IOException If the connection fails or the server stops replying.
+     * @throws InterruptedException If the client is interrupted while waiting to start or pausing.
+     */
+    private void runSession(int session, CountDownLatch connected, CountDownLatch start)
+            throws IOException, InterruptedException {
+        boolean isCounted = false;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            // The welcome only arrives once the server has accepted the connection
+            readReply(in);
+            connectedCount.incrementAndGet();
+            connected.countDown();
+            isCounted = true;
+            start.await();
+
+            for (int i = 0; i < commandCount; i++) {
+                if (thinkMillis > 0) {
+                    // Random pauses keep the clients from sending in lockstep after starting together
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(2 * thinkMillis + 1));
+                }
+                String command = (i + 1) % WRITE_INTERVAL == 0
+                        ? "todo load test session " + session + " command " + i
+                        : READ_COMMANDS[(session + i) % READ_COMMANDS.length];
+                long startTime = System.nanoTime();
+                send(out, command);
+                readReply(in);
+                latencies[session * commandCount + i] = System.nanoTime() - startTime;
+            }
+            send(out, "bye");
+            readReply(in);
+        } finally {
+            if (!isCounted) {
+                connected.countDown();
+            }
+        }
+    }
+
+    /**
+     * Sends a command to the server.
+     *
+     * @param out The writer of the connection.
+     * @param command The command.
+     * @throws IOException If the command cannot be sent.
+     */
+    private static void send(Writer out, String command) throws IOException {
+        out.write(command);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Reads a reply from the server, which ends with its second separator line.
+     *
+     * @param in The reader of the connection.
+     * @throws IOException If the connection closes before the reply ends.
+     */
+    private static void readReply(BufferedReader in) throws IOException {
+        int separators = 0;
+        while (separators < 2) {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("The server closed the connection");
+            }
+            if (line.equals(Ui.HORIZONTAL_LINE)) {
+                separators++;
+            }
+        }
+    }
+
+    /**
+     * Prints the throughput and the reply times of the commands that completed.
+     *
+     * @param elapsed The time from the start of the test to the last reply, in nanoseconds.
+     */
+    private void showResults(long elapsed) {
+        long[] completed = Arrays.stream(latencies).filter(latency -> latency > 0).sorted().toArray();
+        System.out.printf(" Ran %d command(s) in %.3f s (%.0f commands/s), %d client(s) failed.%n",
+                completed.length, elapsed / 1e9, completed.length / Math.max(elapsed / 1e9, 1e-9),
+                failedCount.get());
+        if (completed.length == 0) {
+            return;
+        }
+        System.out.printf(" Reply time: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(completed, 0.50) / 1e6, percentile(completed, 0.99) / 1e6,
+                completed[completed.length - 1] / 1e6);
+    }
+
+    /**
+     * Returns a percentile of sorted values, using the nearest-rank method.
+     *
+     * @param sorted The values, in ascending order.
+     * @param fraction The percentile as a fraction, such as 0.99.
+     * @return The value at the percentile.
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    /**
+     * Runs a load test against a server on this machine.
+     * Pass <code>--port N</code> (default 4545), <code>--sessions N</code> for the number of clients
+     * (default 1000), <code>--commands N</code> for the number of commands each client sends (default 20)
+     * and <code>--think MILLIS</code> for the average pause before each command (default 0).
+     *
+     * @param args Command line arguments.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int port = parseIntOption(args, "--port", Server.DEFAULT_PORT);
+        int sessions = parseIntOption(args, "--sessions", DEFAULT_SESSIONS);
+        int commands = parseIntOption(args, "--commands", DEFAULT_COMMANDS);
+        int thinkMillis = parseIntOption(args, "--think", 0);
+        new LoadTest(port, sessions, commands, thinkMillis).run();
+    }
+
+    /**
+     * Returns the non-negative number following the specified option, or a default if it is absent or invalid.
+     *
+     * @param args Command line arguments.
+     * @param option The option name.
+     * @param defaultValue The value to use if the option is absent or invalid.
+     * @return The value of the option.
+     */
+    private static int parseIntOption(String[] args, String option, int defaultValue) {
+        List<String> options = Arrays.asList(args);
+        int index = options.indexOf(option);
+        if (index < 0 || index + 1 >= args.length) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(args[index + 1]);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.out.println(" Warning: Invalid value for " + option + ", using " + defaultValue);
+        return defaultValue;
+    }
+}
@@ -0,0 +1,230 @@
+package reverie.server;
+
+import reverie.command.Command;
+import reverie.exception.ReverieException;
+import reverie.parser.Parser;
+import reverie.storage.Storage;
+import reverie.ui.TaskList;
+import reverie.ui.Ui;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Represents a server that lets many clients share one task list over local TCP connections.
+ * A <code>Server</code> gives each connection a thread of its own, a virtual thread where the Java runtime
+ * has them, and a <code>Ui</code> that reads commands from and writes replies to the connection,
+ * so a client sees exactly what the interactive chatbot would show.
+ *
+ * <p>Commands that only read tasks run side by side, and commands that change the tasks or the storage run
+ * one at a time, each with no other command running. A command makes several calls to the task list, such as
+ * finding matches and then displaying them, so keeping changes out for the whole command is what makes the
+ * tasks it displays the ones it found. It also makes the storage record changes in the order they were made
+ * to the list. Each reply is written into memory while the command runs and only sent once the lock is released,
+ * so a client that is slow to read its replies never holds up the others.
+ * Once the largest number of clients are connected, no further connection is accepted until one leaves;
+ * clients that connect meanwhile wait in the operating system's queue of pending connections.</p>
+ */
+public class Server {
+    /** The port the server listens on when none is given. */
+    public static final int DEFAULT_PORT = 4545;
+    /** The number of clients served at once when no limit is given. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 1024;
+
+    // Replies are collected in memory and sent once per command, so a small buffer per client is enough
+    private static final int SESSION_BUFFER_SIZE = 1 << 13;
+
+    private final TaskList tasks;
+    private final Storage storage;
+    private final int maxConnections;
+    private final Semaphore connections;
+    private final ExecutorService executor;
+    private final boolean isVirtual;
+    // Fair, so that a client waiting to change the list is not overtaken again and again by readers
+    private final ReentrantReadWriteLock commandLock = new ReentrantReadWriteLock(true);
+
+    /**
+     * Constructs a Server that serves the specified task list and storage.
+     *
+     * @param tasks The task list shared by every client.
+     * @param storage The storage where changes are recorded.
+     * @param maxConnections The largest number of clients served at once.
+     */
+    public Server(TaskList tasks, Storage storage, int maxConnections) {
+        this.tasks = tasks;
+        this.storage = storage;
+        this.maxConnections = Math.max(1, maxConnections);
+        this.connections = new Semaphore(this.maxConnections);
+        ExecutorService virtualThreads = newVirtualThreadExecutor();
+        this.isVirtual = virtualThreads != null;
+        this.executor = isVirtual ? virtualThreads : newPlatformThreadExecutor("reverie-session");
+    }
+
+    /**
+     * Returns the largest number of clients served at once.
+     *
+     * @return The connection limit.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Returns the kind of thread each client is served on.
+     *
+     * @return <code>virtual</code> if the Java runtime has virtual threads, <code>platform</code> otherwise.
+     */
+    public String getThreadKind() {
+        return isVirtual ? "virtual" : "platform";
+    }
+
+    /**
+     * Accepts connections on a listening socket and serves each on its own thread, until the socket is closed.
+     * While the connection limit is reached, the next connection is not accepted until a client leaves.
+     *
+     * @param serverSocket The listening socket.
+     * @throws IOException If a connection cannot be accepted.
+     */
+    public void serve(ServerSocket serverSocket) throws IOException {
+        try {
+            while (!serverSocket.isClosed()) {
+                connections.acquireUninterruptibly();
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    connections.release();
+                    throw e;
+                }
+                executor.execute(() -> serveClient(socket));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs the command loop for one client until it says bye or disconnects.
+     *
+     * @param socket The connection to the client.
+     */
+    private void serveClient(Socket socket) {
+        try (socket) {
+            ByteArrayOutputStream reply = new ByteArrayOutputStream(SESSION_BUFFER_SIZE);
+            OutputStream client = socket.getOutputStream();
+            Ui ui = new Ui(socket.getInputStream(), reply, SESSION_BUFFER_SIZE);
+            ui.showWelcome();
+            sendReply(ui, reply, client);
+            boolean isExit = false;
+            while (!isExit) {
+                String fullCommand = ui.readCommand();
+                ui.showLine();
+                try {
+                    showWriteFailure(ui);
+                    Command c = Parser.parse(fullCommand);
+                    execute(c, ui);
+                    isExit = c.isExit();
+                } catch (ReverieException e) {
+                    ui.showError(e.getMessage());
+                } catch (UncheckedIOException e) {
+                    // A lazily loaded data file could not be read
+                    ui.showError("Error reading file: " + e.getCause().getMessage());
+                } finally {
+                    if (!isExit) {
+                        ui.showLine();
+                    }
+                }
+                sendReply(ui, reply, client);
+            }
+            ui.close();
+        } catch (IOException | NoSuchElementException | IllegalStateException e) {
+            // The client disconnected; there is no one left to tell
+        } finally {
+            connections.release();
+        }
+    }
+
+    /**
+     * Sends a client the reply written so far, and empties the buffer for the next one.
+     * It is called with no lock held, so however slowly the client reads, no other client waits for it.
+     *
+     * @param ui The client's UI, which writes into the reply buffer.
+     * @param reply The reply buffer.
+     * @param client The stream of the connection.
+     * @throws IOException If the reply cannot be sent.
+     */
+    private static void sendReply(Ui ui, ByteArrayOutputStream reply, OutputStream client) throws IOException {
+        ui.flush();
+        reply.writeTo(client);
+        client.flush();
+        reply.reset();
+    }
+
+    /**
+     * Executes a command for a client, holding the command lock for the whole command:
+     * its read side if the command only reads tasks, and its write side otherwise.
+     *
+     * @param c The command.
+     * @param ui The client's UI.
+     * @throws ReverieException If the command fails.
+     */
+    private void execute(Command c, Ui ui) throws ReverieException {
+        Lock lock = c.isReadOnly() ? commandLock.readLock() : commandLock.writeLock();
+        lock.lock();
+        try {
+            c.execute(tasks, ui, storage);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Displays an error to a client if a background save has failed since the last command.
+     *
+     * @param ui The client's UI.
+     */
+    private void showWriteFailure(Ui ui) {
+        String failure = storage.takeWriteFailure();
+        if (failure != null) {
+            ui.showError(failure);
+        }
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread for every task.
+     * The factory is looked up by reflection so that Reverie still builds and runs on Java 17.
+     *
+     * @return The executor, or null if the Java runtime has no virtual threads or they are turned off.
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Before Java 21, virtual threads are missing or a preview feature that has not been turned on
+            return null;
+        }
+    }
+
+    /**
+     * Creates an executor that starts a daemon platform thread for every task, reusing threads that are idle.
+     *
+     * @param name The name of the threads.
+     * @return The executor.
+     */
+    static ExecutorService newPlatformThreadExecutor(String name) {
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
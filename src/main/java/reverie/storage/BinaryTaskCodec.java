@@ -0,0 +1,416 @@
+package reverie.storage;
+
+import reverie.index.FileArena;
+import reverie.index.TaskSequence;
+import reverie.task.Deadline;
+import reverie.task.Event;
+import reverie.task.Task;
+import reverie.task.Todo;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Represents the reader and writer of the compact binary data file format.
+ * A <code>BinaryTaskCodec</code> stores each task as a tag byte packing the type and flags,
+ * a length-prefixed UTF-8 description and its dates as epoch-minute longs, so that loading
+ * never has to run a date parser or formatter.
+ *
+ * <p>Layout: magic <code>RVRB</code>, version byte, generation long, task count int,
+ * then one record per task.</p>
+ */
+class BinaryTaskCodec {
+    static final byte[] MAGIC = {'R', 'V', 'R', 'B'};
+    static final int VERSION = 1;
+
+    private static final int TYPE_TODO = 0;
+    private static final int TYPE_DEADLINE = 1;
+    private static final int TYPE_EVENT = 2;
+    private static final int TYPE_MASK = 0x03;
+    private static final int DONE_BIT = 0x04;
+    private static final int HAS_TIME_BIT = 0x08;
+    private static final int FIRST_TEXT_BIT = 0x10;
+    private static final int SECOND_TEXT_BIT = 0x20;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + Long.BYTES + Integer.BYTES;
+    private static final long MIN_EPOCH_MINUTE = Math.floorDiv(LocalDateTime.MIN.toEpochSecond(ZoneOffset.UTC), 60);
+    private static final long MAX_EPOCH_MINUTE = Math.floorDiv(LocalDateTime.MAX.toEpochSecond(ZoneOffset.UTC), 60);
+
+    private long generation;
+    private long bytesRead;
+    private int skippedTasks;
+
+    /**
+     * Checks if the file at the specified path starts with the binary format magic.
+     *
+     * @param path The file to check.
+     * @return True if the file is in the binary format, false otherwise.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isBinary(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * Writes the header and all tasks to the specified stream.
+     *
+     * @param out The stream to write to.
+     * @param tasks The tasks to write.
+     * @param generation The snapshot generation to record in the header.
+     * @throws IOException If there is an error writing.
+     */
+    void write(OutputStream out, Collection<Task> tasks, long generation) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(generation);
+        data.writeInt(tasks.size());
+        for (Task task : tasks) {
+            writeTask(data, task);
+        }
+        data.flush();
+    }
+
+    /**
+     * Encodes a single task as a task record in Base64, so that it can be written on one line of text,
+     * such as a journal record, whatever characters its description holds.
+     *
+     * @param task The task to encode.
+     * @return The encoded task record.
+     */
+    String encodeTask(Task task) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            writeTask(data, task);
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new IllegalStateException(e);
+        }
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes a task encoded by {@link #encodeTask(Task)}.
+     *
+     * @param text The encoded task record.
+     * @return The task decoded.
+     * @throws IOException If the record is cut short.
+     * @throws IllegalArgumentException If the text is not Base64 or the record is invalid.
+     */
+    Task decodeTask(String text) throws IOException {
+        byte[] bytes = Base64.getDecoder().decode(text.trim());
+        bytesRead = bytes.length;
+        return readTask(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Writes a single task record.
+     *
+     * @param data The stream to write to.
+     * @param task The task to write.
+     * @throws IOException If there is an error writing.
+     */
+    private void writeTask(DataOutputStream data, Task task) throws IOException {
+        int tag = task.isDone() ? DONE_BIT : 0;
+
+        if (task instanceof Deadline deadline) {
+            tag |= TYPE_DEADLINE | (deadline.hasTime() ? HAS_TIME_BIT : 0);
+            tag |= deadline.getByDateTime() == null ? FIRST_TEXT_BIT : 0;
+            data.writeByte(tag);
+            writeString(data, task.getDescription());
+            writeDate(data, deadline.getByDateTime(), deadline.getByString());
+        } else if (task instanceof Event event) {
+            tag |= TYPE_EVENT | (event.hasTime() ? HAS_TIME_BIT : 0);
+            tag |= event.getFromDateTime() == null ? FIRST_TEXT_BIT : 0;
+            tag |= event.getToDateTime() == null ? SECOND_TEXT_BIT : 0;
+            data.writeByte(tag);
+            writeString(data, task.getDescription());
+            writeDate(data, event.getFromDateTime(), event.getFromString());
+            writeDate(data, event.getToDateTime(), event.getToString());
+        } else {
+            data.writeByte(tag | TYPE_TODO);
+            writeString(data, task.getDescription());
+        }
+    }
+
+    /**
+     * Writes a date slot as epoch minutes, or as text if the date was never resolved.
+     *
+     * @param data The stream to write to.
+     * @param dateTime The resolved date-time, or null.
+     * @param text The original text used when the date-time is null.
+     * @throws IOException If there is an error writing.
+     */
+    private void writeDate(DataOutputStream data, LocalDateTime dateTime, String text) throws IOException {
+        if (dateTime != null) {
+            data.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC) / 60);
+        } else {
+            writeString(data, text);
+        }
+    }
+
+    /**
+     * Writes a string as a varint length followed by its UTF-8 bytes.
+     *
+     * @param data The stream to write to.
+     * @param value The string to write.
+     * @throws IOException If there is an error writing.
+     */
+    private void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            data.writeByte((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        data.writeByte(length);
+        data.write(bytes);
+    }
+
+    /**
+     * Loads all tasks from the specified binary file.
+     * A truncated or corrupted file keeps the tasks read before the damage and counts the tasks skipped.
+     *
+     * @param path The file to load tasks from.
+     * @return A list of loaded tasks.
+     * @throws IOException If the file cannot be read or has an unsupported header.
+     */
+    ArrayList<Task> load(Path path) throws IOException {
+        generation = 0;
+        skippedTasks = 0;
+        bytesRead = Files.size(path);
+
+        try (DataInputStream data = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+            if (!Arrays.equals(data.readNBytes(MAGIC.length), MAGIC)) {
+                throw new IOException("Not a binary data file");
+            }
+            int version = data.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary data file version " + version);
+            }
+            generation = data.readLong();
+            int count = data.readInt();
+
+            ArrayList<Task> tasks = new ArrayList<>((int) Math.max(0, Math.min(count, bytesRead)));
+            try {
+                for (int i = 0; i < count; i++) {
+                    tasks.add(readTask(data));
+                }
+            } catch (EOFException | IllegalArgumentException | DateTimeException e) {
+                skippedTasks = count - tasks.size();
+            }
+            return tasks;
+        }
+    }
+
+    /**
+     * Opens the specified binary file and reads only the tag and dates of each record.
+     * The tasks keep the file offsets of their descriptions and text dates instead of decoding them,
+     * so that a string is only read and decoded when its task is read. The file is left open for them,
+     * unless it turns out to be damaged.
+     *
+     * @param path The file to open.
+     * @return The tasks of the file, or null if the file is truncated or damaged.
+     * @throws IOException If the file cannot be read or has an unsupported header.
+     */
+    TaskSequence loadLazily(Path path) throws IOException {
+        generation = 0;
+        skippedTasks = 0;
+        FileArena file = FileArena.open(path);
+        bytesRead = file.size();
+        TaskSequence tasks = null;
+        try {
+            tasks = readLazily(file);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (tasks == null) {
+                // The file is only kept open for the tasks that read from it
+                file.close();
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Reads the header and the tag and dates of each record from an open binary file.
+     *
+     * @param file The open file.
+     * @return The tasks of the file, or null if the file is truncated or damaged.
+     * @throws IOException If the file has an unsupported header.
+     */
+    private TaskSequence readLazily(FileArena file) throws IOException {
+        if (file.size() < HEADER_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (file.get(i) != MAGIC[i]) {
+                throw new IOException("Not a binary data file");
+            }
+        }
+        int version = file.get(MAGIC.length) & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary data file version " + version);
+        }
+        generation = file.getLong(MAGIC.length + 1);
+        int count = file.getInt(MAGIC.length + 1 + Long.BYTES);
+        if (count < 0) {
+            return null;
+        }
+
+        TaskSequence tasks = TaskSequence.lazy(file, (int) Math.min(count, file.size()));
+        long[] dates = new long[2];
+        long position = HEADER_LENGTH;
+        try {
+            for (int i = 0; i < count; i++) {
+                int tag = file.get(position++) & 0xFF;
+                long descriptionOffset = position;
+                position = file.skipString(position);
+
+                int dateCount = switch (tag & TYPE_MASK) {
+                case TYPE_TODO -> 0;
+                case TYPE_DEADLINE -> 1;
+                case TYPE_EVENT -> 2;
+                default -> throw new IllegalArgumentException("Unknown task type tag: " + tag);
+                };
+                for (int slot = 0; slot < dateCount; slot++) {
+                    if ((tag & (slot == 0 ? FIRST_TEXT_BIT : SECOND_TEXT_BIT)) != 0) {
+                        dates[slot] = position;
+                        position = file.skipString(position);
+                    } else {
+                        dates[slot] = file.getLong(position);
+                        position += Long.BYTES;
+                        if (dates[slot] < MIN_EPOCH_MINUTE || dates[slot] > MAX_EPOCH_MINUTE) {
+                            throw new IllegalArgumentException("Invalid date");
+                        }
+                    }
+                }
+                tasks.addFromFile(tag, descriptionOffset, dates[0], dates[1]);
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return null;
+        }
+        return tasks;
+    }
+
+    /**
+     * Reads a single task record.
+     *
+     * @param data The stream to read from.
+     * @return The task read.
+     * @throws IOException If there is an error reading.
+     */
+    private Task readTask(DataInputStream data) throws IOException {
+        int tag = data.readUnsignedByte();
+        boolean hasTime = (tag & HAS_TIME_BIT) != 0;
+        String description = readString(data);
+
+        Task task = switch (tag & TYPE_MASK) {
+        case TYPE_TODO -> new Todo(description);
+        case TYPE_DEADLINE -> {
+            boolean isText = (tag & FIRST_TEXT_BIT) != 0;
+            String by = isText ? readString(data) : null;
+            LocalDateTime byDateTime = isText ? null : readDate(data);
+            yield new Deadline(description, by, byDateTime, hasTime);
+        }
+        case TYPE_EVENT -> {
+            boolean isFromText = (tag & FIRST_TEXT_BIT) != 0;
+            String from = isFromText ? readString(data) : null;
+            LocalDateTime fromDateTime = isFromText ? null : readDate(data);
+            boolean isToText = (tag & SECOND_TEXT_BIT) != 0;
+            String to = isToText ? readString(data) : null;
+            LocalDateTime toDateTime = isToText ? null : readDate(data);
+            yield new Event(description, from, to, fromDateTime, toDateTime, hasTime);
+        }
+        default -> throw new IllegalArgumentException("Unknown task type tag: " + tag);
+        };
+
+        if ((tag & DONE_BIT) != 0) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    /**
+     * Reads a date slot stored as epoch minutes.
+     *
+     * @param data The stream to read from.
+     * @return The date-time read.
+     * @throws IOException If there is an error reading.
+     */
+    private LocalDateTime readDate(DataInputStream data) throws IOException {
+        return LocalDateTime.ofEpochSecond(data.readLong() * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Reads a varint length-prefixed UTF-8 string.
+     *
+     * @param data The stream to read from.
+     * @return The string read.
+     * @throws IOException If there is an error reading.
+     */
+    private String readString(DataInputStream data) throws IOException {
+        int length = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = data.readUnsignedByte();
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 35);
+
+        if (length < 0 || length > bytesRead) {
+            throw new IllegalArgumentException("Invalid string length");
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the generation read from the header by the last load.
+     *
+     * @return The snapshot generation.
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the number of bytes in the file read by the last load.
+     *
+     * @return The number of bytes read.
+     */
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of tasks lost to truncation in the last load.
+     *
+     * @return The number of skipped tasks.
+     */
+    int getSkippedTasks() {
+        return skippedTasks;
+    }
+}
@@ -0,0 +1,337 @@
+package reverie.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Represents the write-ahead journal that sits next to the snapshot data file.
+ * A <code>Journal</code> stores one small record per mutation (add, mark, unmark or delete)
+ * so that a change does not require the whole task list to be rewritten.
+ * An added task is written in the snapshot's text format, or, next to a binary snapshot,
+ * as a Base64 binary task record, which keeps a description containing the text separator intact.
+ * A mark, unmark or delete of many tasks at once is a single record listing their indices,
+ * with runs of consecutive indices written as ranges such as <code>9-499</code>.
+ * Each journal segment starts with a header naming the snapshot generation it applies to.
+ */
+public class Journal {
+    static final String HEADER_PREFIX = "# base ";
+    static final String ADD = "A";
+    static final String BINARY_ADD = "B";
+    static final String MARK = "M";
+    static final String UNMARK = "U";
+    static final String DELETE = "X";
+    static final String SEPARATOR = " | ";
+    static final String INDEX_SEPARATOR = ",";
+    static final String RANGE_SEPARATOR = "-";
+
+    private final Path activePath;
+    private final Path compactingPath;
+    private final Consumer<String> warnings;
+    private long activeSize;
+
+    /**
+     * Represents a journal segment read back from disk.
+     */
+    static class Segment {
+        private final long base;
+        private final List<String> records;
+
+        Segment(long base, List<String> records) {
+            this.base = base;
+            this.records = records;
+        }
+
+        long getBase() {
+            return base;
+        }
+
+        List<String> getRecords() {
+            return records;
+        }
+    }
+
+    /**
+     * Constructs a Journal for the specified snapshot file.
+     * The journal files are placed next to the snapshot file.
+     *
+     * @param snapshotPath The path to the snapshot data file.
+     * @param warnings The function that displays a warning message.
+     */
+    public Journal(String snapshotPath, Consumer<String> warnings) {
+        this.activePath = Paths.get(snapshotPath + ".journal");
+        this.compactingPath = Paths.get(snapshotPath + ".journal.compacting");
+        this.warnings = warnings;
+        this.activeSize = sizeOf(activePath);
+    }
+
+    /**
+     * Creates a record for adding a task.
+     *
+     * @param taskLine The task in its snapshot file format.
+     * @return The journal record.
+     */
+    static String addRecord(String taskLine) {
+        return ADD + SEPARATOR + taskLine;
+    }
+
+    /**
+     * Creates a record for adding a task encoded as a binary task record.
+     *
+     * @param encodedTask The task as a Base64 binary task record.
+     * @return The journal record.
+     */
+    static String binaryAddRecord(String encodedTask) {
+        return BINARY_ADD + SEPARATOR + encodedTask;
+    }
+
+    /**
+     * Creates a record for marking or unmarking the task at the specified index.
+     *
+     * @param index The index of the task (0-based).
+     * @param isDone True for a mark record, false for an unmark record.
+     * @return The journal record.
+     */
+    static String markRecord(int index, boolean isDone) {
+        return (isDone ? MARK : UNMARK) + SEPARATOR + index;
+    }
+
+    /**
+     * Creates a record for marking or unmarking the tasks at the specified indices.
+     *
+     * @param indices The distinct indices of the tasks (0-based), in ascending order.
+     * @param isDone True for a mark record, false for an unmark record.
+     * @return The journal record.
+     */
+    static String markRecord(List<Integer> indices, boolean isDone) {
+        return (isDone ? MARK : UNMARK) + SEPARATOR + formatIndices(indices);
+    }
+
+    /**
+     * Creates a record for deleting the task at the specified index.
+     *
+     * @param index The index of the task (0-based).
+     * @return The journal record.
+     */
+    static String deleteRecord(int index) {
+        return DELETE + SEPARATOR + index;
+    }
+
+    /**
+     * Creates a record for deleting the tasks at the specified indices, all counted from before the deletion.
+     *
+     * @param indices The distinct indices of the tasks (0-based), in ascending order.
+     * @return The journal record.
+     */
+    static String deleteRecord(List<Integer> indices) {
+        return DELETE + SEPARATOR + formatIndices(indices);
+    }
+
+    /**
+     * Parses the indices of a mark, unmark or delete record.
+     *
+     * @param text The indices, such as <code>4</code> or <code>2,6,9-499</code>.
+     * @return The indices, in the order written.
+     * @throws NumberFormatException If an index is not a number.
+     */
+    static List<Integer> parseIndices(String text) {
+        List<Integer> indices = new ArrayList<>();
+        for (String part : text.trim().split(INDEX_SEPARATOR)) {
+            int separator = part.indexOf(RANGE_SEPARATOR);
+            int first = Integer.parseInt(separator < 0 ? part : part.substring(0, separator));
+            int last = separator < 0 ? first : Integer.parseInt(part.substring(separator + 1));
+            for (int index = first; index <= last; index++) {
+                indices.add(index);
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Writes indices as a list, with runs of consecutive indices written as ranges.
+     *
+     * @param indices The distinct indices, in ascending order.
+     * @return The indices, such as <code>2,6,9-499</code>.
+     */
+    private static String formatIndices(List<Integer> indices) {
+        StringBuilder builder = new StringBuilder();
+        int i = 0;
+        while (i < indices.size()) {
+            int first = indices.get(i);
+            int last = first;
+            while (i + 1 < indices.size() && indices.get(i + 1) == last + 1) {
+                last = indices.get(++i);
+            }
+            if (builder.length() > 0) {
+                builder.append(INDEX_SEPARATOR);
+            }
+            builder.append(first);
+            if (last > first) {
+                builder.append(RANGE_SEPARATOR).append(last);
+            }
+            i++;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends a record to the active journal segment and forces it to disk, so a confirmed change survives
+     * a power loss just as a snapshot save does.
+     * A header is written first if the segment does not exist yet.
+     *
+     * @param record The record to append.
+     * @param base The snapshot generation the active segment applies to.
+     * @throws IOException If the record cannot be written.
+     */
+    void append(String record, long base) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        boolean isNewSegment = !Files.exists(activePath);
+        if (isNewSegment) {
+            builder.append(HEADER_PREFIX).append(base).append(System.lineSeparator());
+            activeSize = 0;
+        }
+        builder.append(record).append(System.lineSeparator());
+
+        byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(activePath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        if (isNewSegment) {
+            syncDirectory(activePath);
+        }
+        activeSize += bytes.length;
+    }
+
+    /**
+     * Forces the directory entry of a newly created segment to disk where the platform allows it.
+     *
+     * @param path The segment that was created.
+     */
+    private static void syncDirectory(Path path) {
+        try (FileChannel channel = FileChannel.open(path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform allows opening a directory; the record itself is on disk
+        }
+    }
+
+    /**
+     * Returns the size of the active journal segment in bytes.
+     *
+     * @return The size of the active segment.
+     */
+    long size() {
+        return activeSize;
+    }
+
+    /**
+     * Moves the active segment aside so it can be folded into a new snapshot.
+     * New records go to a fresh active segment afterwards.
+     *
+     * @return True if the segment was moved, false if a compaction is still pending.
+     * @throws IOException If the segment cannot be moved.
+     */
+    boolean rotate() throws IOException {
+        if (Files.exists(compactingPath) || !Files.exists(activePath)) {
+            return false;
+        }
+        Files.move(activePath, compactingPath, StandardCopyOption.ATOMIC_MOVE);
+        activeSize = 0;
+        return true;
+    }
+
+    /**
+     * Checks if a segment left over from an unfinished compaction exists.
+     *
+     * @return True if a compacting segment exists, false otherwise.
+     */
+    boolean hasCompactingSegment() {
+        return Files.exists(compactingPath);
+    }
+
+    /**
+     * Deletes the segment that has been folded into a snapshot.
+     *
+     * @throws IOException If the segment cannot be deleted.
+     */
+    void deleteCompacted() throws IOException {
+        Files.deleteIfExists(compactingPath);
+    }
+
+    /**
+     * Deletes all journal segments.
+     *
+     * @throws IOException If a segment cannot be deleted.
+     */
+    void deleteAll() throws IOException {
+        Files.deleteIfExists(compactingPath);
+        Files.deleteIfExists(activePath);
+        activeSize = 0;
+    }
+
+    /**
+     * Reads all journal segments in the order they must be replayed.
+     *
+     * @return The segments, oldest first.
+     * @throws IOException If a segment cannot be read.
+     */
+    List<Segment> readSegments() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        for (Path path : List.of(compactingPath, activePath)) {
+            if (Files.exists(path)) {
+                segments.add(readSegment(path));
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Reads a single journal segment.
+     * A segment without a valid header is treated as applying to generation 0.
+     *
+     * @param path The path of the segment.
+     * @return The segment read.
+     * @throws IOException If the segment cannot be read.
+     */
+    private Segment readSegment(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        long base = 0;
+        if (!lines.isEmpty() && lines.get(0).startsWith(HEADER_PREFIX)) {
+            try {
+                base = Long.parseLong(lines.get(0).substring(HEADER_PREFIX.length()).trim());
+            } catch (NumberFormatException e) {
+                warnings.accept("Invalid journal header in " + path.getFileName());
+            }
+            lines = lines.subList(1, lines.size());
+        }
+        return new Segment(base, lines);
+    }
+
+    /**
+     * Returns the size of the file at the specified path, or 0 if it does not exist.
+     *
+     * @param path The file path.
+     * @return The size of the file in bytes.
+     */
+    private static long sizeOf(Path path) {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -1,23 +1,79 @@
 package reverie.storage;
 
 import reverie.exception.ReverieException;
+import reverie.index.TaskSequence;
+import reverie.index.TaskSnapshot;
+import reverie.parser.DateTimeParser;
 import reverie.task.*;
+import reverie.ui.TaskList;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 /**
  * Represents the storage handler for the Reverie chatbot.
  * A <code>Storage</code> object handles reading from and writing to
  * the data file that stores task information.
+ * In journal mode, mutations are appended to a write-ahead journal instead of
+ * rewriting the data file, and the journal is compacted into a new snapshot in the background.
+ * In write-behind mode, bursts of mutations are coalesced into one save on a background thread.
+ * With saves deferred, mutations are only persisted, as one snapshot, when {@link #flush()} is called.
  */
 public class Storage {
     private final String filePath;
     private static final String DELIMITER = " \\| ";
     private static final String DONE_MARKER = "1";
+    private static final String UNRESOLVED_MARKER = "-";
+    private static final String SNAPSHOT_HEADER_PREFIX = "# gen ";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String BACKUP_SUFFIX = ".bak";
+    private static final long COMPACTION_THRESHOLD_BYTES = 1024 * 1024;
+
+    private final boolean isJournalEnabled;
+    private StorageFormat format = StorageFormat.TEXT;
+    private boolean isFormatExplicit;
+    private final Journal journal;
+    private Consumer<String> warningOutput = message -> System.out.println(" Warning: " + message);
+    private final Object snapshotLock = new Object();
+    private WriteBehindWriter writeBehind;
+    private boolean isLazyLoading;
+    private boolean isDeferred;
+    private TaskList deferredTasks;
+    private ExecutorService compactor;
+    private volatile boolean isCompacting;
+    private long generation;
+    private long journalBase;
+    private long lastLoadNanos;
+    private long lastLoadBytes;
+    private int lastLoadCount;
+    private int lastLoadSkipped;
+    private boolean isLastLoadTorn;
+    private int lastLoadChunks;
+    private int saveCount;
+    private int lastSaveCount;
+    private long lastSaveNanos;
+    private long lastSyncNanos;
+    private long totalSaveNanos;
+    private long totalSyncNanos;
 
     /**
      * Constructs a Storage object with the specified file path.
@@ -26,7 +82,20 @@ public class Storage {
      * @param filePath The path to the data file.
      */
     public Storage(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Constructs a Storage object with the specified file path and journal mode.
+     * Creates the data directory if it doesn't exist.
+     *
+     * @param filePath The path to the data file.
+     * @param isJournalEnabled Whether mutations are appended to a journal instead of rewriting the file.
+     */
+    public Storage(String filePath, boolean isJournalEnabled) {
         this.filePath = filePath;
+        this.isJournalEnabled = isJournalEnabled;
+        this.journal = new Journal(filePath, this::warn);
         createDataDirectory();
     }
 
@@ -38,88 +107,707 @@ public class Storage {
         File file = new File(filePath);
         File directory = file.getParentFile();
         if (directory != null && !directory.exists() && !directory.mkdirs()) {
-            System.out.println(" Warning: Could not create data directory");
+            warn("Could not create data directory");
         }
     }
 
     /**
      * Saves the list of tasks to the data file.
-     * Overwrites any existing content in the file.
+     * Replaces the file atomically and discards the journal,
+     * since the new snapshot already contains every journaled change.
      *
      * @param tasks The list of tasks to save.
      * @throws ReverieException If there is an error writing to the file.
      */
-    public void save(ArrayList<Task> tasks) throws ReverieException {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            writeTasksToFile(writer, tasks);
+    public void save(Collection<Task> tasks) throws ReverieException {
+        synchronized (snapshotLock) {
+            try {
+                if (isJournalEnabled) {
+                    writeSnapshot(tasks, generation + 1);
+                    journalBase = generation;
+                } else {
+                    writeSnapshot(tasks, generation);
+                }
+                journal.deleteAll();
+            } catch (IOException e) {
+                throw new ReverieException("Error saving tasks to file: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the format the data file is written in.
+     * Unless a format was set explicitly, this is the format the existing file was detected to be in.
+     *
+     * @return The current storage format.
+     */
+    public StorageFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Sets the format the data file is written in from the next save onwards.
+     * An explicitly set format is kept even if a file in the other format is loaded.
+     *
+     * @param format The storage format to write.
+     */
+    public void setFormat(StorageFormat format) {
+        this.format = format;
+        this.isFormatExplicit = true;
+    }
+
+    /**
+     * Converts the data file to the specified format in one go.
+     * Loads the current file in whatever format it is in, then saves it in the new format.
+     *
+     * @param newFormat The format to convert to.
+     * @return The number of tasks converted.
+     * @throws ReverieException If the file cannot be read or written.
+     */
+    public int convertTo(StorageFormat newFormat) throws ReverieException {
+        ArrayList<Task> tasks = load();
+        setFormat(newFormat);
+        save(tasks);
+        return tasks.size();
+    }
+
+    /**
+     * Sets where warnings about the data file and the journal are displayed, such as the UI of the session,
+     * so that they appear in order with its output. Warnings go to standard output until this is set.
+     *
+     * @param warningOutput The function that displays a warning message.
+     */
+    public void setWarningOutput(Consumer<String> warningOutput) {
+        this.warningOutput = warningOutput;
+    }
+
+    /**
+     * Displays a warning about the data file or the journal.
+     *
+     * @param message The warning message.
+     */
+    private void warn(String message) {
+        warningOutput.accept(message);
+    }
+
+    /**
+     * Enables lazy loading, in which a binary data file is kept open instead of being read in full,
+     * and descriptions are only decoded from it when their tasks are displayed or searched.
+     * Tasks are then always kept in the columnar layout.
+     */
+    public void enableLazyLoading() {
+        isLazyLoading = true;
+    }
+
+    /**
+     * Enables write-behind mode, in which mutations are saved on a background thread.
+     * Changes made within the delay of each other are written in a single save.
+     * Journal mode takes precedence if both are enabled.
+     * Pending changes are also flushed when the JVM shuts down.
+     *
+     * @param delayMillis How long to wait after a change before saving, in milliseconds.
+     */
+    public void enableWriteBehind(long delayMillis) {
+        writeBehind = new WriteBehindWriter(this, delayMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                flush();
+            } catch (ReverieException e) {
+                System.out.println(" Error: " + e.getMessage());
+            }
+        }, "reverie-shutdown-flush"));
+    }
+
+    /**
+     * Holds back every change until {@link #flush()} is called instead of persisting each one as it is made,
+     * so that a long run of commands is written as a single snapshot.
+     * Deferring takes precedence over journal and write-behind modes.
+     */
+    public void deferSaves() {
+        isDeferred = true;
+    }
+
+    /**
+     * Writes out any changes that are still held back or pending in the background and waits for them.
+     *
+     * @throws ReverieException If the pending changes cannot be written.
+     */
+    public void flush() throws ReverieException {
+        if (deferredTasks != null) {
+            save(deferredTasks.snapshot());
+            deferredTasks = null;
+        }
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
+    /**
+     * Returns the message of the last failed background save and clears it.
+     *
+     * @return The failure message, or null if no background save has failed.
+     */
+    public String takeWriteFailure() {
+        return writeBehind == null ? null : writeBehind.takeFailure();
+    }
+
+    /**
+     * Records that a task has been added to the task list.
+     *
+     * @param tasks The task list after the addition.
+     * @param task The task that was added.
+     * @throws ReverieException If the change cannot be persisted.
+     */
+    public void recordAdd(TaskList tasks, Task task) throws ReverieException {
+        // The text format cannot hold a description containing its separator, which the binary format can
+        record(tasks, format == StorageFormat.BINARY
+                ? Journal.binaryAddRecord(new BinaryTaskCodec().encodeTask(task))
+                : Journal.addRecord(taskToFileFormat(task)));
+    }
+
+    /**
+     * Records that a task has been marked or unmarked.
+     *
+     * @param tasks The task list after the change.
+     * @param index The index of the task (0-based).
+     * @param isDone True if the task was marked as done, false if it was unmarked.
+     * @throws ReverieException If the change cannot be persisted.
+     */
+    public void recordMark(TaskList tasks, int index, boolean isDone) throws ReverieException {
+        record(tasks, Journal.markRecord(index, isDone));
+    }
+
+    /**
+     * Records that several tasks have been marked or unmarked at once, persisting the change once.
+     *
+     * @param tasks The task list after the change.
+     * @param indices The distinct indices of the tasks (0-based), in ascending order.
+     * @param isDone True if the tasks were marked as done, false if they were unmarked.
+     * @throws ReverieException If the change cannot be persisted.
+     */
+    public void recordMarks(TaskList tasks, List<Integer> indices, boolean isDone) throws ReverieException {
+        record(tasks, Journal.markRecord(indices, isDone));
+    }
+
+    /**
+     * Records that a task has been deleted from the task list.
+     *
+     * @param tasks The task list after the deletion.
+     * @param index The index the task was deleted from (0-based).
+     * @throws ReverieException If the change cannot be persisted.
+     */
+    public void recordDelete(TaskList tasks, int index) throws ReverieException {
+        record(tasks, Journal.deleteRecord(index));
+    }
+
+    /**
+     * Records that several tasks have been deleted at once, persisting the change once.
+     *
+     * @param tasks The task list after the deletion.
+     * @param indices The distinct indices the tasks were deleted from (0-based), in ascending order,
+     *     counted from before the deletion.
+     * @throws ReverieException If the change cannot be persisted.
+     */
+    public void recordDeletes(TaskList tasks, List<Integer> indices) throws ReverieException {
+        record(tasks, Journal.deleteRecord(indices));
+    }
+
+    /**
+     * Persists a single mutation.
+     * With saves deferred the list is only noted as changed, in journal mode the record is appended
+     * to the journal, in write-behind mode a background save is scheduled, otherwise the whole list is saved.
+     *
+     * @param tasks The task list after the mutation.
+     * @param record The journal record describing the mutation.
+     * @throws ReverieException If the change cannot be persisted.
+     */
+    private void record(TaskList tasks, String record) throws ReverieException {
+        if (isDeferred) {
+            deferredTasks = tasks;
+            return;
+        }
+        if (!isJournalEnabled) {
+            if (writeBehind != null) {
+                writeBehind.schedule(tasks);
+            } else {
+                save(tasks.snapshot());
+            }
+            return;
+        }
+
+        try {
+            journal.append(record, journalBase);
+        } catch (IOException e) {
+            throw new ReverieException("Error writing to journal: " + e.getMessage());
+        }
+
+        if (journal.size() >= COMPACTION_THRESHOLD_BYTES) {
+            startCompaction(tasks);
+        }
+    }
+
+    /**
+     * Starts folding the journal into a new snapshot on the background compactor thread.
+     * New records keep going to a fresh journal segment while the snapshot is written.
+     *
+     * @param tasks The task list to snapshot.
+     */
+    private void startCompaction(TaskList tasks) {
+        if (isCompacting) {
+            return;
+        }
+
+        TaskSnapshot snapshot = tasks.snapshot();
+        try {
+            if (!journal.rotate()) {
+                return;
+            }
+        } catch (IOException e) {
+            warn("Could not rotate journal: " + e.getMessage());
+            return;
+        }
+
+        long targetGeneration = journalBase + 1;
+        journalBase = targetGeneration;
+        isCompacting = true;
+        getCompactor().submit(() -> compact(snapshot, targetGeneration));
+    }
+
+    /**
+     * Writes a snapshot for the specified generation and deletes the journal segment it replaces.
+     * Skips writing if a newer snapshot has already been saved in the meantime.
+     *
+     * @param snapshot The tasks to write.
+     * @param targetGeneration The generation of the new snapshot.
+     */
+    private void compact(TaskSnapshot snapshot, long targetGeneration) {
+        synchronized (snapshotLock) {
+            try {
+                if (generation < targetGeneration) {
+                    writeSnapshot(snapshot, targetGeneration);
+                }
+                journal.deleteCompacted();
+            } catch (IOException e) {
+                warn("Journal compaction failed: " + e.getMessage());
+            } finally {
+                isCompacting = false;
+            }
+        }
+    }
+
+    /**
+     * Returns the single-threaded executor used for background compaction, creating it if needed.
+     *
+     * @return The compactor executor.
+     */
+    private ExecutorService getCompactor() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reverie-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactor;
+    }
+
+    /**
+     * Writes a snapshot to a temporary file, forces it to disk and moves it over the data file.
+     * The previous data file is kept as a backup, so a crash at any point leaves at least one intact copy.
+     * In journal mode, text snapshots start with a generation header.
+     *
+     * @param tasks The tasks to write.
+     * @param newGeneration The generation of the snapshot.
+     * @throws IOException If there is an error writing the snapshot.
+     */
+    private void writeSnapshot(Collection<Task> tasks, long newGeneration) throws IOException {
+        Path target = Paths.get(filePath);
+        Path temp = Paths.get(filePath + TEMP_SUFFIX);
+        long startTime = System.nanoTime();
+        long syncNanos;
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            if (format == StorageFormat.BINARY) {
+                new BinaryTaskCodec().write(out, tasks, newGeneration);
+            } else {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                if (isJournalEnabled) {
+                    writer.write(SNAPSHOT_HEADER_PREFIX + newGeneration + System.lineSeparator());
+                }
+                writeTasksToFile(writer, tasks);
+                writer.flush();
+            }
+            out.flush();
+
+            long syncStart = System.nanoTime();
+            channel.force(true);
+            syncNanos = System.nanoTime() - syncStart;
+        }
+
+        keepBackup(target);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncNanos += syncDirectory(target);
+        generation = newGeneration;
+
+        saveCount++;
+        lastSaveCount = tasks.size();
+        lastSaveNanos = System.nanoTime() - startTime;
+        lastSyncNanos = syncNanos;
+        totalSaveNanos += lastSaveNanos;
+        totalSyncNanos += syncNanos;
+    }
+
+    /**
+     * Keeps the current data file as the rolling backup before it is replaced.
+     * A hard link is used where possible so that the data file itself is never missing.
+     *
+     * @param target The data file about to be replaced.
+     * @throws IOException If the backup cannot be created.
+     */
+    private void keepBackup(Path target) throws IOException {
+        if (!Files.exists(target)) {
+            return;
+        }
+        Path backup = Paths.get(filePath + BACKUP_SUFFIX);
+        Files.deleteIfExists(backup);
+        try {
+            Files.createLink(backup, target);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(target, backup, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces the directory entry of the renamed data file to disk where the platform allows it.
+     *
+     * @param target The data file that was renamed into place.
+     * @return The time spent syncing, in nanoseconds.
+     */
+    private long syncDirectory(Path target) {
+        Path directory = target.toAbsolutePath().getParent();
+        long startTime = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException e) {
-            throw new ReverieException("Error saving tasks to file: " + e.getMessage());
+            // Not every platform allows opening a directory; the rename is still atomic
         }
+        return System.nanoTime() - startTime;
     }
 
     /**
-     * Writes all tasks to the file using the specified FileWriter.
+     * Writes all tasks to the file using the specified Writer.
      *
-     * @param writer The FileWriter to use for writing.
+     * @param writer The Writer to use for writing.
      * @param tasks The list of tasks to write.
      * @throws IOException If there is an error writing to the file.
      */
-    private void writeTasksToFile(FileWriter writer, ArrayList<Task> tasks) throws IOException {
+    private void writeTasksToFile(Writer writer, Collection<Task> tasks) throws IOException {
         for (Task task : tasks) {
             writer.write(taskToFileFormat(task) + System.lineSeparator());
         }
     }
 
     /**
-     * Loads tasks from the data file.
-     * Returns an empty list if the file doesn't exist.
+     * Loads the data file into a new task list, lazily if lazy loading is enabled.
+     * Only an intact binary data file can be loaded lazily; any other file is loaded in full.
+     *
+     * @param isColumnar True to keep the tasks in the columnar layout, false to keep task objects.
+     * @return The loaded task list.
+     * @throws ReverieException If there is an error reading from the file.
+     */
+    public TaskList loadTaskList(boolean isColumnar) throws ReverieException {
+        if (!isLazyLoading) {
+            return new TaskList(load(), isColumnar);
+        }
+
+        File file = new File(filePath);
+        long startTime = System.nanoTime();
+        try {
+            if (file.exists() && BinaryTaskCodec.isBinary(file.toPath())) {
+                BinaryTaskCodec codec = new BinaryTaskCodec();
+                TaskSequence lazyTasks = codec.loadLazily(file.toPath());
+                if (lazyTasks != null) {
+                    detectFormat(StorageFormat.BINARY);
+                    generation = codec.getGeneration();
+                    lastLoadBytes = codec.getBytesRead();
+                    lastLoadSkipped = 0;
+                    isLastLoadTorn = false;
+                    lastLoadChunks = 1;
+                    lastLoadNanos = System.nanoTime() - startTime;
+                    lastLoadCount = lazyTasks.size();
+                    replayJournal(lazyTasks);
+                    return new TaskList(lazyTasks);
+                }
+            } else if (file.exists()) {
+                warn("Lazy loading needs a binary data file, loading the text file in full");
+            }
+        } catch (IOException e) {
+            throw new ReverieException("Error reading file: " + e.getMessage());
+        }
+        return new TaskList(load(), true);
+    }
+
+    /**
+     * Loads tasks from the data file and replays any journal on top of it.
+     * Returns an empty list if neither the file nor a journal exists.
      *
      * @return A list of tasks loaded from the file.
      * @throws ReverieException If there is an error reading from the file.
      */
     public ArrayList<Task> load() throws ReverieException {
         File file = new File(filePath);
-        if (!file.exists()) {
-            return new ArrayList<>();
+        ArrayList<Task> loadedTasks = file.exists() ? loadWithRecovery(file) : new ArrayList<>();
+        replayJournal(loadedTasks);
+        return loadedTasks;
+    }
+
+    /**
+     * Loads tasks from the data file, falling back to the backup if the data file is damaged.
+     * The damaged file's tasks are kept if the backup is missing or damaged as well.
+     *
+     * @param file The data file to load tasks from.
+     * @return A list of loaded tasks.
+     * @throws ReverieException If neither the data file nor the backup can be read.
+     */
+    private ArrayList<Task> loadWithRecovery(File file) throws ReverieException {
+        File backup = new File(filePath + BACKUP_SUFFIX);
+        ArrayList<Task> loadedTasks;
+        try {
+            loadedTasks = loadTasksFromFile(file);
+            if (!isLastLoadTorn || !backup.exists()) {
+                return loadedTasks;
+            }
+        } catch (ReverieException e) {
+            if (!backup.exists()) {
+                throw e;
+            }
+            loadedTasks = null;
         }
-        return loadTasksFromFile(file);
+
+        long damagedGeneration = generation;
+        ArrayList<Task> recoveredTasks;
+        try {
+            recoveredTasks = loadTasksFromFile(backup);
+        } catch (ReverieException e) {
+            if (loadedTasks == null) {
+                throw e;
+            }
+            warn("Data file is damaged and " + backup.getName() + " cannot be read, keeping the "
+                    + loadedTasks.size() + " task(s) that could be read");
+            generation = damagedGeneration;
+            return loadedTasks;
+        }
+        if (isLastLoadTorn && loadedTasks != null) {
+            generation = damagedGeneration;
+            return loadedTasks;
+        }
+        warn("Data file is damaged, recovered " + recoveredTasks.size() + " task(s) from " + backup.getName());
+        return recoveredTasks;
     }
 
     /**
-     * Loads tasks from the specified file.
-     * Skips corrupted lines and displays warnings for them.
+     * Loads tasks from the specified file, detecting whether it is in the text or binary format.
+     * Skips corrupted lines and displays warnings for them, and records the load throughput.
      *
      * @param file The file to load tasks from.
      * @return A list of loaded tasks.
      * @throws ReverieException If there is an error reading from the file.
      */
     private ArrayList<Task> loadTasksFromFile(File file) throws ReverieException {
-        ArrayList<Task> loadedTasks = new ArrayList<>();
-        try (Scanner scanner = new Scanner(file)) {
-            while (scanner.hasNextLine()) {
-                processLine(scanner.nextLine(), loadedTasks);
+        long startTime = System.nanoTime();
+        try {
+            ArrayList<Task> loadedTasks;
+            if (BinaryTaskCodec.isBinary(file.toPath())) {
+                BinaryTaskCodec codec = new BinaryTaskCodec();
+                loadedTasks = codec.load(file.toPath());
+                detectFormat(StorageFormat.BINARY);
+                generation = codec.getGeneration();
+                lastLoadBytes = codec.getBytesRead();
+                lastLoadSkipped = codec.getSkippedTasks();
+                isLastLoadTorn = codec.getSkippedTasks() > 0;
+                lastLoadChunks = 1;
+                if (isLastLoadTorn) {
+                    warn("Data file is truncated, skipping " + codec.getSkippedTasks() + " task(s)");
+                }
+            } else {
+                TaskFileLoader loader =
+                        new TaskFileLoader(this::createTaskFromParts, SNAPSHOT_HEADER_PREFIX, this::warn);
+                loadedTasks = loader.load(file.toPath());
+                detectFormat(StorageFormat.TEXT);
+                generation = loader.getGeneration();
+                lastLoadBytes = loader.getBytesRead();
+                lastLoadSkipped = loader.getSkippedLines();
+                isLastLoadTorn = !loader.isComplete();
+                lastLoadChunks = loader.getChunkCount();
             }
-        } catch (FileNotFoundException e) {
+            lastLoadNanos = System.nanoTime() - startTime;
+            lastLoadCount = loadedTasks.size();
+            return loadedTasks;
+        } catch (IOException e) {
             throw new ReverieException("Error reading file: " + e.getMessage());
         }
-        return loadedTasks;
     }
 
     /**
-     * Processes a single line from the data file and adds the parsed task to the list.
-     * Displays a warning and skips the line if it's corrupted.
+     * Adopts the format of the loaded file for future saves, unless a format was set explicitly.
+     *
+     * @param detectedFormat The format the data file was found to be in.
+     */
+    private void detectFormat(StorageFormat detectedFormat) {
+        if (!isFormatExplicit) {
+            format = detectedFormat;
+        }
+    }
+
+    /**
+     * Returns a description of the last load and of save durability costs for display.
+     *
+     * @return The lines describing storage statistics.
+     */
+    public List<String> getStatistics() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Data file format: " + format.name().toLowerCase());
+        if (lastLoadNanos == 0) {
+            lines.add("Last load: nothing loaded yet");
+        } else {
+            double seconds = lastLoadNanos / 1_000_000_000.0;
+            double megabytes = lastLoadBytes / (1024.0 * 1024.0);
+            lines.add(String.format("Last load: %d task(s), %d skipped line(s), %.2f MB in %.1f ms",
+                    lastLoadCount, lastLoadSkipped, megabytes, seconds * 1000));
+            lines.add(String.format("Load throughput: %.1f MB/s, %.0f tasks/s, %d chunk(s) on up to %d thread(s)",
+                    megabytes / seconds, lastLoadCount / seconds, lastLoadChunks,
+                    Math.min(lastLoadChunks, ForkJoinPool.commonPool().getParallelism())));
+        }
+        if (saveCount > 0) {
+            lines.add(String.format("Last save: %d task(s) in %.1f ms, of which %.1f ms waiting for fsync",
+                    lastSaveCount, lastSaveNanos / 1_000_000.0, lastSyncNanos / 1_000_000.0));
+            lines.add(String.format("Durability cost: fsync is %.0f%% of save time over %d save(s)",
+                    100.0 * totalSyncNanos / totalSaveNanos, saveCount));
+        }
+        return lines;
+    }
+
+    /**
+     * Replays the journal segments that are newer than the loaded snapshot.
+     * A segment left behind by an interrupted compaction is folded into a fresh snapshot.
      *
-     * @param line The line to process.
-     * @param tasks The list to add the parsed task to.
+     * @param tasks The tasks loaded from the snapshot.
+     * @throws ReverieException If the journal cannot be read or folded.
      */
-    private void processLine(String line, ArrayList<Task> tasks) {
+    private void replayJournal(List<Task> tasks) throws ReverieException {
+        journalBase = generation;
         try {
-            Task task = parseTaskFromFile(line);
-            if (task != null) {
-                tasks.add(task);
+            for (Journal.Segment segment : journal.readSegments()) {
+                if (segment.getBase() < generation) {
+                    // Already contained in the snapshot
+                    continue;
+                }
+                for (String record : segment.getRecords()) {
+                    applyRecord(record, tasks);
+                }
+            }
+            if (isJournalEnabled && journal.hasCompactingSegment()) {
+                save(tasks);
+            }
+        } catch (IOException e) {
+            throw new ReverieException("Error reading journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Marks or unmarks tasks during journal replay.
+     * A {@link TaskSequence} changes only the done flag in place, which keeps a columnar store from appending
+     * a fresh copy of each task's text; tasks of other lists are changed and stored back.
+     *
+     * @param tasks The task list.
+     * @param indices The indices of the tasks (0-based).
+     * @param isDone True to mark the tasks as done, false to mark them as not done.
+     */
+    private static void setDone(List<Task> tasks, List<Integer> indices, boolean isDone) {
+        checkIndices(tasks, indices);
+        if (tasks instanceof TaskSequence sequence) {
+            for (int index : indices) {
+                sequence.setDone(index, isDone);
+            }
+            return;
+        }
+        for (int index : indices) {
+            Task task = tasks.get(index);
+            if (isDone) {
+                task.markAsDone();
+            } else {
+                task.markAsUndone();
+            }
+            tasks.set(index, task);
+        }
+    }
+
+    /**
+     * Deletes tasks during journal replay, with every index counted from before the deletion.
+     * A {@link TaskSequence} deletes each task in O(log n) time, so its tasks are deleted from the last one back;
+     * other lists are compacted in a single pass instead of shifting the tail once per task.
+     *
+     * @param tasks The task list.
+     * @param indices The distinct indices of the tasks (0-based), in ascending order.
+     */
+    private static void removeAll(List<Task> tasks, List<Integer> indices) {
+        checkIndices(tasks, indices);
+        if (tasks instanceof TaskSequence || indices.size() == 1) {
+            for (int i = indices.size() - 1; i >= 0; i--) {
+                tasks.remove((int) indices.get(i));
+            }
+            return;
+        }
+
+        int kept = 0;
+        int next = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (next < indices.size() && indices.get(next) == i) {
+                next++;
+            } else {
+                tasks.set(kept++, tasks.get(i));
+            }
+        }
+        tasks.subList(kept, tasks.size()).clear();
+    }
+
+    /**
+     * Checks that every index of a journal record is within the list, so a corrupted record changes nothing.
+     *
+     * @param tasks The task list.
+     * @param indices The indices of the record (0-based).
+     * @throws IndexOutOfBoundsException If an index is out of bounds.
+     */
+    private static void checkIndices(List<Task> tasks, List<Integer> indices) {
+        for (int index : indices) {
+            if (index < 0 || index >= tasks.size()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + tasks.size());
+            }
+        }
+    }
+
+    /**
+     * Applies a single journal record to the task list.
+     * Displays a warning and skips the record if it's corrupted.
+     *
+     * @param record The record to apply.
+     * @param tasks The task list to apply the record to.
+     */
+    private void applyRecord(String record, List<Task> tasks) {
+        try {
+            String[] parts = record.split(DELIMITER, 2);
+            switch (parts[0].trim()) {
+            case Journal.ADD -> tasks.add(parseTaskFromFile(parts[1]));
+            case Journal.BINARY_ADD -> tasks.add(new BinaryTaskCodec().decodeTask(parts[1]));
+            case Journal.MARK -> setDone(tasks, Journal.parseIndices(parts[1]), true);
+            case Journal.UNMARK -> setDone(tasks, Journal.parseIndices(parts[1]), false);
+            case Journal.DELETE -> removeAll(tasks, Journal.parseIndices(parts[1]));
+            default -> throw new ReverieException("Unknown journal record: " + parts[0]);
             }
         } catch (Exception e) {
-            System.out.println(" Warning: Skipping corrupted line: " + line);
+            warn("Skipping corrupted journal record: " + record);
         }
     }
 
@@ -163,7 +851,8 @@ public class Storage {
      */
     private String formatDeadline(Deadline deadline, String isDone) {
         return "D | " + isDone + " | " + deadline.getDescription() + " | " +
-                deadline.getByString() + " | " + (deadline.hasTime() ? "1" : "0");
+                deadline.getByString() + " | " + (deadline.hasTime() ? "1" : "0") + " | " +
+                formatResolved(deadline.getByDateTime());
     }
 
     /**
@@ -176,7 +865,30 @@ public class Storage {
     private String formatEvent(Event event, String isDone) {
         return "E | " + isDone + " | " + event.getDescription() + " | " +
                 event.getFromString() + " | " + event.getToString() + " | " +
-                (event.hasTime() ? "1" : "0");
+                (event.hasTime() ? "1" : "0") + " | " +
+                formatResolved(event.getFromDateTime()) + " | " + formatResolved(event.getToDateTime());
+    }
+
+    /**
+     * Formats an already resolved date-time in canonical ISO form for file storage.
+     * Storing the resolved value keeps time-only inputs on the day they were entered.
+     *
+     * @param dateTime The resolved date-time, or null if the date is plain text.
+     * @return The canonical string, or the unresolved marker.
+     */
+    private String formatResolved(LocalDateTime dateTime) {
+        return dateTime == null ? UNRESOLVED_MARKER : dateTime.toString();
+    }
+
+    /**
+     * Parses a canonical date-time field written by {@link #formatResolved(LocalDateTime)}.
+     *
+     * @param field The field to parse.
+     * @return The resolved date-time, or null for the unresolved marker.
+     */
+    private LocalDateTime parseResolved(String field) {
+        String trimmed = field.trim();
+        return trimmed.equals(UNRESOLVED_MARKER) ? null : DateTimeParser.parseCanonical(trimmed);
     }
 
     /**
@@ -187,7 +899,17 @@ public class Storage {
      * @throws ReverieException If the line format is invalid.
      */
     private Task parseTaskFromFile(String line) throws ReverieException {
-        String[] parts = line.split(DELIMITER);
+        return createTaskFromParts(line.split(DELIMITER));
+    }
+
+    /**
+     * Creates a task from the fields of a file format line.
+     *
+     * @param parts The parts of the split line.
+     * @return The created Task object.
+     * @throws ReverieException If the line format is invalid.
+     */
+    private Task createTaskFromParts(String[] parts) throws ReverieException {
         validateBasicFormat(parts);
 
         String taskType = parts[0].trim();
@@ -250,7 +972,8 @@ public class Storage {
 
     /**
      * Creates a Deadline task from file parts.
-     * Supports both old format (without time flag) and new format (with time flag).
+     * Supports the old formats (without time flag, or without resolved date-time), which are
+     * re-parsed, and the current format, which is rebuilt from the stored resolved date-time.
      *
      * @param description The task description.
      * @param parts The parts of the split line.
@@ -265,6 +988,10 @@ public class Storage {
             // New format with hasTime flag
             boolean hasTime = parts[4].trim().equals("1");
             return new Deadline(description, parts[3].trim(), hasTime);
+        } else if (parts.length == 6) {
+            // Current format with resolved date-time
+            boolean hasTime = parts[4].trim().equals("1");
+            return new Deadline(description, parts[3].trim(), parseResolved(parts[5]), hasTime);
         } else {
             throw new ReverieException("Invalid Deadline format");
         }
@@ -272,7 +999,8 @@ public class Storage {
 
     /**
      * Creates an Event task from file parts.
-     * Supports both old format (without time flag) and new format (with time flag).
+     * Supports the old formats (without time flag, or without resolved date-times), which are
+     * re-parsed, and the current format, which is rebuilt from the stored resolved date-times.
      *
      * @param description The task description.
      * @param parts The parts of the split line.
@@ -287,6 +1015,11 @@ public class Storage {
             // New format with hasTime flag
             boolean hasTime = parts[5].trim().equals("1");
             return new Event(description, parts[3].trim(), parts[4].trim(), hasTime);
+        } else if (parts.length == 8) {
+            // Current format with resolved date-times
+            boolean hasTime = parts[5].trim().equals("1");
+            return new Event(description, parts[3].trim(), parts[4].trim(),
+                    parseResolved(parts[6]), parseResolved(parts[7]), hasTime);
         } else {
             throw new ReverieException("Invalid Event format");
         }
@@ -0,0 +1,11 @@
+package reverie.storage;
+
+/**
+ * Represents the on-disk formats the data file can be written in.
+ */
+public enum StorageFormat {
+    /** Human-readable pipe-delimited lines, one task per line. */
+    TEXT,
+    /** Compact binary records behind a versioned header. */
+    BINARY
+}
@@ -0,0 +1,536 @@
+package reverie.storage;
+
+import reverie.exception.ReverieException;
+import reverie.task.Task;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Represents a bulk loader for the pipe-delimited data file.
+ * A <code>TaskFileLoader</code> reads the file through a <code>FileChannel</code> in large blocks
+ * and scans the raw bytes for <code>" | "</code> delimiters and line breaks, so that no regex is run
+ * and only the fields that are actually needed are turned into strings.
+ * Large files are split into line-aligned chunks that are parsed in parallel on a
+ * <code>ForkJoinPool</code> and stitched back together in file order.
+ */
+class TaskFileLoader {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_FIELDS = 8;
+    private static final long PARALLEL_THRESHOLD_BYTES = 4L << 20;
+    private static final long MAX_CHUNK_BYTES = 64L << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final byte PIPE = '|';
+    private static final byte SPACE = ' ';
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final TaskFactory factory;
+    private final String headerPrefix;
+    private final ForkJoinPool pool;
+    private final Consumer<String> warnings;
+
+    private long generation;
+    private long bytesRead;
+    private int skippedLines;
+    private boolean isComplete;
+    private int chunkCount;
+
+    /**
+     * Represents a function that creates a task from the fields of a data file line.
+     * The array has the same layout as splitting the line on the delimiter.
+     * It must be safe to call from several threads at once.
+     */
+    interface TaskFactory {
+        Task create(String[] parts) throws ReverieException;
+    }
+
+    /**
+     * Constructs a TaskFileLoader that creates tasks with the specified factory.
+     *
+     * @param factory The factory used to create tasks from line fields.
+     * @param headerPrefix The prefix of the optional snapshot header on the first line.
+     * @param warnings The function that displays a warning message, which may be called from several threads.
+     */
+    TaskFileLoader(TaskFactory factory, String headerPrefix, Consumer<String> warnings) {
+        this.factory = factory;
+        this.headerPrefix = headerPrefix;
+        this.warnings = warnings;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Loads all tasks from the specified file.
+     * Files above the parallel threshold are parsed in chunks on several threads.
+     * Skips corrupted lines and displays warnings for them, naming the line number.
+     *
+     * @param path The file to load tasks from.
+     * @return A list of loaded tasks, in file order.
+     * @throws IOException If there is an error reading from the file.
+     */
+    ArrayList<Task> load(Path path) throws IOException {
+        generation = 0;
+        bytesRead = 0;
+        skippedLines = 0;
+        isComplete = true;
+        chunkCount = 1;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= PARALLEL_THRESHOLD_BYTES && pool.getParallelism() > 1) {
+                return loadParallel(channel, size);
+            }
+            ChunkParser parser = new ChunkParser(true);
+            loadSequential(channel, parser);
+            return finish(List.of(parser));
+        }
+    }
+
+    /**
+     * Streams the whole file through a single parser.
+     *
+     * @param channel The channel to read from.
+     * @param parser The parser to feed lines to.
+     * @throws IOException If there is an error reading from the file.
+     */
+    private void loadSequential(FileChannel channel, ChunkParser parser) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int start = 0;
+        int end = 0;
+
+        while (true) {
+            int read = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+            if (read == -1) {
+                if (start < end) {
+                    isComplete = parser.processLine(buffer, start, end);
+                }
+                break;
+            }
+            bytesRead += read;
+            end += read;
+
+            start = parser.processLines(buffer, start, end);
+
+            if (start == 0 && end == buffer.length) {
+                // A single line is longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+        }
+    }
+
+    /**
+     * Splits the file into line-aligned chunks and parses them in parallel.
+     *
+     * @param channel The channel to read from.
+     * @param size The size of the file in bytes.
+     * @return A list of loaded tasks, in file order.
+     * @throws IOException If there is an error reading from the file.
+     */
+    private ArrayList<Task> loadParallel(FileChannel channel, long size) throws IOException {
+        long[] boundaries = findChunkBoundaries(channel, size);
+        chunkCount = boundaries.length - 1;
+
+        List<Callable<ChunkParser>> jobs = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            long chunkStart = boundaries[i];
+            long chunkEnd = boundaries[i + 1];
+            boolean isFirstChunk = i == 0;
+            jobs.add(() -> parseChunk(channel, chunkStart, chunkEnd, isFirstChunk));
+        }
+
+        List<ChunkParser> parsers = new ArrayList<>();
+        try {
+            for (Future<ChunkParser> result : pool.invokeAll(jobs)) {
+                parsers.add(result.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error loading chunk: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        bytesRead = size;
+        isComplete = parsers.get(parsers.size() - 1).isLastLineValid;
+        return finish(parsers);
+    }
+
+    /**
+     * Finds chunk boundaries that each fall just after a line break.
+     *
+     * @param channel The channel to read from.
+     * @param size The size of the file in bytes.
+     * @return The boundaries, starting with 0 and ending with the file size.
+     * @throws IOException If there is an error reading from the file.
+     */
+    private long[] findChunkBoundaries(FileChannel channel, long size) throws IOException {
+        long targetChunks = (long) pool.getParallelism() * CHUNKS_PER_THREAD;
+        long chunkSize = Math.min(MAX_CHUNK_BYTES, Math.max(BUFFER_SIZE, size / targetChunks));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long lineEnd = findNextLineStart(channel, position, size);
+            if (lineEnd >= size) {
+                break;
+            }
+            boundaries.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Returns the position just after the first line break at or after the specified position.
+     *
+     * @param channel The channel to read from.
+     * @param position The position to start searching from.
+     * @param size The size of the file in bytes.
+     * @return The start of the next line, or the file size if there is none.
+     * @throws IOException If there is an error reading from the file.
+     */
+    private long findNextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == NEWLINE) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Reads and parses a single chunk of the file.
+     *
+     * @param channel The channel to read from.
+     * @param start The position of the first byte of the chunk.
+     * @param end The position after the last byte of the chunk.
+     * @param isFirstChunk Whether the chunk starts at the beginning of the file.
+     * @return The parser holding the chunk's tasks and warnings.
+     * @throws IOException If there is an error reading from the file.
+     */
+    private ChunkParser parseChunk(FileChannel channel, long start, long end, boolean isFirstChunk)
+            throws IOException {
+        byte[] buffer = new byte[(int) (end - start)];
+        ByteBuffer target = ByteBuffer.wrap(buffer);
+        while (target.hasRemaining()) {
+            if (channel.read(target, start + target.position()) < 0) {
+                throw new IOException("Data file changed while loading");
+            }
+        }
+
+        ChunkParser parser = new ChunkParser(isFirstChunk);
+        int lineStart = parser.processLines(buffer, 0, buffer.length);
+        if (lineStart < buffer.length) {
+            parser.isLastLineValid = parser.processLine(buffer, lineStart, buffer.length);
+        }
+        return parser;
+    }
+
+    /**
+     * Stitches the chunk results together in order and displays the warnings with file line numbers.
+     *
+     * @param parsers The chunk parsers, in file order.
+     * @return The loaded tasks, in file order.
+     */
+    private ArrayList<Task> finish(List<ChunkParser> parsers) {
+        int total = 0;
+        for (ChunkParser parser : parsers) {
+            total += parser.tasks.size();
+        }
+
+        ArrayList<Task> tasks = new ArrayList<>(total);
+        int lineOffset = 0;
+        for (ChunkParser parser : parsers) {
+            tasks.addAll(parser.tasks);
+            for (int i = 0; i < parser.warningLines.size(); i++) {
+                warnings.accept("Skipping corrupted line " + (lineOffset + parser.warningLines.get(i))
+                        + ": " + parser.warningTexts.get(i));
+            }
+            skippedLines += parser.warningLines.size();
+            lineOffset += parser.lineCount;
+            if (parser.hasHeader) {
+                generation = parser.generation;
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the generation read from the snapshot header, or 0 if there was none.
+     *
+     * @return The snapshot generation.
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the number of bytes read by the last load.
+     *
+     * @return The number of bytes read.
+     */
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of corrupted lines skipped by the last load.
+     *
+     * @return The number of skipped lines.
+     */
+    int getSkippedLines() {
+        return skippedLines;
+    }
+
+    /**
+     * Checks if the last load read a complete file.
+     * Every line is written with a line break, but a file edited by hand may lack the last one,
+     * so a file is only taken to be cut off if its last line has no line break and cannot be read as a task.
+     *
+     * @return True if the file was empty, ended with a line break, or ended with a valid line, false otherwise.
+     */
+    boolean isComplete() {
+        return isComplete;
+    }
+
+    /**
+     * Returns the number of chunks the last load was split into.
+     *
+     * @return The number of chunks, 1 for a sequential load.
+     */
+    int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Represents the parser for one contiguous run of lines.
+     * Each chunk has its own parser, so chunks can be parsed on different threads.
+     * Warnings are kept with chunk-local line numbers until the chunks are stitched together.
+     */
+    private class ChunkParser {
+        private final int[] fieldStarts = new int[MAX_FIELDS];
+        private final int[] fieldEnds = new int[MAX_FIELDS];
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private final List<Integer> warningLines = new ArrayList<>();
+        private final List<String> warningTexts = new ArrayList<>();
+        private boolean isAtFileStart;
+        private boolean hasHeader;
+        private long generation;
+        private int lineCount;
+        // Whether a last line without a line break, if the chunk ends with one, could be read
+        private boolean isLastLineValid = true;
+
+        ChunkParser(boolean isAtFileStart) {
+            this.isAtFileStart = isAtFileStart;
+        }
+
+        /**
+         * Processes every complete line in the specified range.
+         *
+         * @param buffer The buffer holding the lines.
+         * @param start The index of the first byte to process.
+         * @param end The index after the last byte available.
+         * @return The index of the first byte of the incomplete last line.
+         */
+        int processLines(byte[] buffer, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (buffer[i] == NEWLINE) {
+                    processLine(buffer, start, i);
+                    start = i + 1;
+                }
+            }
+            return start;
+        }
+
+        /**
+         * Processes a single line and adds the parsed task to the chunk's list.
+         * Records a warning and skips the line if it's corrupted.
+         *
+         * @param buffer The buffer holding the line.
+         * @param from The index of the first byte of the line.
+         * @param to The index after the last byte of the line, excluding the line break.
+         * @return True if the line was a task or the snapshot header, false if it was skipped.
+         */
+        boolean processLine(byte[] buffer, int from, int to) {
+            lineCount++;
+            if (to > from && buffer[to - 1] == CARRIAGE_RETURN) {
+                to--;
+            }
+
+            boolean isFirstLine = isAtFileStart;
+            isAtFileStart = false;
+            if (isFirstLine && startsWith(buffer, from, to, headerPrefix)) {
+                return readHeader(decode(buffer, from, to));
+            }
+
+            try {
+                tasks.add(factory.create(splitFields(buffer, from, to)));
+                return true;
+            } catch (Exception e) {
+                warningLines.add(lineCount);
+                warningTexts.add(decode(buffer, from, to));
+                return false;
+            }
+        }
+
+        /**
+         * Reads the generation from the snapshot header line.
+         *
+         * @param header The header line.
+         * @return True if the header holds a valid generation, false otherwise.
+         */
+        private boolean readHeader(String header) {
+            try {
+                generation = Long.parseLong(header.substring(headerPrefix.length()).trim());
+                hasHeader = true;
+                return true;
+            } catch (NumberFormatException e) {
+                warnings.accept("Invalid snapshot header: " + header);
+                return false;
+            }
+        }
+
+        /**
+         * Splits a line on the <code>" | "</code> delimiter the same way <code>String.split</code> would,
+         * including dropping trailing empty fields.
+         * The type and done fields are mapped to shared constants instead of new strings.
+         *
+         * @param buffer The buffer holding the line.
+         * @param from The index of the first byte of the line.
+         * @param to The index after the last byte of the line.
+         * @return The fields of the line.
+         * @throws ReverieException If the line has more fields than any task type uses.
+         */
+        private String[] splitFields(byte[] buffer, int from, int to) throws ReverieException {
+            int count = 0;
+            int fieldStart = from;
+            int i = from + 1;
+            while (i < to - 1) {
+                if (buffer[i] == PIPE && buffer[i - 1] == SPACE && buffer[i + 1] == SPACE) {
+                    addField(count++, fieldStart, i - 1);
+                    fieldStart = i + 2;
+                    i += 3;
+                } else {
+                    i++;
+                }
+            }
+            addField(count++, fieldStart, to);
+
+            while (count > 1 && fieldStarts[count - 1] == fieldEnds[count - 1]) {
+                count--;
+            }
+
+            String[] parts = new String[count];
+            for (int field = 0; field < count; field++) {
+                parts[field] = field < 2
+                        ? toConstant(buffer, fieldStarts[field], fieldEnds[field])
+                        : decode(buffer, fieldStarts[field], fieldEnds[field]);
+            }
+            return parts;
+        }
+
+        /**
+         * Records the bounds of a field.
+         *
+         * @param index The index of the field.
+         * @param start The index of the first byte of the field.
+         * @param end The index after the last byte of the field.
+         * @throws ReverieException If there are too many fields.
+         */
+        private void addField(int index, int start, int end) throws ReverieException {
+            if (index >= MAX_FIELDS) {
+                throw new ReverieException("Too many fields");
+            }
+            fieldStarts[index] = start;
+            fieldEnds[index] = end;
+        }
+    }
+
+    /**
+     * Returns a shared string for a single-character field such as the type or done marker.
+     * Falls back to decoding the field if it is not a single known character.
+     *
+     * @param buffer The buffer holding the field.
+     * @param start The index of the first byte of the field.
+     * @param end The index after the last byte of the field.
+     * @return The field as a string.
+     */
+    private static String toConstant(byte[] buffer, int start, int end) {
+        while (start < end && (buffer[start] & 0xff) <= SPACE) {
+            start++;
+        }
+        while (end > start && (buffer[end - 1] & 0xff) <= SPACE) {
+            end--;
+        }
+        if (end - start == 1) {
+            switch (buffer[start]) {
+            case 'T': return "T";
+            case 'D': return "D";
+            case 'E': return "E";
+            case '0': return "0";
+            case '1': return "1";
+            default: break;
+            }
+        }
+        return decode(buffer, start, end);
+    }
+
+    /**
+     * Checks if the bytes of a line start with the specified ASCII prefix.
+     *
+     * @param buffer The buffer holding the line.
+     * @param from The index of the first byte of the line.
+     * @param to The index after the last byte of the line.
+     * @param prefix The prefix to check.
+     * @return True if the line starts with the prefix, false otherwise.
+     */
+    private static boolean startsWith(byte[] buffer, int from, int to, String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[from + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a range of bytes as UTF-8.
+     *
+     * @param buffer The buffer holding the bytes.
+     * @param start The index of the first byte.
+     * @param end The index after the last byte.
+     * @return The decoded string.
+     */
+    private static String decode(byte[] buffer, int start, int end) {
+        return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,119 @@
+package reverie.storage;
+
+import reverie.exception.ReverieException;
+import reverie.index.TaskSnapshot;
+import reverie.ui.TaskList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a background writer that saves the task list some time after it changes.
+ * A <code>WriteBehindWriter</code> coalesces a burst of changes into a single save,
+ * so that commands return without waiting for the data file to be written.
+ * Write failures are kept until they are collected and shown to the user.
+ */
+class WriteBehindWriter {
+    private final Storage storage;
+    private final long delayMillis;
+    private final ScheduledExecutorService executor;
+    private final Object writeLock = new Object();
+
+    private TaskList pendingTasks;
+    private boolean isScheduled;
+    private long savedModificationCount = -1;
+    private String lastFailure;
+
+    /**
+     * Constructs a WriteBehindWriter that saves through the specified storage.
+     *
+     * @param storage The storage used to write the data file.
+     * @param delayMillis How long to wait after a change before saving, in milliseconds.
+     */
+    WriteBehindWriter(Storage storage, long delayMillis) {
+        this.storage = storage;
+        this.delayMillis = delayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reverie-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules a save of the specified task list.
+     * Does nothing if a save is already scheduled, since it will pick up this change as well.
+     *
+     * @param tasks The task list that changed.
+     */
+    synchronized void schedule(TaskList tasks) {
+        pendingTasks = tasks;
+        if (!isScheduled) {
+            isScheduled = true;
+            executor.schedule(this::writeScheduled, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Saves any changes that have not been written yet and waits for the save to complete.
+     *
+     * @throws ReverieException If the save fails.
+     */
+    void flush() throws ReverieException {
+        TaskList tasks;
+        synchronized (this) {
+            tasks = pendingTasks;
+        }
+        if (tasks != null) {
+            write(tasks);
+        }
+    }
+
+    /**
+     * Returns the message of the last failed background save and clears it.
+     *
+     * @return The failure message, or null if no save has failed since the last call.
+     */
+    synchronized String takeFailure() {
+        String failure = lastFailure;
+        lastFailure = null;
+        return failure;
+    }
+
+    /**
+     * Runs a scheduled save on the writer thread, keeping any failure for later display.
+     */
+    private void writeScheduled() {
+        TaskList tasks;
+        synchronized (this) {
+            isScheduled = false;
+            tasks = pendingTasks;
+        }
+        try {
+            write(tasks);
+        } catch (ReverieException e) {
+            synchronized (this) {
+                lastFailure = e.getMessage();
+            }
+        }
+    }
+
+    /**
+     * Saves the task list if it changed since the last successful save.
+     *
+     * @param tasks The task list to save.
+     * @throws ReverieException If the save fails.
+     */
+    private void write(TaskList tasks) throws ReverieException {
+        synchronized (writeLock) {
+            // Read the count before the snapshot, so a change made in between is saved again rather than missed
+            long modificationCount = tasks.getModificationCount();
+            if (modificationCount == savedModificationCount) {
+                return;
+            }
+            TaskSnapshot snapshot = tasks.snapshot();
+            storage.save(snapshot);
+            savedModificationCount = modificationCount;
+        }
+    }
+}
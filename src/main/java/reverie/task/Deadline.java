@@ -49,6 +49,23 @@ public class Deadline extends Task {
         this.hasTime = hasTime;
     }
 
+    /**
+     * Constructs a Deadline task from an already resolved due date/time without parsing.
+     * This constructor is typically used when loading from storage, so that the date/time
+     * stays exactly as it was resolved when the task was created.
+     *
+     * @param description The description of the deadline task.
+     * @param by The original due date/time string, or null to derive it from the resolved value.
+     * @param byDateTime The resolved due date/time, or null if the deadline is plain text.
+     * @param hasTime Whether the deadline includes a specific time.
+     */
+    public Deadline(String description, String by, LocalDateTime byDateTime, boolean hasTime) {
+        super(description);
+        this.by = by;
+        this.byDateTime = byDateTime;
+        this.hasTime = hasTime;
+    }
+
     /**
      * Checks if the deadline has specific time information.
      *
@@ -60,28 +77,29 @@ public class Deadline extends Task {
 
     /**
      * Returns the original "by" string as provided by the user.
+     * Falls back to the canonical form of the resolved date/time if the original was not kept.
      *
      * @return The by string.
      */
     public String getByString() {
-        return by;
+        return by != null ? by : DateTimeParser.toCanonicalString(byDateTime, hasTime);
     }
 
     /**
-     * Returns the full status string representation of the deadline task.
+     * Renders the full status string representation of the deadline task.
      * The format is: [D][status icon] description (by: due date/time)
      *
      * @return The formatted status string.
      */
     @Override
-    public String getFullStatus() {
+    protected String renderFullStatus() {
         String dateString;
         if (byDateTime != null) {
             dateString = hasTime ? byDateTime.format(OUTPUT_FORMAT_WITH_TIME) : byDateTime.format(OUTPUT_FORMAT_DATE_ONLY);
         } else {
             dateString = by;
         }
-        return "[D]" + super.getFullStatus() + " (by: " + dateString + ")";
+        return "[D]" + super.renderFullStatus() + " (by: " + dateString + ")";
     }
 
     /**
@@ -73,6 +73,28 @@ public class Event extends Task {
         this.hasTime = hasTime;
     }
 
+    /**
+     * Constructs an Event task from an already resolved time range without parsing.
+     * This constructor is typically used when loading from storage, so that inferred dates
+     * and time-only inputs stay exactly as they were resolved when the task was created.
+     *
+     * @param description The description of the event.
+     * @param from The original start string, or null to derive it from the resolved value.
+     * @param to The original end string, or null to derive it from the resolved value.
+     * @param fromDateTime The resolved start, or null if the start is plain text.
+     * @param toDateTime The resolved end, or null if the end is plain text.
+     * @param hasTime Whether the event includes specific times.
+     */
+    public Event(String description, String from, String to,
+                 LocalDateTime fromDateTime, LocalDateTime toDateTime, boolean hasTime) {
+        super(description);
+        this.from = from;
+        this.to = to;
+        this.fromDateTime = fromDateTime;
+        this.toDateTime = toDateTime;
+        this.hasTime = hasTime;
+    }
+
     /**
      * Checks if the event has specific time information.
      *
@@ -84,20 +106,22 @@ public class Event extends Task {
 
     /**
      * Returns the original "from" string as provided by the user.
+     * Falls back to the canonical form of the resolved start if the original was not kept.
      *
      * @return The "from" string.
      */
     public String getFromString() {
-        return from;
+        return from != null ? from : DateTimeParser.toCanonicalString(fromDateTime, hasTime);
     }
 
     /**
      * Returns the original "to" string as provided by the user.
+     * Falls back to the canonical form of the resolved end if the original was not kept.
      *
      * @return The "to" string.
      */
     public String getToString() {
-        return to;
+        return to != null ? to : DateTimeParser.toCanonicalString(toDateTime, hasTime);
     }
 
     /**
@@ -189,13 +213,13 @@ public class Event extends Task {
     }
 
     /**
-     * Returns the full status string representation of the event task.
+     * Renders the full status string representation of the event task.
      * The format is: [E][status icon] description (from: start to: end)
      *
      * @return The formatted status string.
      */
     @Override
-    public String getFullStatus() {
+    protected String renderFullStatus() {
         String fromString;
         String toString;
 
@@ -211,6 +235,6 @@ public class Event extends Task {
             toString = to;
         }
 
-        return "[E]" + super.getFullStatus() + " (from: " + fromString + " to: " + toString + ")";
+        return "[E]" + super.renderFullStatus() + " (from: " + fromString + " to: " + toString + ")";
     }
 }
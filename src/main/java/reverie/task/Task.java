@@ -4,10 +4,16 @@ package reverie.task;
  * Represents a generic task in the Reverie chatbot.
  * A <code>Task</code> object has a description and a completion status.
  * This is the base class for specific task types like Todo, Deadline, and Event.
+ * A task may be read by several threads while another marks it, so changes to its done state
+ * synchronize on the task and its rendered status remembers the done state it was rendered for.
  */
 public class Task {
     protected String description;
-    protected boolean isDone;
+    protected volatile boolean isDone;
+    private long id = -1;
+
+    // Rendered lazily and dropped whenever the task changes; one rendered for another done state is never used
+    private volatile Rendering rendering;
 
     /**
      * Constructs a Task with the specified description.
@@ -29,6 +35,24 @@ public class Task {
         return description;
     }
 
+    /**
+     * Returns the internal ID of the task, which stays the same while other tasks are added and deleted.
+     *
+     * @return The ID, or -1 if the task has not been added to a list.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the internal ID of the task when it is added to a list.
+     *
+     * @param id The ID.
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
     /**
      * Checks if the task is marked as done.
      *
@@ -50,24 +74,102 @@ public class Task {
     /**
      * Marks the task as done.
      */
-    public void markAsDone() {
+    public synchronized void markAsDone() {
         isDone = true;
+        invalidateStatus();
     }
 
     /**
      * Marks the task as undone.
      */
-    public void markAsUndone() {
+    public synchronized void markAsUndone() {
         isDone = false;
+        invalidateStatus();
     }
 
     /**
      * Returns the full status string representation of the task.
-     * The format is: [status icon] description
+     * The string is rendered once and kept until the task changes.
      *
      * @return The formatted status string.
      */
     public String getFullStatus() {
+        return getRendering().fullStatus;
+    }
+
+    /**
+     * Returns the full status string in lower case, for case-insensitive searches.
+     * The string is computed once and kept until the task changes.
+     *
+     * @return The lower-cased status string.
+     */
+    public String getLowerCaseFullStatus() {
+        Rendering current = getRendering();
+        String status = current.lowerCaseFullStatus;
+        if (status == null) {
+            status = current.fullStatus.toLowerCase();
+            current.lowerCaseFullStatus = status;
+        }
+        return status;
+    }
+
+    /**
+     * Returns the rendered status for the current done state, rendering it if needed.
+     * Rendering holds the task's lock so that the done state cannot change halfway through.
+     *
+     * @return The rendered status.
+     */
+    private Rendering getRendering() {
+        Rendering current = rendering;
+        if (current != null && current.isDone == isDone) {
+            return current;
+        }
+        synchronized (this) {
+            current = rendering;
+            if (current == null || current.isDone != isDone) {
+                current = new Rendering(isDone, renderFullStatus());
+                rendering = current;
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Renders the full status string representation of the task.
+     * The format is: [status icon] description
+     *
+     * @return The formatted status string.
+     */
+    protected String renderFullStatus() {
         return "[" + getStatusIcon() + "] " + description;
     }
+
+    /**
+     * Drops the rendered status strings so that they are rebuilt on next use.
+     * Must be called whenever a change affects how the task is displayed.
+     */
+    protected synchronized void invalidateStatus() {
+        rendering = null;
+    }
+
+    /**
+     * Represents the status strings of a task, rendered while it had a particular done state.
+     */
+    private static class Rendering {
+        private final boolean isDone;
+        private final String fullStatus;
+        // Derived from the final status string, so threads racing to fill it in compute the same value
+        private String lowerCaseFullStatus;
+
+        /**
+         * Constructs a Rendering of the specified status string.
+         *
+         * @param isDone The done state the string was rendered for.
+         * @param fullStatus The status string.
+         */
+        Rendering(boolean isDone, String fullStatus) {
+            this.isDone = isDone;
+            this.fullStatus = fullStatus;
+        }
+    }
 }
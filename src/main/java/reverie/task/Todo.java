@@ -15,13 +15,13 @@ public class Todo extends Task {
     }
 
     /**
-     * Returns the full status string representation of the todo task.
+     * Renders the full status string representation of the todo task.
      * The format is: [T][status icon] description
      *
      * @return The formatted status string.
      */
     @Override
-    public String getFullStatus() {
-        return "[T]" + super.getFullStatus();
+    protected String renderFullStatus() {
+        return "[T]" + super.renderFullStatus();
     }
 }
@@ -0,0 +1,183 @@
+package reverie.ui;
+
+import reverie.exception.ReverieException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a window of a list of results, such as the third page of 50 tasks.
+ * A <code>Page</code> is written at the end of a <code>list</code>, <code>find</code>,
+ * <code>schedule</code> or <code>query</code> command as <code>/page N</code> and <code>/size M</code>,
+ * so that only the tasks in the window are read and displayed.
+ */
+public class Page {
+    /** The number of tasks on a page when only /page is given. */
+    public static final int DEFAULT_SIZE = 50;
+
+    private static final String PAGE_OPTION = "/page";
+    private static final String SIZE_OPTION = "/size";
+    private static final Pattern WORD = Pattern.compile("\\S+");
+
+    private final int number;
+    private final int size;
+
+    /**
+     * Constructs a Page with the specified number and size.
+     *
+     * @param number The number of the page (1-based).
+     * @param size The number of tasks on each page.
+     */
+    public Page(int number, int size) {
+        this.number = number;
+        this.size = size;
+    }
+
+    /**
+     * Parses the /page and /size options at the end of a command's arguments.
+     *
+     * @param arguments The arguments of the command.
+     * @param format The format of the command, to show if an option is invalid.
+     * @return The page, or null if the arguments do not end with either option.
+     * @throws ReverieException If the value of an option is not a positive number.
+     */
+    public static Page parse(String arguments, String format) throws ReverieException {
+        List<String> words = new ArrayList<>();
+        int start = findOptions(arguments, words);
+        if (start == arguments.length()) {
+            return null;
+        }
+
+        int number = 1;
+        int size = DEFAULT_SIZE;
+        for (int i = 0; i < words.size(); i += 2) {
+            int value = parseValue(words.get(i), words.get(i + 1), format);
+            if (words.get(i).equalsIgnoreCase(PAGE_OPTION)) {
+                number = value;
+            } else {
+                size = value;
+            }
+        }
+        return new Page(number, size);
+    }
+
+    /**
+     * Removes the /page and /size options from the end of a command's arguments.
+     *
+     * @param arguments The arguments of the command.
+     * @return The arguments before the options, without the spaces that separated them from the options.
+     */
+    public static String removeOptions(String arguments) {
+        int start = findOptions(arguments, new ArrayList<>());
+        return start == arguments.length() ? arguments : arguments.substring(0, start).stripTrailing();
+    }
+
+    /**
+     * Returns the index of the first task on the page.
+     *
+     * @return The index (0-based).
+     */
+    public int getStart() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) (number - 1) * size);
+    }
+
+    /**
+     * Returns the index after the last task on the page.
+     *
+     * @param total The number of results.
+     * @return The index (0-based).
+     */
+    public int getEnd(int total) {
+        return (int) Math.min(total, (long) getStart() + size);
+    }
+
+    /**
+     * Checks that the page starts within the results.
+     *
+     * @param total The number of results, which must not be zero.
+     * @throws ReverieException If the page starts after the last result.
+     */
+    public void checkInRange(int total) throws ReverieException {
+        if (getStart() >= total) {
+            throw new ReverieException("There is no page " + number + "! There are only " + getPageCount(total)
+                    + " page(s) of " + size + " task(s)");
+        }
+    }
+
+    /**
+     * Describes which results are on the page, such as <code>Showing 101-150 of 1000 (page 3 of 20)</code>.
+     *
+     * @param total The number of results.
+     * @return The description.
+     */
+    public String describe(int total) {
+        return "Showing " + (getStart() + 1) + "-" + getEnd(total) + " of " + total
+                + " (page " + number + " of " + getPageCount(total) + ")";
+    }
+
+    /**
+     * Returns the number of pages needed for the results.
+     *
+     * @param total The number of results.
+     * @return The number of pages.
+     */
+    private int getPageCount(int total) {
+        return (int) (((long) total + size - 1) / size);
+    }
+
+    /**
+     * Finds the pairs of /page and /size options and values at the end of a command's arguments.
+     *
+     * @param arguments The arguments of the command.
+     * @param words The list to add the options and values to, in order.
+     * @return The index where the options start, or the length of the arguments if there are none.
+     */
+    private static int findOptions(String arguments, List<String> words) {
+        List<String> allWords = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        Matcher matcher = WORD.matcher(arguments);
+        while (matcher.find()) {
+            allWords.add(matcher.group());
+            starts.add(matcher.start());
+        }
+
+        int first = allWords.size();
+        while (first >= 2 && isOption(allWords.get(first - 2))) {
+            first -= 2;
+        }
+        words.addAll(allWords.subList(first, allWords.size()));
+        return first == allWords.size() ? arguments.length() : starts.get(first);
+    }
+
+    /**
+     * Checks if a word is the /page or /size option.
+     *
+     * @param word The word.
+     * @return True if the word is either option, false otherwise.
+     */
+    private static boolean isOption(String word) {
+        return word.equalsIgnoreCase(PAGE_OPTION) || word.equalsIgnoreCase(SIZE_OPTION);
+    }
+
+    /**
+     * Parses the value of a /page or /size option.
+     *
+     * @param option The option.
+     * @param value The value.
+     * @param format The format of the command, to show if the value is invalid.
+     * @return The value.
+     * @throws ReverieException If the value is not a positive number.
+     */
+    private static int parseValue(String option, String value, String format) throws ReverieException {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new ReverieException("The value of " + option.toLowerCase() + " must be a positive number\n" + format);
+    }
+}
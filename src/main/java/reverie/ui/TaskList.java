@@ -1,22 +1,63 @@
 package reverie.ui;
 
 import reverie.exception.ReverieException;
+import reverie.index.DateIndex;
+import reverie.index.KeywordIndex;
+import reverie.index.ParallelScan;
+import reverie.index.StatusIndex;
+import reverie.index.TaskSequence;
+import reverie.index.TaskSnapshot;
+import reverie.index.TrigramIndex;
 import reverie.task.Task;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
 
 /**
  * Represents a list of tasks in the Reverie chatbot.
  * A <code>TaskList</code> object manages a collection of tasks and provides
  * methods to add, delete, retrieve, and search tasks.
+ * Tasks are held in a {@link TaskSequence}, so getting or deleting a task by its number takes O(log n) time
+ * and each task keeps the same internal ID for as long as it is in the list.
+ *
+ * <p>A <code>TaskList</code> can be shared by many threads. Adding and deleting tasks, and building an index
+ * on first use, take the write lock of a {@link StampedLock}; every other method takes its read lock, so reads
+ * run side by side, and the size is read optimistically without locking at all.
+ * Marking a task changes only that task and the done state kept in the indexes, so marks take the read lock
+ * too, together with the write lock of a second lock over that done state. A mark therefore never waits for
+ * or holds up a read of the tasks themselves, only the searches that read the done state from an index.
+ * The two locks are always taken in that order. A writer waiting for either lock stops new readers
+ * from taking it, so a steady stream of reads cannot keep a change waiting indefinitely.</p>
+ *
+ * <p>Only each single call is atomic. A command usually makes several calls, such as finding the indices of
+ * some tasks and then reading or deleting the tasks at those indices, and another thread may change the list
+ * in between, so the indices may no longer point at the same tasks. Callers that let several threads run
+ * commands must hold a lock of their own around each whole command, as {@link reverie.server.Server} does.</p>
  */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    private final TaskSequence tasks;
+    private final StampedLock lock = new StampedLock();
+    // Guards the done state in the keyword and status indexes, and is only taken while holding the read lock
+    private final StampedLock doneLock = new StampedLock();
+    // Held by a thread waiting to change the tasks or done state, so readers arriving meanwhile queue behind it
+    private final ReentrantLock writerGate = new ReentrantLock();
+    private final ReentrantLock markerGate = new ReentrantLock();
+    private volatile long modificationCount;
+    private KeywordIndex keywordIndex;
+    private TrigramIndex trigramIndex;
+    private DateIndex dateIndex;
+    private StatusIndex statusIndex;
+    private volatile int parallelThreshold = ParallelScan.SEQUENTIAL;
 
     /**
      * Constructs an empty TaskList.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this.tasks = new TaskSequence();
     }
 
     /**
@@ -25,6 +66,27 @@ public class TaskList {
      * @param tasks The list of tasks to initialize with.
      */
     public TaskList(ArrayList<Task> tasks) {
+        this(tasks, false);
+    }
+
+    /**
+     * Constructs a TaskList with the specified tasks, kept either as objects or as columns.
+     * The columnar layout uses far less memory for very large lists, at the cost of creating
+     * a task object every time a task is read.
+     *
+     * @param tasks The list of tasks to initialize with.
+     * @param isColumnar True to keep the tasks as columns, false to keep the task objects.
+     */
+    public TaskList(List<Task> tasks, boolean isColumnar) {
+        this.tasks = new TaskSequence(tasks, isColumnar);
+    }
+
+    /**
+     * Constructs a TaskList over the specified sequence of tasks, such as one loaded lazily from a data file.
+     *
+     * @param tasks The sequence of tasks, which the list takes over.
+     */
+    public TaskList(TaskSequence tasks) {
         this.tasks = tasks;
     }
 
@@ -34,7 +96,25 @@ public class TaskList {
      * @param task The task to add.
      */
     public void add(Task task) {
-        tasks.add(task);
+        long stamp = writeLock();
+        try {
+            tasks.add(task);
+            modificationCount++;
+            if (keywordIndex != null) {
+                keywordIndex.add(task);
+            }
+            if (trigramIndex != null) {
+                trigramIndex.add(task);
+            }
+            if (dateIndex != null) {
+                dateIndex.add(task);
+            }
+            if (statusIndex != null) {
+                statusIndex.add(task);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -45,10 +125,142 @@ public class TaskList {
      * @throws ReverieException If the index is out of bounds.
      */
     public Task delete(int index) throws ReverieException {
-        if (index < 0 || index >= tasks.size()) {
-            throw new ReverieException("Invalid task number! Please select between 1 and " + tasks.size());
+        long stamp = writeLock();
+        try {
+            checkIndex(index);
+            modificationCount++;
+            deleteFromIndexes(index);
+            return tasks.remove(index);
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return tasks.remove(index);
+    }
+
+    /**
+     * Marks or unmarks the task at the specified index as done.
+     *
+     * @param index The index of the task (0-based).
+     * @param isDone True to mark the task as done, false to mark it as not done.
+     * @return The changed task.
+     * @throws ReverieException If the index is out of bounds.
+     */
+    public Task mark(int index, boolean isDone) throws ReverieException {
+        long stamp = readLock();
+        long doneStamp = doneWriteLock();
+        try {
+            checkIndex(index);
+            Task task = setDone(index, isDone);
+            modificationCount++;
+            return task;
+        } finally {
+            doneLock.unlockWrite(doneStamp);
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Marks or unmarks the tasks at the specified indices as done, as a single change.
+     * Every index is checked before any task is changed.
+     *
+     * @param indices The indices of the tasks (0-based).
+     * @param isDone True to mark the tasks as done, false to mark them as not done.
+     * @return The changed tasks, in the order of the indices.
+     * @throws ReverieException If an index is out of bounds.
+     */
+    public List<Task> markAll(List<Integer> indices, boolean isDone) throws ReverieException {
+        long stamp = readLock();
+        long doneStamp = doneWriteLock();
+        try {
+            checkIndices(indices);
+            List<Task> changed = new ArrayList<>(indices.size());
+            for (int index : indices) {
+                changed.add(setDone(index, isDone));
+            }
+            modificationCount++;
+            return changed;
+        } finally {
+            doneLock.unlockWrite(doneStamp);
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Deletes the tasks at the specified indices, as a single change.
+     * Every index is checked before any task is deleted, and the tasks are deleted from the last one back,
+     * so each index still refers to the task it referred to when the deletion started.
+     * Each deletion takes O(log n) time, so deleting k tasks takes O(k log n) time in all.
+     *
+     * @param indices The distinct indices of the tasks to delete (0-based), in ascending order.
+     * @return The deleted tasks, in the order of the indices.
+     * @throws ReverieException If an index is out of bounds.
+     */
+    public List<Task> deleteAll(List<Integer> indices) throws ReverieException {
+        long stamp = writeLock();
+        try {
+            checkIndices(indices);
+            Task[] removed = new Task[indices.size()];
+            for (int i = indices.size() - 1; i >= 0; i--) {
+                int index = indices.get(i);
+                deleteFromIndexes(index);
+                removed[i] = tasks.remove(index);
+            }
+            modificationCount++;
+            return List.of(removed);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks or unmarks a task as done and updates the done state in the indexes that have been built.
+     * Must be called while holding the read lock and the write lock of the done lock.
+     *
+     * @param index The index of the task (0-based), which must be within the list.
+     * @param isDone True to mark the task as done, false to mark it as not done.
+     * @return The changed task.
+     */
+    private Task setDone(int index, boolean isDone) {
+        Task task = tasks.setDone(index, isDone);
+        if (keywordIndex != null) {
+            keywordIndex.setDone(index, isDone);
+        }
+        if (statusIndex != null) {
+            statusIndex.setDone(index, isDone);
+        }
+        return task;
+    }
+
+    /**
+     * Removes a task from the indexes that have been built, before it is removed from the list.
+     * Must be called while holding the write lock.
+     *
+     * @param index The index of the task (0-based), which must be within the list.
+     */
+    private void deleteFromIndexes(int index) {
+        if (keywordIndex != null) {
+            keywordIndex.delete(index);
+        }
+        if (trigramIndex != null) {
+            trigramIndex.delete(index);
+        }
+        if (dateIndex != null) {
+            dateIndex.delete(index);
+        }
+        if (statusIndex != null) {
+            statusIndex.delete(index);
+        }
+    }
+
+    /**
+     * Returns the number of changes made to the list so far.
+     * A different value means the list has changed since the count was last read.
+     * Every change is made before the count goes up, so a snapshot taken after reading the count
+     * includes at least the changes counted.
+     *
+     * @return The modification count.
+     */
+    public long getModificationCount() {
+        return modificationCount;
     }
 
     /**
@@ -59,19 +271,117 @@ public class TaskList {
      * @throws ReverieException If the index is out of bounds.
      */
     public Task get(int index) throws ReverieException {
+        long stamp = readLock();
+        try {
+            checkIndex(index);
+            return tasks.get(index);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Retrieves the tasks in a range of indices, taking the lock once for the whole range.
+     *
+     * @param from The index of the first task (0-based).
+     * @param to The index after the last task.
+     * @return The tasks of the range, in list order.
+     * @throws ReverieException If the range is out of bounds.
+     */
+    public List<Task> getRange(int from, int to) throws ReverieException {
+        long stamp = readLock();
+        try {
+            if (from < 0 || to > tasks.size() || from > to) {
+                throw new ReverieException("Invalid task number! Please select between 1 and " + tasks.size());
+            }
+            return tasks.getRange(from, to);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Retrieves the tasks at the specified indices, taking the lock once for all of them.
+     *
+     * @param indices The indices of the tasks to retrieve (0-based).
+     * @return The tasks, in the order of the indices.
+     * @throws ReverieException If an index is out of bounds.
+     */
+    public List<Task> getAll(List<Integer> indices) throws ReverieException {
+        long stamp = readLock();
+        try {
+            List<Task> found = new ArrayList<>(indices.size());
+            for (int index : indices) {
+                checkIndex(index);
+                found.add(tasks.get(index));
+            }
+            return found;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Checks that an index is within the list.
+     *
+     * @param index The index to check (0-based).
+     * @throws ReverieException If the index is out of bounds.
+     */
+    private void checkIndex(int index) throws ReverieException {
         if (index < 0 || index >= tasks.size()) {
             throw new ReverieException("Invalid task number! Please select between 1 and " + tasks.size());
         }
-        return tasks.get(index);
+    }
+
+    /**
+     * Checks that every index is within the list.
+     *
+     * @param indices The indices to check (0-based).
+     * @throws ReverieException If an index is out of bounds.
+     */
+    private void checkIndices(List<Integer> indices) throws ReverieException {
+        for (int index : indices) {
+            if (index < 0 || index >= tasks.size()) {
+                throw new ReverieException("Invalid task number " + (index + 1) + "! Please select between 1 and "
+                        + tasks.size());
+            }
+        }
+    }
+
+    /**
+     * Returns the current index of the task with the specified internal ID.
+     *
+     * @param id The internal ID of the task.
+     * @return The index of the task (0-based), or -1 if the task is no longer in the list.
+     */
+    public int indexOfId(long id) {
+        long stamp = readLock();
+        try {
+            return tasks.positionOfId(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
      * Returns the number of tasks in the list.
+     * The size is a single field, so it is read without locking and only read again under the read lock
+     * if a task was added or deleted meanwhile.
      *
      * @return The size of the task list.
      */
     public int size() {
-        return tasks.size();
+        long stamp = lock.tryOptimisticRead();
+        int size = tasks.size();
+        if (lock.validate(stamp)) {
+            return size;
+        }
+        stamp = readLock();
+        try {
+            return tasks.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
@@ -80,38 +390,445 @@ public class TaskList {
      * @return True if the task list is empty, false otherwise.
      */
     public boolean isEmpty() {
-        return tasks.isEmpty();
+        return size() == 0;
     }
 
     /**
-     * Returns a copy of all tasks in the list.
+     * Returns a read-only snapshot of all tasks in the list.
+     * The snapshot is taken without copying the list and is not affected by later additions or deletions,
+     * so it can be saved by another thread while the list keeps changing.
      *
-     * @return A new ArrayList containing all tasks.
+     * @return The snapshot of the tasks.
      */
-    public ArrayList<Task> getAllTasks() {
-        return new ArrayList<>(tasks);
+    public TaskSnapshot snapshot() {
+        long stamp = readLock();
+        try {
+            return tasks.snapshot();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /**
      * Finds tasks that match the specified keyword.
      * The search is case-insensitive and searches in the full task representation
-     * including task number and status.
+     * including task number and status, using the lower-cased status line cached by each task.
+     * Keywords of three or more characters are narrowed down with the trigram index,
+     * which is built on first use and kept up to date afterwards.
+     * Other keywords are checked against every task, in parallel if parallel scanning is enabled.
      *
      * @param keyword The keyword to search for.
      * @return A list of indices of matching tasks.
      */
     public ArrayList<Integer> findTaskIndices(String keyword) {
-        ArrayList<Integer> matchingIndices = new ArrayList<>();
         String lowerKeyword = keyword.toLowerCase();
+        if (lowerKeyword.length() >= TrigramIndex.MIN_KEYWORD_LENGTH && TrigramIndex.canNarrow(lowerKeyword)) {
+            long stamp = readLockWithIndex(() -> trigramIndex != null, this::getTrigramIndex);
+            try {
+                return trigramIndex.find(tasks, keyword);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // Only a keyword starting with a digit or dot can match across the task number
+        boolean canMatchNumber = !lowerKeyword.isEmpty()
+                && (Character.isDigit(lowerKeyword.charAt(0)) || lowerKeyword.charAt(0) == '.');
+        long stamp = readLock();
+        try {
+            return ParallelScan.find(tasks, (task, i) -> {
+                // Search in the full task representation (including task number and status)
+                String status = task.getLowerCaseFullStatus();
+                return status.contains(lowerKeyword)
+                        || (canMatchNumber && ((i + 1) + "." + status).contains(lowerKeyword));
+            }, parallelThreshold);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds tasks that contain every word of the specified keywords, using the keyword index.
+     * The index is built on first use and kept up to date afterwards.
+     *
+     * @param keywords The words to search for.
+     * @param isPrefix True to match the start of words, false to match whole words only.
+     * @return A list of indices of matching tasks.
+     */
+    public ArrayList<Integer> findKeywordIndices(String keywords, boolean isPrefix) {
+        long stamp = readLockWithIndex(() -> keywordIndex != null, this::getKeywordIndex);
+        long doneStamp = doneReadLock();
+        try {
+            return keywordIndex.find(keywords, isPrefix);
+        } finally {
+            doneLock.unlockRead(doneStamp);
+            lock.unlockRead(stamp);
+        }
+    }
 
-        for (int i = 0; i < tasks.size(); i++) {
-            // Search in the full task representation (including task number and status)
-            String fullEntry = (i + 1) + "." + tasks.get(i).getFullStatus();
-            if (fullEntry.toLowerCase().contains(lowerKeyword)) {
-                matchingIndices.add(i);
+    /**
+     * Finds tasks whose status line, such as <code>[D][X] return book (by: Dec 02 2019)</code>,
+     * contains a match for a regular expression.
+     * No index can answer a regular expression, so every task is checked, in parallel if parallel scanning
+     * is enabled.
+     *
+     * @param pattern The compiled regular expression.
+     * @return A list of indices of matching tasks.
+     */
+    public ArrayList<Integer> findRegexIndices(Pattern pattern) {
+        long stamp = readLock();
+        try {
+            return ParallelScan.find(tasks, (task, i) -> pattern.matcher(task.getFullStatus()).find(),
+                    parallelThreshold);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Lets searches that check every task split the list across threads once it has enough tasks.
+     * The results stay in list order.
+     *
+     * @param threshold The smallest number of tasks to search in parallel.
+     */
+    public void enableParallelScan(int threshold) {
+        parallelThreshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Estimates the number of tasks that {@link #findTaskIndices(String)} would find, without checking any task.
+     * Keywords the trigram index cannot narrow down are estimated to match every task.
+     *
+     * @param keyword The keyword to search for.
+     * @return The estimated number of matching tasks.
+     */
+    public long estimateTaskIndices(String keyword) {
+        if (keyword.length() < TrigramIndex.MIN_KEYWORD_LENGTH || !TrigramIndex.canNarrow(keyword)) {
+            return size();
+        }
+        long stamp = readLockWithIndex(() -> trigramIndex != null, this::getTrigramIndex);
+        try {
+            return trigramIndex.estimate(keyword);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Estimates the number of tasks that {@link #findKeywordIndices(String, boolean)} would find,
+     * from the sizes of the posting lists.
+     *
+     * @param keywords The words to search for.
+     * @param isPrefix True to match the start of words, false to match whole words only.
+     * @return An upper bound on the number of matching tasks.
+     */
+    public long estimateKeywordIndices(String keywords, boolean isPrefix) {
+        long stamp = readLockWithIndex(() -> keywordIndex != null, this::getKeywordIndex);
+        long doneStamp = doneReadLock();
+        try {
+            return keywordIndex.estimate(keywords, isPrefix);
+        } finally {
+            doneLock.unlockRead(doneStamp);
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Counts the tasks that {@link #filterIndices(String, Boolean)} would find, from the status bitmaps alone.
+     *
+     * @param types The type letters to match, or an empty string to match any type.
+     * @param isDone True to count done tasks, false to count tasks that are not done, or null to count both.
+     * @return The number of matching tasks.
+     */
+    public long countFilteredIndices(String types, Boolean isDone) {
+        long stamp = readLockWithIndex(() -> statusIndex != null, this::getStatusIndex);
+        long doneStamp = doneReadLock();
+        try {
+            return statusIndex.count(types, isDone);
+        } finally {
+            doneLock.unlockRead(doneStamp);
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the deadlines due in a range of dates and the events whose span overlaps it, using the date index.
+     *
+     * @param from The first date of the range, or null for no lower bound.
+     * @param to The last date of the range, or null for no upper bound.
+     * @return A list of indices of tasks in the range.
+     */
+    public ArrayList<Integer> findDatedIndices(LocalDate from, LocalDate to) {
+        long stamp = readLockWithIndex(() -> dateIndex != null, this::getDateIndex);
+        try {
+            return dateIndex.findBetween(from == null ? Long.MIN_VALUE : from.toEpochDay(),
+                    to == null ? Long.MAX_VALUE : to.toEpochDay());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Estimates the number of tasks that {@link #findDatedIndices(LocalDate, LocalDate)} would find.
+     *
+     * @param from The first date of the range, or null for no lower bound.
+     * @param to The last date of the range, or null for no upper bound.
+     * @return An upper bound on the number of tasks in the range.
+     */
+    public long estimateDatedIndices(LocalDate from, LocalDate to) {
+        long stamp = readLockWithIndex(() -> dateIndex != null, this::getDateIndex);
+        try {
+            return dateIndex.estimateBetween(from == null ? Long.MIN_VALUE : from.toEpochDay(),
+                    to == null ? Long.MAX_VALUE : to.toEpochDay());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the deadlines due on a date and the events that span it, using the date index.
+     * The index is built on first use and kept up to date afterwards.
+     *
+     * @param date The date to look up.
+     * @return A list of indices of tasks on the date.
+     */
+    public ArrayList<Integer> findScheduledIndices(LocalDate date) {
+        long stamp = readLockWithIndex(() -> dateIndex != null, this::getDateIndex);
+        try {
+            return dateIndex.findOn(date);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the first date on or after the specified date that has a deadline or event on it.
+     *
+     * @param date The date to start from.
+     * @return The next date with tasks, or null if there is none.
+     */
+    public LocalDate findNextScheduledDate(LocalDate date) {
+        long stamp = readLockWithIndex(() -> dateIndex != null, this::getDateIndex);
+        try {
+            return dateIndex.nextDateWithTasks(date);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the tasks of any of the specified types that have the specified done state, using the status index.
+     * The index keeps the types and done states as bitmaps, so no task outside the result is read.
+     * It is built on first use and kept up to date afterwards.
+     *
+     * @param types The type letters to match, such as <code>DE</code>, or an empty string to match any type.
+     * @param isDone True to match done tasks, false to match tasks that are not done, or null to match both.
+     * @return A list of indices of matching tasks.
+     */
+    public ArrayList<Integer> filterIndices(String types, Boolean isDone) {
+        long stamp = readLockWithIndex(() -> statusIndex != null, this::getStatusIndex);
+        long doneStamp = doneReadLock();
+        try {
+            return statusIndex.filter(types, isDone);
+        } finally {
+            doneLock.unlockRead(doneStamp);
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Takes the read lock, first building an index under the write lock if it has not been built yet.
+     * Another thread may build the index between giving up the read lock and taking the write lock,
+     * so the index is checked again once the write lock is held.
+     *
+     * @param isBuilt Checks if the index has been built.
+     * @param build Builds the index.
+     * @return The stamp of the read lock.
+     */
+    private long readLockWithIndex(BooleanSupplier isBuilt, Runnable build) {
+        long stamp = readLock();
+        if (isBuilt.getAsBoolean()) {
+            return stamp;
+        }
+        long writeStamp = lock.tryConvertToWriteLock(stamp);
+        if (writeStamp == 0) {
+            lock.unlockRead(stamp);
+            writeStamp = writeLock();
+        }
+        try {
+            if (!isBuilt.getAsBoolean()) {
+                build.run();
             }
+        } catch (RuntimeException | Error e) {
+            lock.unlockWrite(writeStamp);
+            throw e;
         }
+        // Going down from the write lock always succeeds and lets no writer in between
+        return lock.tryConvertToReadLock(writeStamp);
+    }
+
+    /**
+     * Takes the read lock, first letting a writer that is already waiting go ahead.
+     * A StampedLock lets readers in whenever no writer holds it, so without the gate
+     * overlapping reads could keep a waiting writer out indefinitely.
+     *
+     * @return The stamp of the read lock.
+     */
+    private long readLock() {
+        passGate(writerGate);
+        return lock.readLock();
+    }
 
-        return matchingIndices;
+    /**
+     * Takes the write lock, holding the writer gate while waiting so that no new reader gets in first.
+     *
+     * @return The stamp of the write lock.
+     */
+    private long writeLock() {
+        writerGate.lock();
+        try {
+            return lock.writeLock();
+        } finally {
+            writerGate.unlock();
+        }
+    }
+
+    /**
+     * Takes the read lock of the done lock, first letting a mark that is already waiting go ahead.
+     * Must be called while holding the read lock.
+     *
+     * @return The stamp of the done lock.
+     */
+    private long doneReadLock() {
+        passGate(markerGate);
+        return doneLock.readLock();
+    }
+
+    /**
+     * Takes the write lock of the done lock, holding the marker gate while waiting.
+     * Must be called while holding the read lock.
+     *
+     * @return The stamp of the done lock.
+     */
+    private long doneWriteLock() {
+        markerGate.lock();
+        try {
+            return doneLock.writeLock();
+        } finally {
+            markerGate.unlock();
+        }
+    }
+
+    /**
+     * Waits until no writer is waiting at a gate.
+     *
+     * @param gate The gate.
+     */
+    private static void passGate(ReentrantLock gate) {
+        if (gate.isLocked()) {
+            gate.lock();
+            gate.unlock();
+        }
+    }
+
+    /**
+     * Returns the keyword index, building it if it has not been used yet.
+     *
+     * @return The keyword index.
+     */
+    private KeywordIndex getKeywordIndex() {
+        if (keywordIndex == null) {
+            keywordIndex = new KeywordIndex(tasks);
+        }
+        return keywordIndex;
+    }
+
+    /**
+     * Returns the trigram index, building it if it has not been used yet.
+     *
+     * @return The trigram index.
+     */
+    private TrigramIndex getTrigramIndex() {
+        if (trigramIndex == null) {
+            trigramIndex = new TrigramIndex(tasks);
+        }
+        return trigramIndex;
+    }
+
+    /**
+     * Returns the date index, building it if it has not been used yet.
+     *
+     * @return The date index.
+     */
+    private DateIndex getDateIndex() {
+        if (dateIndex == null) {
+            dateIndex = new DateIndex(tasks);
+        }
+        return dateIndex;
+    }
+
+    /**
+     * Returns the status index, building it if it has not been used yet.
+     *
+     * @return The status index.
+     */
+    private StatusIndex getStatusIndex() {
+        if (statusIndex == null) {
+            statusIndex = new StatusIndex(tasks);
+        }
+        return statusIndex;
+    }
+
+    /**
+     * Returns a line describing the layout the tasks are kept in and the memory they use.
+     *
+     * @return The statistics line.
+     */
+    public String getStoreStatistics() {
+        long stamp = readLock();
+        try {
+            return String.format("Task store: %s, %.1f KB, %.0f bytes per task", tasks.getStoreName(),
+                    tasks.memoryBytes() / 1024.0, (double) tasks.memoryBytes() / Math.max(1, tasks.size()));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns statistics about the search indexes that have been built.
+     *
+     * @return The statistics lines.
+     */
+    public List<String> getIndexStatistics() {
+        long stamp = readLock();
+        long doneStamp = doneReadLock();
+        try {
+            List<String> lines = new ArrayList<>();
+            int size = Math.max(1, tasks.size());
+            if (keywordIndex == null) {
+                lines.add("Keyword index: not built yet (built by the first find /word or find /prefix)");
+            } else {
+                lines.add(String.format("Keyword index: %d word(s), %.1f KB, %.0f bytes per task",
+                        keywordIndex.wordCount(), keywordIndex.memoryBytes() / 1024.0,
+                        (double) keywordIndex.memoryBytes() / size));
+            }
+            if (trigramIndex == null) {
+                lines.add("Trigram index: not built yet (built by the first find)");
+            } else {
+                lines.add(String.format("Trigram index: %d posting(s), %.1f KB, %.0f bytes per task",
+                        trigramIndex.postingCount(), trigramIndex.memoryBytes() / 1024.0,
+                        (double) trigramIndex.memoryBytes() / size));
+            }
+            if (statusIndex == null) {
+                lines.add("Status index: not built yet (built by the first filtered list)");
+            } else {
+                lines.add(String.format("Status index: %.1f KB, %.1f bytes per task",
+                        statusIndex.memoryBytes() / 1024.0, (double) statusIndex.memoryBytes() / size));
+            }
+            return lines;
+        } finally {
+            doneLock.unlockRead(doneStamp);
+            lock.unlockRead(stamp);
+        }
     }
 }
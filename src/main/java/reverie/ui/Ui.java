@@ -2,28 +2,93 @@ package reverie.ui;
 
 import reverie.exception.ReverieException;
 import reverie.task.Task;
+import java.io.BufferedWriter;
+import java.io.Console;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
 import java.util.ArrayList;
+import java.util.List;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
+import java.util.function.IntConsumer;
 
 /**
  * Represents the user interface of the Reverie chatbot.
  * A <code>Ui</code> object handles all interactions with the user,
  * including displaying messages and reading user input.
+ * Output is written to one buffered writer that is flushed once per command, when input is next read,
+ * and long lists of tasks are read from the task list in chunks rather than one task at a time.
  */
 public class Ui {
-    private static final String HORIZONTAL_LINE = "____________________________________________________________";
+    /** The line that opens and closes every reply, which lets a client connected to a server find its end. */
+    public static final String HORIZONTAL_LINE = "____________________________________________________________";
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int CHUNK_SIZE = 1024;
+    private static final int MAX_CHANGED_TASKS_SHOWN = 10;
     private final Scanner scanner;
+    private final PrintWriter out;
     private static final DateTimeFormatter OUTPUT_FORMAT =
             DateTimeFormatter.ofPattern("MMM dd yyyy", Locale.ENGLISH);
 
     /**
-     * Constructs a Ui object and initializes the scanner for reading user input.
+     * Constructs a Ui object that reads user input from standard input and writes to standard output,
+     * in the charset of the console, or in UTF-8 if there is no console.
      */
     public Ui() {
-        this.scanner = new Scanner(System.in);
+        this(System.in, System.out, BUFFER_SIZE, getConsoleCharset());
+    }
+
+    /**
+     * Constructs a Ui object that reads user input from, and writes to, the specified streams in UTF-8.
+     *
+     * @param in The stream to read commands from.
+     * @param out The stream to write output to.
+     */
+    public Ui(InputStream in, OutputStream out) {
+        this(in, out, BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a Ui object that reads user input from, and writes to, the specified streams in UTF-8,
+     * holding up to the specified number of characters of output before writing them out.
+     *
+     * @param in The stream to read commands from.
+     * @param out The stream to write output to.
+     * @param bufferSize The size of the output buffer, in characters.
+     */
+    public Ui(InputStream in, OutputStream out, int bufferSize) {
+        this(in, out, bufferSize, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Constructs a Ui object that reads user input from, and writes to, the specified streams
+     * in the specified charset, holding up to the specified number of characters of output before writing them out.
+     *
+     * @param in The stream to read commands from.
+     * @param out The stream to write output to.
+     * @param bufferSize The size of the output buffer, in characters.
+     * @param charset The charset of both streams.
+     */
+    public Ui(InputStream in, OutputStream out, int bufferSize, Charset charset) {
+        this.scanner = new Scanner(in, charset);
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, charset), bufferSize));
+    }
+
+    /**
+     * Returns the charset of the console, which is the one the terminal expects.
+     * Output that is redirected to a file or a pipe has no console, and is written in UTF-8.
+     *
+     * @return The charset to read and write standard streams in.
+     */
+    private static Charset getConsoleCharset() {
+        Console console = System.console();
+        return console == null ? StandardCharsets.UTF_8 : console.charset();
     }
 
     /**
@@ -46,7 +111,7 @@ public class Ui {
      * Displays a horizontal line separator.
      */
     public void showLine() {
-        System.out.println(HORIZONTAL_LINE);
+        out.println(HORIZONTAL_LINE);
     }
 
     /**
@@ -58,29 +123,37 @@ public class Ui {
         // Print Reverie picture
         String[] logo = getLogo();
         for (String line : logo) {
-            System.out.println(line);
+            out.println(line);
         }
 
         // Welcome message
-        System.out.println(" Hello! I'm Reverie");
-        System.out.println(" What can I do for you?");
+        out.println(" Hello! I'm Reverie");
+        out.println(" What can I do for you?");
         showLine();
     }
 
     /**
-     * Reads a command from the user.
+     * Reads a command from the user, first flushing any output not yet written.
      *
      * @return The user's input as a string.
      */
     public String readCommand() {
+        flush();
         return scanner.nextLine();
     }
 
+    /**
+     * Writes out any output still held in the buffer.
+     */
+    public void flush() {
+        out.flush();
+    }
+
     /**
      * Displays an error message when tasks cannot be loaded from file.
      */
     public void showLoadingError() {
-        System.out.println(" Error loading tasks from file. Starting with empty task list.");
+        out.println(" Error loading tasks from file. Starting with empty task list.");
         showLine();
     }
 
@@ -90,7 +163,55 @@ public class Ui {
      * @param message The error message to display.
      */
     public void showError(String message) {
-        System.out.println(" Error: " + message);
+        out.println(" Error: " + message);
+    }
+
+    /**
+     * Displays a warning message straight away, after the output held back so far, so that it appears in order
+     * even when it comes from outside a command, such as from a save on another thread.
+     *
+     * @param message The warning message to display.
+     */
+    public void showWarning(String message) {
+        out.println(" Warning: " + message);
+        out.flush();
+    }
+
+    /**
+     * Displays where the server is listening and how many clients it serves at once.
+     *
+     * @param address The address and port the server is listening on.
+     * @param maxConnections The largest number of clients connected at once.
+     * @param threadKind The kind of thread each client is served on, such as <code>virtual</code>.
+     */
+    public void showServerStarted(String address, int maxConnections, String threadKind) {
+        out.println(" Listening on " + address + " for up to " + maxConnections + " client(s), each on a "
+                + threadKind + " thread.");
+        out.println(" Press Ctrl+C to stop the server.");
+        flush();
+    }
+
+    /**
+     * Displays an error from a command run in batch mode, with the line the command was on.
+     *
+     * @param lineNumber The line number of the command (1-based).
+     * @param message The error message to display.
+     */
+    public void showBatchError(long lineNumber, String message) {
+        out.println(" Error on line " + lineNumber + ": " + message);
+    }
+
+    /**
+     * Displays how many commands a batch ran, how fast, and how many of them failed.
+     *
+     * @param commandCount The number of commands run.
+     * @param failureCount The number of commands that failed.
+     * @param elapsedNanos The time taken to run the commands and save, in nanoseconds.
+     */
+    public void showBatchSummary(long commandCount, long failureCount, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.println(String.format(Locale.ENGLISH, " Ran %d command(s) in %.3f s (%.0f commands/s), %d failed.",
+                commandCount, seconds, seconds > 0 ? commandCount / seconds : 0.0, failureCount));
     }
 
     /**
@@ -100,9 +221,9 @@ public class Ui {
      * @param taskCount The total number of tasks after addition.
      */
     public void showTaskAdded(Task task, int taskCount) {
-        System.out.println(" Got it. I've added this task:");
-        System.out.println("   " + task.getFullStatus());
-        System.out.println(" Now you have " + taskCount + " tasks in the list.");
+        out.println(" Got it. I've added this task:");
+        out.println("   " + task.getFullStatus());
+        out.println(" Now you have " + taskCount + " tasks in the list.");
     }
 
     /**
@@ -112,9 +233,9 @@ public class Ui {
      * @param taskCount The total number of tasks after deletion.
      */
     public void showTaskDeleted(Task task, int taskCount) {
-        System.out.println(" Noted. I've removed this task:");
-        System.out.println("   " + task.getFullStatus());
-        System.out.println(" Now you have " + taskCount + " tasks in the list.");
+        out.println(" Noted. I've removed this task:");
+        out.println("   " + task.getFullStatus());
+        out.println(" Now you have " + taskCount + " tasks in the list.");
     }
 
     /**
@@ -123,8 +244,8 @@ public class Ui {
      * @param task The task that was marked.
      */
     public void showTaskMarked(Task task) {
-        System.out.println(" Nice! I've marked this task as done:");
-        System.out.println("   " + task.getFullStatus());
+        out.println(" Nice! I've marked this task as done:");
+        out.println("   " + task.getFullStatus());
     }
 
     /**
@@ -133,8 +254,40 @@ public class Ui {
      * @param task The task that was unmarked.
      */
     public void showTaskUnmarked(Task task) {
-        System.out.println(" OK, I've marked this task as unfinished:");
-        System.out.println("   " + task.getFullStatus());
+        out.println(" OK, I've marked this task as unfinished:");
+        out.println("   " + task.getFullStatus());
+    }
+
+    /**
+     * Displays a message confirming that several tasks have been deleted at once.
+     *
+     * @param removedTasks The tasks that were deleted.
+     * @param taskCount The total number of tasks after deletion.
+     */
+    public void showTasksDeleted(List<Task> removedTasks, int taskCount) {
+        out.println(" Noted. I've removed these " + removedTasks.size() + " tasks:");
+        showChangedTasks(removedTasks);
+        out.println(" Now you have " + taskCount + " tasks in the list.");
+    }
+
+    /**
+     * Displays a message confirming that several tasks have been marked as done at once.
+     *
+     * @param changedTasks The tasks that were marked.
+     */
+    public void showTasksMarked(List<Task> changedTasks) {
+        out.println(" Nice! I've marked these " + changedTasks.size() + " tasks as done:");
+        showChangedTasks(changedTasks);
+    }
+
+    /**
+     * Displays a message confirming that several tasks have been marked as unfinished at once.
+     *
+     * @param changedTasks The tasks that were unmarked.
+     */
+    public void showTasksUnmarked(List<Task> changedTasks) {
+        out.println(" OK, I've marked these " + changedTasks.size() + " tasks as unfinished:");
+        showChangedTasks(changedTasks);
     }
 
     /**
@@ -144,16 +297,39 @@ public class Ui {
      * @throws ReverieException If there is an error accessing tasks.
      */
     public void showTaskList(TaskList tasks) throws ReverieException {
-        if (tasks.isEmpty()) {
-            System.out.println(" No tasks added yet!");
-        } else {
-            System.out.println(" Here are the tasks in your list:");
-            for (int i = 0; i < tasks.size(); i++) {
-                System.out.println(" " + (i + 1) + "." + tasks.get(i).getFullStatus());
+        showTaskList(tasks, null);
+    }
+
+    /**
+     * Displays one page of the tasks in the task list, reading only the tasks on the page.
+     *
+     * @param tasks The task list to display.
+     * @param page The page to display, or null for every task.
+     * @throws ReverieException If the page starts after the last task or there is an error accessing tasks.
+     */
+    public void showTaskList(TaskList tasks, Page page) throws ReverieException {
+        int total = tasks.size();
+        if (total == 0) {
+            out.println(" No tasks added yet!");
+            return;
+        }
+        if (page != null) {
+            page.checkInRange(total);
+        }
+        int start = page == null ? 0 : page.getStart();
+        int end = page == null ? total : page.getEnd(total);
+
+        out.println(" Here are the tasks in your list:");
+        for (int from = start; from < end; from += CHUNK_SIZE) {
+            int to = Math.min(end, from + CHUNK_SIZE);
+            int index = from;
+            for (Task task : tasks.getRange(from, to)) {
+                showTask(" ", index++, task);
             }
         }
+        showPageSummary(page, total);
     }
-    
+
     /**
      * Displays tasks that match a search query.
      *
@@ -162,16 +338,45 @@ public class Ui {
      * @throws ReverieException If there is an error accessing tasks.
      */
     public void showFoundTasks(TaskList tasks, ArrayList<Integer> matchingIndices) throws ReverieException {
+        showFoundTasks(tasks, matchingIndices, null);
+    }
+
+    /**
+     * Displays one page of the tasks that match a search query, reading only the tasks on the page.
+     *
+     * @param tasks The complete task list.
+     * @param matchingIndices The indices of tasks that match the search.
+     * @param page The page to display, or null for every matching task.
+     * @throws ReverieException If the page starts after the last match or there is an error accessing tasks.
+     */
+    public void showFoundTasks(TaskList tasks, ArrayList<Integer> matchingIndices, Page page)
+            throws ReverieException {
         if (matchingIndices.isEmpty()) {
-            System.out.println(" No matching tasks found!");
+            out.println(" No matching tasks found!");
         } else {
-            System.out.println(" Here are the matching tasks in your list:");
-            for (int index : matchingIndices) {
-                System.out.println(" " + (index + 1) + "." + tasks.get(index).getFullStatus());
-            }
+            List<Integer> window = getWindow(matchingIndices, page);
+            out.println(" Here are the matching tasks in your list:");
+            showTasks(tasks, window, " ");
+            showPageSummary(page, matchingIndices.size());
         }
     }
 
+    /**
+     * Displays one page of the tasks that match a query as the matching indices are produced,
+     * reading and displaying them a chunk at a time instead of collecting every match first.
+     *
+     * @param tasks The complete task list.
+     * @param matches The source of the indices of the matching tasks, which must produce them in ascending order.
+     * @param page The page to display, or null for every matching task.
+     * @throws ReverieException If the matches cannot be produced, the page starts after the last match,
+     *     or there is an error accessing tasks.
+     */
+    public void showFoundTasks(TaskList tasks, Matches matches, Page page) throws ReverieException {
+        FoundTaskRows rows = new FoundTaskRows(tasks, page);
+        matches.forEach(rows);
+        rows.finish();
+    }
+
     /**
      * Displays tasks scheduled for a specific date.
      *
@@ -181,17 +386,79 @@ public class Ui {
      * @throws ReverieException If there is an error accessing tasks.
      */
     public void showSchedule(TaskList tasks, ArrayList<Integer> matchingIndices, LocalDate date) throws ReverieException {
+        showSchedule(tasks, matchingIndices, date, null);
+    }
+
+    /**
+     * Displays one page of the tasks scheduled for a specific date, reading only the tasks on the page.
+     *
+     * @param tasks The complete task list.
+     * @param matchingIndices The indices of tasks scheduled for the date.
+     * @param date The date to display the schedule for.
+     * @param page The page to display, or null for every scheduled task.
+     * @throws ReverieException If the page starts after the last task or there is an error accessing tasks.
+     */
+    public void showSchedule(TaskList tasks, ArrayList<Integer> matchingIndices, LocalDate date, Page page)
+            throws ReverieException {
         String formattedDate = date.format(OUTPUT_FORMAT);
         if (matchingIndices.isEmpty()) {
-            System.out.println(" No tasks scheduled for " + formattedDate + "!");
+            out.println(" No tasks scheduled for " + formattedDate + "!");
         } else {
-            System.out.println(" Here are the tasks scheduled for " + formattedDate + ":");
-            for (int index : matchingIndices) {
-                System.out.println(" " + (index + 1) + "." + tasks.get(index).getFullStatus());
-            }
+            List<Integer> window = getWindow(matchingIndices, page);
+            out.println(" Here are the tasks scheduled for " + formattedDate + ":");
+            showTasks(tasks, window, " ");
+            showPageSummary(page, matchingIndices.size());
         }
     }
 
+    /**
+     * Displays the heading of the schedule for a range of dates.
+     *
+     * @param from The first date of the range.
+     * @param to The last date of the range.
+     */
+    public void showScheduleRangeHeading(LocalDate from, LocalDate to) {
+        out.println(" Here are the tasks scheduled from " + from.format(OUTPUT_FORMAT)
+                + " to " + to.format(OUTPUT_FORMAT) + ":");
+    }
+
+    /**
+     * Displays the tasks on one day of a schedule for a range of dates.
+     *
+     * @param tasks The complete task list.
+     * @param matchingIndices The indices of tasks scheduled for the day.
+     * @param date The day.
+     * @throws ReverieException If there is an error accessing tasks.
+     */
+    public void showScheduleDay(TaskList tasks, List<Integer> matchingIndices, LocalDate date)
+            throws ReverieException {
+        out.println(" " + date.format(OUTPUT_FORMAT) + ":");
+        showTasks(tasks, matchingIndices, "   ");
+    }
+
+    /**
+     * Displays which results are on a page, after the page itself.
+     *
+     * @param page The page, or null if every result was displayed.
+     * @param total The number of results.
+     */
+    public void showPageSummary(Page page, int total) {
+        if (page != null) {
+            out.println(" " + page.describe(total) + ".");
+        }
+    }
+
+    /**
+     * Displays that no tasks are scheduled in a range of dates.
+     *
+     * @param from The first date of the range.
+     * @param to The last date of the range.
+     */
+    public void showScheduleRangeEmpty(LocalDate from, LocalDate to) {
+        out.println(" No tasks scheduled from " + from.format(OUTPUT_FORMAT)
+                + " to " + to.format(OUTPUT_FORMAT) + "!");
+    }
+
     /**
      * Displays the number of tasks loaded from file.
      *
@@ -200,7 +467,31 @@ public class Ui {
     public void showLoadedTasks(int count) {
         if (count > 0) {
             showLine();
-            System.out.println(" Loaded " + count + " task(s) from file.");
+            out.println(" Loaded " + count + " task(s) from file.");
+        }
+    }
+
+    /**
+     * Displays statistics about the running application.
+     *
+     * @param lines The statistics to display, one per line.
+     */
+    public void showStats(List<String> lines) {
+        out.println(" Here are the current statistics:");
+        for (String line : lines) {
+            out.println("   " + line);
+        }
+    }
+
+    /**
+     * Displays the plan chosen for a query, with the estimated number of tasks out of each step.
+     *
+     * @param lines The lines of the plan.
+     */
+    public void showQueryPlan(List<String> lines) {
+        out.println(" Here is the plan for your query:");
+        for (String line : lines) {
+            out.println("   " + line);
         }
     }
 
@@ -208,14 +499,176 @@ public class Ui {
      * Displays a goodbye message.
      */
     public void showGoodbye() {
-        System.out.println(" Bye. Hope to see you again soon!");
+        out.println(" Bye. Hope to see you again soon!");
         showLine();
     }
 
     /**
-     * Closes the scanner and releases resources.
+     * Flushes the output, then closes the scanner and releases resources.
      */
     public void close() {
+        flush();
         scanner.close();
     }
+
+    /**
+     * Returns the part of a list of results that is on a page.
+     *
+     * @param indices The indices of all the results.
+     * @param page The page, or null for every result.
+     * @return The indices on the page.
+     * @throws ReverieException If the page starts after the last result.
+     */
+    private static List<Integer> getWindow(List<Integer> indices, Page page) throws ReverieException {
+        if (page == null) {
+            return indices;
+        }
+        page.checkInRange(indices.size());
+        return indices.subList(page.getStart(), page.getEnd(indices.size()));
+    }
+
+    /**
+     * Displays the tasks at the specified indices, reading them from the task list in chunks.
+     *
+     * @param tasks The complete task list.
+     * @param indices The indices of the tasks to display.
+     * @param indent The indentation of each line.
+     * @throws ReverieException If there is an error accessing tasks.
+     */
+    private void showTasks(TaskList tasks, List<Integer> indices, String indent) throws ReverieException {
+        for (int from = 0; from < indices.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = indices.subList(from, Math.min(indices.size(), from + CHUNK_SIZE));
+            List<Task> chunkTasks = tasks.getAll(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                showTask(indent, chunk.get(i), chunkTasks.get(i));
+            }
+        }
+    }
+
+    /**
+     * Represents a source of the indices of matching tasks, such as a query plan being executed.
+     */
+    public interface Matches {
+        /**
+         * Passes the index of each matching task to an action, in ascending order.
+         *
+         * @param action The action to perform on each index (0-based).
+         * @throws ReverieException If the matches cannot be produced.
+         */
+        void forEach(IntConsumer action) throws ReverieException;
+    }
+
+    /**
+     * Represents the rows of a search result being displayed as the indices of the matches arrive.
+     * Indices on the page are collected into chunks, and each full chunk is read from the task list and displayed,
+     * so at most one chunk of indices is held at a time.
+     */
+    private class FoundTaskRows implements IntConsumer {
+        private final TaskList tasks;
+        private final Page page;
+        private final int start;
+        private final int end;
+        private final List<Integer> chunk = new ArrayList<>(CHUNK_SIZE);
+        private int count;
+        private boolean isHeadingShown;
+        // Kept until the matches are done, since an IntConsumer cannot throw it
+        private ReverieException failure;
+
+        /**
+         * Constructs FoundTaskRows for one page of the matches.
+         *
+         * @param tasks The complete task list.
+         * @param page The page to display, or null for every matching task.
+         */
+        FoundTaskRows(TaskList tasks, Page page) {
+            this.tasks = tasks;
+            this.page = page;
+            this.start = page == null ? 0 : page.getStart();
+            this.end = page == null ? Integer.MAX_VALUE : page.getEnd(Integer.MAX_VALUE);
+        }
+
+        /**
+         * Counts a match and, if it is on the page, adds it to the chunk being collected.
+         *
+         * @param index The index of the matching task (0-based).
+         */
+        @Override
+        public void accept(int index) {
+            int position = count++;
+            if (position < start || position >= end || failure != null) {
+                return;
+            }
+            chunk.add(index);
+            if (chunk.size() == CHUNK_SIZE) {
+                showChunk();
+            }
+        }
+
+        /**
+         * Displays the rest of the page and how many tasks matched.
+         *
+         * @throws ReverieException If the page starts after the last match or there is an error accessing tasks.
+         */
+        void finish() throws ReverieException {
+            if (!chunk.isEmpty()) {
+                showChunk();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (count == 0) {
+                out.println(" No matching tasks found!");
+                return;
+            }
+            if (page != null) {
+                page.checkInRange(count);
+            }
+            showPageSummary(page, count);
+        }
+
+        /**
+         * Displays the tasks of the collected chunk, after the heading if it has not been shown yet.
+         */
+        private void showChunk() {
+            if (!isHeadingShown) {
+                out.println(" Here are the matching tasks in your list:");
+                isHeadingShown = true;
+            }
+            try {
+                showTasks(tasks, chunk, " ");
+            } catch (ReverieException e) {
+                failure = e;
+            }
+            chunk.clear();
+        }
+    }
+
+    /**
+     * Displays the first few tasks changed by a command, and how many more there were.
+     *
+     * @param changedTasks The changed tasks.
+     */
+    private void showChangedTasks(List<Task> changedTasks) {
+        int shown = Math.min(changedTasks.size(), MAX_CHANGED_TASKS_SHOWN);
+        for (int i = 0; i < shown; i++) {
+            out.println("   " + changedTasks.get(i).getFullStatus());
+        }
+        if (changedTasks.size() > shown) {
+            out.println("   ...and " + (changedTasks.size() - shown) + " more");
+        }
+    }
+
+    /**
+     * Displays a single task with its number.
+     *
+     * @param indent The indentation of the line.
+     * @param index The index of the task (0-based).
+     * @param task The task.
+     */
+    private void showTask(String indent, int index, Task task) {
+        out.print(indent);
+        out.print(index + 1);
+        out.print('.');
+        out.println(task.getFullStatus());
+    }
 }
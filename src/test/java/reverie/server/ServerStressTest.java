@@ -0,0 +1,208 @@
+package reverie.server;
+
+import reverie.storage.Storage;
+import reverie.task.Todo;
+import reverie.ui.TaskList;
+import reverie.ui.Ui;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a stress test of a <code>Server</code> with clients changing and searching one task list at once.
+ * A <code>ServerStressTest</code> connects writers that keep adding and deleting tasks named apple and pear,
+ * and readers that keep searching for apple with <code>find</code> and <code>query</code>.
+ * Every task a search displays must be an apple, and no search may fail, which only holds if no change
+ * lands between a search finding its tasks and displaying them.
+ *
+ * <p>Reverie has no test framework, so this is a plain program. Compile it together with the main sources
+ * and run <code>java -cp OUT_DIR reverie.server.ServerStressTest</code>. It serves on a free port of this
+ * machine and keeps its data in a temporary folder. It exits with status 1 if a check fails.</p>
+ */
+public class ServerStressTest {
+    private static final int INITIAL_TASKS = 200;
+    private static final int WRITER_CLIENTS = 2;
+    private static final int READER_CLIENTS = 4;
+    private static final int SEARCHES_PER_READER = 300;
+    private static final String[] SEARCHES = {"find /word apple", "find apple", "query word:apple"};
+    private static final Pattern TASK_ROW = Pattern.compile("^ \\d+\\.\\[");
+
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Runs the test and exits with status 1 if it failed.
+     *
+     * @param args Command line arguments (not used).
+     * @throws Exception If the server cannot be started or the test is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        ServerStressTest test = new ServerStressTest();
+        test.run();
+        if (!test.failures.isEmpty()) {
+            System.out.println(" " + test.failures.size() + " check(s) failed, for example: " + test.failures.get(0));
+            System.exit(1);
+        }
+        System.out.println(" All checks passed.");
+    }
+
+    /**
+     * Starts a server, runs the writers and readers against it, and stops it.
+     *
+     * @throws Exception If the server cannot be started or the test is interrupted.
+     */
+    private void run() throws Exception {
+        Path folder = Files.createTempDirectory("reverie-server-test");
+        Storage storage = new Storage(folder.resolve("reverie.txt").toString(), true);
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < INITIAL_TASKS; i++) {
+            tasks.add(new Todo((i % 2 == 0 ? "apple " : "pear ") + i));
+        }
+
+        Server server = new Server(tasks, storage, WRITER_CLIENTS + READER_CLIENTS);
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread serving = new Thread(() -> {
+                try {
+                    server.serve(serverSocket);
+                } catch (IOException e) {
+                    // The socket was closed at the end of the test
+                }
+            });
+            serving.setDaemon(true);
+            serving.start();
+
+            AtomicBoolean isSearching = new AtomicBoolean(true);
+            List<Thread> writers = new ArrayList<>();
+            for (int w = 0; w < WRITER_CLIENTS; w++) {
+                int writer = w;
+                writers.add(new Thread(() -> runWriter(serverSocket.getLocalPort(), writer, isSearching)));
+            }
+            List<Thread> readers = new ArrayList<>();
+            for (int r = 0; r < READER_CLIENTS; r++) {
+                readers.add(new Thread(() -> runReader(serverSocket.getLocalPort())));
+            }
+
+            writers.forEach(Thread::start);
+            readers.forEach(Thread::start);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            isSearching.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        System.out.println(" Ran " + READER_CLIENTS * SEARCHES_PER_READER + " search(es) while " + WRITER_CLIENTS
+                + " client(s) added and deleted tasks.");
+    }
+
+    /**
+     * Connects a client that adds an apple and a pear and then deletes the first task, until the searches end.
+     *
+     * @param port The port of the server.
+     * @param writer The number of the writer.
+     * @param isSearching Whether any reader is still searching.
+     */
+    private void runWriter(int port, int writer, AtomicBoolean isSearching) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            readReply(in);
+            for (int i = 0; isSearching.get(); i++) {
+                for (String command : new String[]{"todo apple w" + writer + "-" + i, "todo pear w" + writer + "-" + i,
+                        "delete 1", "delete 1"}) {
+                    send(out, command);
+                    for (String line : readReply(in)) {
+                        if (line.startsWith(" Error")) {
+                            failures.add("'" + command + "' failed:" + line);
+                        }
+                    }
+                }
+            }
+            send(out, "bye");
+            readReply(in);
+        } catch (IOException e) {
+            failures.add("A writer lost its connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Connects a client that searches for apples and checks that every task displayed is one.
+     *
+     * @param port The port of the server.
+     */
+    private void runReader(int port) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            readReply(in);
+            for (int i = 0; i < SEARCHES_PER_READER; i++) {
+                String search = SEARCHES[i % SEARCHES.length];
+                send(out, search);
+                for (String line : readReply(in)) {
+                    if (line.startsWith(" Error")) {
+                        failures.add("'" + search + "' failed:" + line);
+                    } else if (TASK_ROW.matcher(line).find() && !line.contains("apple")) {
+                        failures.add("'" + search + "' displayed a task that is not an apple:" + line);
+                    }
+                }
+            }
+            send(out, "bye");
+            readReply(in);
+        } catch (IOException e) {
+            failures.add("A reader lost its connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends a command to the server.
+     *
+     * @param out The writer of the connection.
+     * @param command The command.
+     * @throws IOException If the command cannot be sent.
+     */
+    private static void send(Writer out, String command) throws IOException {
+        out.write(command);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Reads a reply from the server, which ends with its second separator line.
+     *
+     * @param in The reader of the connection.
+     * @return The lines of the reply.
+     * @throws IOException If the connection closes before the reply ends.
+     */
+    private static List<String> readReply(BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        int separators = 0;
+        while (separators < 2) {
+            String line = in.readLine();
+            if (line == null) {
+                throw new IOException("The server closed the connection");
+            }
+            if (line.equals(Ui.HORIZONTAL_LINE)) {
+                separators++;
+            } else {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,87 @@
+package reverie.storage;
+
+import reverie.exception.ReverieException;
+import reverie.task.Task;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a test of how <code>Storage</code> loads a data file that may be damaged, with a backup beside it.
+ * A <code>StorageRecoveryTest</code> writes a data file and a backup into a temporary folder, loads them,
+ * and checks which tasks were kept:
+ * <ul>
+ *     <li>A file whose last line is a valid task without a line break, as many editors save it, is kept
+ *     in full instead of being replaced by the backup.</li>
+ *     <li>A file whose last line is cut off in the middle of a task is replaced by the backup.</li>
+ *     <li>A cut-off file whose backup cannot be read keeps the tasks that could be read.</li>
+ * </ul>
+ *
+ * <p>Reverie has no test framework, so this is a plain program. Compile it together with the main sources
+ * and run <code>java -cp OUT_DIR reverie.storage.StorageRecoveryTest</code>. It exits with status 1 if a check
+ * fails.</p>
+ */
+public class StorageRecoveryTest {
+    private final List<String> failures = new ArrayList<>();
+
+    /**
+     * Runs every check and exits with status 1 if any of them failed.
+     *
+     * @param args Command line arguments (not used).
+     * @throws IOException If the temporary files cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        StorageRecoveryTest test = new StorageRecoveryTest();
+        test.check("Hand-edited file without a final line break",
+                "T | 0 | old\nT | 0 | hand edited", "T | 0 | old\n", List.of("old", "hand edited"));
+        test.check("File cut off in the middle of a task",
+                "T | 0 | old\nT | 0 | new\nE | 0", "T | 0 | old\n", List.of("old"));
+        test.check("Cut-off file with an unreadable backup",
+                "T | 0 | old\nT | 0 | new\nE | 0", null, List.of("old", "new"));
+        if (!test.failures.isEmpty()) {
+            System.out.println(" " + test.failures.size() + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println(" All checks passed.");
+    }
+
+    /**
+     * Loads a data file and its backup, and checks the descriptions of the tasks loaded.
+     *
+     * @param name The name of the check.
+     * @param data The contents of the data file.
+     * @param backup The contents of the backup, or null for a backup that cannot be read.
+     * @param expected The descriptions of the tasks that should be loaded, in order.
+     * @throws IOException If the temporary files cannot be written.
+     */
+    private void check(String name, String data, String backup, List<String> expected) throws IOException {
+        Path folder = Files.createTempDirectory("reverie-recovery-test");
+        Path file = folder.resolve("reverie.txt");
+        Files.writeString(file, data, StandardCharsets.UTF_8);
+        Path backupFile = folder.resolve("reverie.txt.bak");
+        if (backup == null) {
+            // A folder in place of the backup cannot be read as a file
+            Files.createDirectory(backupFile);
+        } else {
+            Files.writeString(backupFile, backup, StandardCharsets.UTF_8);
+        }
+
+        List<String> loaded = new ArrayList<>();
+        try {
+            for (Task task : new Storage(file.toString()).load()) {
+                loaded.add(task.getDescription());
+            }
+        } catch (ReverieException e) {
+            loaded.add("error: " + e.getMessage());
+        }
+
+        boolean isPassed = loaded.equals(expected);
+        if (!isPassed) {
+            failures.add(name);
+        }
+        System.out.println(" " + name + ": " + (isPassed ? "passed" : "failed, loaded " + loaded));
+    }
+}
@@ -0,0 +1,325 @@
+package reverie.ui;
+
+import reverie.exception.ReverieException;
+import reverie.index.TaskSnapshot;
+import reverie.task.Task;
+import reverie.task.Todo;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a stress test of a <code>TaskList</code> shared between threads.
+ * A <code>TaskListStressTest</code> runs three checks and prints the result of each:
+ * <ul>
+ *     <li>Many threads add tasks at once while readers take snapshots. Every snapshot must hold, for each
+ *     adder, exactly the tasks it had added so far, in the order it added them, and a reader must never see
+ *     a search result shrink, since tasks are only added.</li>
+ *     <li>Threads add, delete and mark tasks while readers search. Every result must be in ascending order
+ *     without repeats, and once the threads stop, the keyword, trigram and status indexes must give exactly
+ *     the answers of a full scan of the tasks.</li>
+ *     <li>A growing number of threads search a large list, to show how reads scale with reader threads.
+ *     The rates depend on the machine, so they are printed but not checked.</li>
+ * </ul>
+ *
+ * <p>Each check is about single <code>TaskList</code> calls, which are atomic. A sequence of calls, such as
+ * finding tasks and then displaying them, is not, unless the caller holds a lock of its own around it.</p>
+ *
+ * <p>Reverie has no test framework, so this is a plain program. Compile it together with the main sources
+ * and run <code>java -cp OUT_DIR reverie.ui.TaskListStressTest</code>. It exits with status 1 if a check
+ * fails.</p>
+ */
+public class TaskListStressTest {
+    private static final int ADDER_THREADS = 8;
+    private static final int ADDS_PER_THREAD = 5_000;
+    private static final int READER_THREADS = 4;
+    private static final int CHURN_OPERATIONS = 20_000;
+    private static final int SCALING_TASKS = 200_000;
+    private static final long SCALING_MILLIS = 2_000;
+    private static final int[] SCALING_READERS = {1, 2, 4, 8};
+
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Runs every check and exits with status 1 if any of them failed.
+     *
+     * @param args Command line arguments (not used).
+     * @throws InterruptedException If the test is interrupted while waiting for its threads.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        TaskListStressTest test = new TaskListStressTest();
+        // A thread that dies of an exception has seen a state it could not handle, so it fails the check
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) ->
+                test.check(false, thread.getName() + " threw " + e));
+        test.checkConcurrentAdders();
+        test.checkIndexesAgainstFullScan();
+        test.measureReaderScaling();
+        if (!test.failures.isEmpty()) {
+            System.out.println(" " + test.failures.size() + " check(s) failed.");
+            System.exit(1);
+        }
+        System.out.println(" All checks passed.");
+    }
+
+    /**
+     * Checks that concurrent adds are neither lost nor reordered, and that every read sees a state that
+     * the adds passed through.
+     *
+     * @throws InterruptedException If the test is interrupted while waiting for its threads.
+     */
+    private void checkConcurrentAdders() throws InterruptedException {
+        TaskList tasks = new TaskList();
+        AtomicBoolean isAdding = new AtomicBoolean(true);
+        AtomicInteger violations = new AtomicInteger();
+        List<Thread> adders = new ArrayList<>();
+        for (int t = 0; t < ADDER_THREADS; t++) {
+            int adder = t;
+            adders.add(new Thread(() -> {
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    tasks.add(new Todo("adder" + adder + " seq" + i));
+                }
+            }));
+        }
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READER_THREADS; r++) {
+            int reader = r;
+            readers.add(new Thread(() -> {
+                int lastCount = 0;
+                while (isAdding.get()) {
+                    if (!isConsistentSnapshot(tasks.snapshot())) {
+                        violations.incrementAndGet();
+                    }
+                    int count = tasks.findKeywordIndices("adder" + (reader % ADDER_THREADS), false).size();
+                    if (count < lastCount) {
+                        violations.incrementAndGet();
+                    }
+                    lastCount = count;
+                }
+            }));
+        }
+
+        readers.forEach(Thread::start);
+        runAll(adders);
+        isAdding.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        check(violations.get() == 0, "Readers saw " + violations.get() + " state(s) the adds never passed through");
+        check(tasks.size() == ADDER_THREADS * ADDS_PER_THREAD,
+                "Expected " + ADDER_THREADS * ADDS_PER_THREAD + " task(s) but found " + tasks.size());
+        check(isConsistentSnapshot(tasks.snapshot()), "The final list lost or reordered an adder's tasks");
+        for (int t = 0; t < ADDER_THREADS; t++) {
+            int found = tasks.findKeywordIndices("adder" + t, false).size();
+            check(found == ADDS_PER_THREAD, "The keyword index found " + found + " task(s) of adder " + t);
+        }
+        report("Concurrent adders");
+    }
+
+    /**
+     * Checks that each adder's tasks in a snapshot are the first ones it added, in the order it added them.
+     *
+     * @param snapshot The snapshot.
+     * @return True if every adder's tasks are in order with none missing, false otherwise.
+     */
+    private static boolean isConsistentSnapshot(TaskSnapshot snapshot) {
+        int[] nextSeq = new int[ADDER_THREADS];
+        for (Task task : snapshot) {
+            String[] words = task.getDescription().split(" ");
+            int adder = Integer.parseInt(words[0].substring("adder".length()));
+            int seq = Integer.parseInt(words[1].substring("seq".length()));
+            if (seq != nextSeq[adder]) {
+                return false;
+            }
+            nextSeq[adder]++;
+        }
+        return true;
+    }
+
+    /**
+     * Checks that searches stay well formed while tasks change, and that every index agrees with a full scan
+     * once the changes stop.
+     *
+     * @throws InterruptedException If the test is interrupted while waiting for its threads.
+     */
+    private void checkIndexesAgainstFullScan() throws InterruptedException {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 2_000; i++) {
+            tasks.add(new Todo((i % 2 == 0 ? "apple " : "pear ") + i));
+        }
+        AtomicBoolean isChanging = new AtomicBoolean(true);
+        AtomicInteger malformed = new AtomicInteger();
+        AtomicInteger nextTask = new AtomicInteger(2_000);
+
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            writers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < CHURN_OPERATIONS; i++) {
+                    int n = nextTask.getAndIncrement();
+                    try {
+                        switch (random.nextInt(3)) {
+                        case 0 -> tasks.add(new Todo((n % 2 == 0 ? "apple " : "pear ") + n));
+                        case 1 -> tasks.delete(random.nextInt(tasks.size()));
+                        default -> tasks.mark(random.nextInt(tasks.size()), random.nextBoolean());
+                        }
+                    } catch (ReverieException e) {
+                        // Another writer deleted the last task between reading the size and using it
+                    }
+                }
+            }));
+        }
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READER_THREADS; r++) {
+            readers.add(new Thread(() -> {
+                while (isChanging.get()) {
+                    if (!isAscending(tasks.findKeywordIndices("apple", false))
+                            || !isAscending(tasks.findTaskIndices("pear"))
+                            || !isAscending(tasks.filterIndices("", true))) {
+                        malformed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        readers.forEach(Thread::start);
+        runAll(writers);
+        isChanging.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        check(malformed.get() == 0, "Searches returned " + malformed.get() + " malformed result(s)");
+        check(tasks.findKeywordIndices("apple", false).equals(scan(tasks, Pattern.compile("\\bapple\\b"))),
+                "The keyword index disagrees with a full scan");
+        check(tasks.findTaskIndices("pear").equals(scan(tasks, Pattern.compile("pear"))),
+                "The trigram index disagrees with a full scan");
+        check(tasks.filterIndices("", true).equals(scan(tasks, Pattern.compile("^\\[T\\]\\[X\\]"))),
+                "The status index disagrees with a full scan");
+        report("Indexes against full scan");
+    }
+
+    /**
+     * Checks that indices are in ascending order without repeats.
+     *
+     * @param indices The indices.
+     * @return True if every index is greater than the one before it, false otherwise.
+     */
+    private static boolean isAscending(List<Integer> indices) {
+        for (int i = 1; i < indices.size(); i++) {
+            if (indices.get(i) <= indices.get(i - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the tasks whose status line matches a pattern by reading every task of a snapshot.
+     *
+     * @param tasks The task list.
+     * @param pattern The pattern.
+     * @return The indices of the matching tasks (0-based), in ascending order.
+     */
+    private static List<Integer> scan(TaskList tasks, Pattern pattern) {
+        List<Integer> indices = new ArrayList<>();
+        int index = 0;
+        for (Task task : tasks.snapshot()) {
+            if (pattern.matcher(task.getFullStatus()).find()) {
+                indices.add(index);
+            }
+            index++;
+        }
+        return indices;
+    }
+
+    /**
+     * Measures how many searches a large list answers per second with more and more reader threads.
+     *
+     * @throws InterruptedException If the test is interrupted while waiting for its threads.
+     */
+    private void measureReaderScaling() throws InterruptedException {
+        List<Task> loaded = new ArrayList<>(SCALING_TASKS);
+        for (int i = 0; i < SCALING_TASKS; i++) {
+            loaded.add(new Todo("task " + i + (i % 100 == 0 ? " rare" : " common")));
+        }
+        TaskList tasks = new TaskList(loaded, false);
+        // Build the indexes before timing, so the first reader does not pay for them
+        tasks.findKeywordIndices("rare", false);
+        tasks.findTaskIndices("rare");
+
+        System.out.println(" Reader scaling on " + Runtime.getRuntime().availableProcessors() + " processor(s):");
+        double singleRate = 0;
+        for (int readerCount : SCALING_READERS) {
+            AtomicLong searches = new AtomicLong();
+            AtomicBoolean isRunning = new AtomicBoolean(true);
+            CountDownLatch ready = new CountDownLatch(readerCount);
+            List<Thread> readers = new ArrayList<>();
+            for (int r = 0; r < readerCount; r++) {
+                readers.add(new Thread(() -> {
+                    ready.countDown();
+                    while (isRunning.get()) {
+                        tasks.findKeywordIndices("rare", false);
+                        tasks.findTaskIndices("rare");
+                        searches.addAndGet(2);
+                    }
+                }));
+            }
+            readers.forEach(Thread::start);
+            ready.await();
+            Thread.sleep(SCALING_MILLIS);
+            isRunning.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+
+            double rate = searches.get() * 1000.0 / SCALING_MILLIS;
+            if (readerCount == 1) {
+                singleRate = rate;
+            }
+            System.out.printf("   %d reader(s): %.0f searches/s (%.2fx one reader)%n",
+                    readerCount, rate, rate / Math.max(singleRate, 1));
+        }
+    }
+
+    /**
+     * Starts threads and waits for all of them to finish.
+     *
+     * @param threads The threads.
+     * @throws InterruptedException If the test is interrupted while waiting.
+     */
+    private static void runAll(List<Thread> threads) throws InterruptedException {
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Records a failure if a condition does not hold.
+     *
+     * @param condition The condition.
+     * @param message The failure to record if the condition does not hold.
+     */
+    private void check(boolean condition, String message) {
+        if (!condition) {
+            failures.add(message);
+            System.out.println(" Failed: " + message);
+        }
+    }
+
+    /**
+     * Prints that a check has finished, and whether all of its conditions held so far.
+     *
+     * @param name The name of the check.
+     */
+    private void report(String name) {
+        System.out.println(" " + name + ": " + (failures.isEmpty() ? "passed" : "failed"));
+    }
+}